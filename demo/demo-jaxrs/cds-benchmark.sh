@@ -0,0 +1,42 @@
+#! /bin/bash
+
+# compares cold and CDS (-XX:SharedArchiveFile) startups of the demo,
+# startup is the "Application started in" line of TrainingRun (JVM uptime when the application is started)
+# usage: ./cds-benchmark.sh [runs]
+
+set -e
+
+cd "$(dirname "$0")"
+
+runs=${1:-5}
+archive=target/demo.jsa
+main=com.github.rmannibucau.playx.core.TrainingRun
+# the training runs in PROD mode which requires a secret, this one is only for the benchmark
+options="-Dplay.http.secret.key=cds-benchmark-only-secret-not-for-production -Dconfig.resource=demo.conf -Dorg.slf4j.simpleLogger.defaultLogLevel=warn -Dorg.slf4j.simpleLogger.log.$main=info"
+
+mvn -B -q package -DskipTests
+mvn -B -q dependency:build-classpath -Dmdep.outputFile=target/classpath.txt
+classpath="target/classes:$(cat target/classpath.txt)"
+
+echo "Training..."
+rm -f "$archive"
+java -XX:ArchiveClassesAtExit="$archive" $options -cp "$classpath" $main
+
+startup() {
+  java "$@" $options -Dplayx.training.iterations=1 -cp "$classpath" $main 2>&1 \
+    | sed -n 's/.*Application started in \([0-9]*\)ms.*/\1/p'
+}
+
+for mode in cold cds; do
+  total=0
+  for i in $(seq 1 $runs); do
+    if [ "$mode" = "cds" ]; then
+      value=$(startup -XX:SharedArchiveFile="$archive" -Xshare:auto)
+    else
+      value=$(startup -Xshare:auto)
+    fi
+    echo "$mode #$i: ${value}ms"
+    total=$((total + value))
+  done
+  echo "$mode average: $((total / runs))ms"
+done
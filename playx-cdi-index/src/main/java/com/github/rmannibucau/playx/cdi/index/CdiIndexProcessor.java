@@ -0,0 +1,115 @@
+package com.github.rmannibucau.playx.cdi.index;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collection;
+import java.util.Set;
+import java.util.TreeSet;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.NestingKind;
+import javax.lang.model.element.TypeElement;
+import javax.tools.Diagnostic;
+import javax.tools.FileObject;
+import javax.tools.StandardLocation;
+
+// writes the bean classes of the compiled module in META-INF/playx/cdi.index to let CdiLoader skip the classpath scanning,
+// usage: add playx-cdi-index as a provided dependency (or in the compiler annotationProcessorPaths) of the bean modules
+@SupportedAnnotationTypes("*")
+@SupportedOptions(CdiIndexProcessor.MODE)
+public class CdiIndexProcessor extends AbstractProcessor {
+
+    public static final String LOCATION = "META-INF/playx/cdi.index";
+
+    // "annotated" (default) indexes the classes with a bean defining annotation, "all" every concrete class
+    // (same meaning as beans.xml bean-discovery-mode)
+    static final String MODE = "playx.cdi.index.mode";
+
+    private final Collection<String> classes = new TreeSet<>();
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(final Set<? extends TypeElement> annotations, final RoundEnvironment roundEnv) {
+        if (roundEnv.processingOver()) {
+            if (!classes.isEmpty()) {
+                write();
+            }
+            return false;
+        }
+        final boolean all = "all".equalsIgnoreCase(processingEnv.getOptions().get(MODE));
+        roundEnv.getRootElements().forEach(element -> visit(element, all));
+        return false;
+    }
+
+    private void visit(final Element element, final boolean all) {
+        if (element.getKind() != ElementKind.CLASS) {
+            return;
+        }
+        final TypeElement type = TypeElement.class.cast(element);
+        if (isCandidate(type) && (all || hasBeanDefiningAnnotation(type))) {
+            classes.add(processingEnv.getElementUtils().getBinaryName(type).toString());
+        }
+        type.getEnclosedElements().forEach(nested -> visit(nested, all));
+    }
+
+    private boolean isCandidate(final TypeElement type) {
+        final Set<Modifier> modifiers = type.getModifiers();
+        if (modifiers.contains(Modifier.PRIVATE)
+                || (type.getNestingKind() == NestingKind.MEMBER && !modifiers.contains(Modifier.STATIC))) {
+            return false;
+        }
+        // decorators are generally abstract
+        return !modifiers.contains(Modifier.ABSTRACT) || hasAnnotation(type, "javax.decorator.Decorator");
+    }
+
+    private boolean hasBeanDefiningAnnotation(final TypeElement type) {
+        for (final AnnotationMirror mirror : type.getAnnotationMirrors()) {
+            final TypeElement annotation = TypeElement.class.cast(mirror.getAnnotationType().asElement());
+            switch (annotation.getQualifiedName().toString()) {
+                case "javax.enterprise.context.Dependent":
+                case "javax.interceptor.Interceptor":
+                case "javax.decorator.Decorator":
+                    return true;
+                default:
+                    if (hasAnnotation(annotation, "javax.enterprise.context.NormalScope")
+                            || hasAnnotation(annotation, "javax.enterprise.inject.Stereotype")) {
+                        return true;
+                    }
+            }
+        }
+        return false;
+    }
+
+    private boolean hasAnnotation(final Element element, final String annotation) {
+        return element.getAnnotationMirrors().stream()
+                .anyMatch(it -> TypeElement.class.cast(it.getAnnotationType().asElement()).getQualifiedName()
+                        .contentEquals(annotation));
+    }
+
+    private void write() {
+        try {
+            final FileObject index = processingEnv.getFiler().createResource(StandardLocation.CLASS_OUTPUT, "", LOCATION);
+            try (final Writer writer = index.openWriter()) {
+                writer.write("# generated by playx-cdi-index, one bean class per line\n");
+                for (final String clazz : classes) {
+                    writer.write(clazz);
+                    writer.write('\n');
+                }
+            }
+        } catch (final IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Can't write " + LOCATION + ": " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.github.rmannibucau.playx.cdi.index;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CdiIndexProcessorTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void annotated() throws IOException {
+        assertEquals(asList("app.Bean", "app.Bean$Nested", "app.Stereotyped"), compile());
+    }
+
+    @Test
+    public void all() throws IOException {
+        assertEquals(asList("app.Bean", "app.Bean$Nested", "app.Plain", "app.Stereotyped"), compile("-Aplayx.cdi.index.mode=all"));
+    }
+
+    private List<String> compile(final String... options) throws IOException {
+        final File output = temporaryFolder.newFolder();
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final List<String> args = new java.util.ArrayList<>(asList("-d", output.getAbsolutePath(),
+                "-processor", CdiIndexProcessor.class.getName()));
+        args.addAll(asList(options));
+        assertTrue(compiler.getTask(null, null, null, args, null, asList(
+                source("app.Scoped", "package app; @javax.enterprise.context.NormalScope @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME) public @interface Scoped {}"),
+                source("app.Stereo", "package app; @javax.enterprise.inject.Stereotype @java.lang.annotation.Retention(java.lang.annotation.RetentionPolicy.RUNTIME) public @interface Stereo {}"),
+                source("app.Bean", "package app; @Scoped public class Bean { @javax.enterprise.context.Dependent public static class Nested {} @Scoped class Inner {} }"),
+                source("app.Stereotyped", "package app; @Stereo public class Stereotyped {}"),
+                source("app.Abstract", "package app; @Scoped public abstract class Abstract {}"),
+                source("app.Plain", "package app; public class Plain {}")))
+                .call());
+        return Files.readAllLines(new File(output, CdiIndexProcessor.LOCATION).toPath(), StandardCharsets.UTF_8).stream()
+                .filter(it -> !it.startsWith("#"))
+                .collect(toList());
+    }
+
+    private JavaFileObject source(final String name, final String content) {
+        return new SimpleJavaFileObject(URI.create("string:///" + name.replace('.', '/') + ".java"), JavaFileObject.Kind.SOURCE) {
+
+            @Override
+            public CharSequence getCharContent(final boolean ignoreEncodingErrors) {
+                return content;
+            }
+        };
+    }
+}
@@ -0,0 +1,134 @@
+package com.github.rmannibucau.playx.cdi;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.apache.pekko.actor.ActorSystem;
+
+// executor of the asynchronous CDI work (Event#fireAsync with OpenWebBeans, @Async methods), the tasks run in
+// the request (RequestContext) of the submitter, the actual executor is created on the first task:
+// - play: play default execution context (pekko default dispatcher),
+// - dispatcher: a pekko dispatcher by name,
+// - pool: a dedicated bounded pool, tasks are rejected when the queue is full,
+// - virtual: a virtual thread per task (java 21)
+public class AsyncExecutor implements Executor {
+
+    private final String type;
+
+    private final String dispatcher;
+
+    private final int poolSize;
+
+    private final int queueSize;
+
+    private final RequestContext requestContext;
+
+    private volatile Supplier<ActorSystem> actorSystem;
+
+    private volatile Supplier<? extends Executor> playExecutor;
+
+    private volatile Executor delegate;
+
+    AsyncExecutor(final String type, final String dispatcher, final int poolSize, final int queueSize,
+                  final RequestContext requestContext) {
+        this.type = type;
+        this.dispatcher = dispatcher;
+        this.poolSize = poolSize;
+        this.queueSize = queueSize;
+        this.requestContext = requestContext;
+        switch (type) {
+        case "play":
+        case "dispatcher":
+        case "pool":
+        case "virtual":
+            break;
+        default:
+            throw new IllegalArgumentException("Unsupported playx.cdi.async.executor: '" + type + "', "
+                    + "supported values: play, dispatcher, pool, virtual");
+        }
+    }
+
+    // play beans are only there after the discovery, the first task comes later
+    void bind(final Supplier<ActorSystem> actorSystem, final Supplier<? extends Executor> playExecutor) {
+        this.actorSystem = actorSystem;
+        this.playExecutor = playExecutor;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    @Override
+    public void execute(final Runnable task) {
+        final RequestContext.Handle request = requestContext.current();
+        getDelegate().execute(request == null ? task : request.wrap(task));
+    }
+
+    void shutdown() {
+        final Executor executor = delegate;
+        if (ExecutorService.class.isInstance(executor)) {
+            final ExecutorService service = ExecutorService.class.cast(executor);
+            service.shutdown();
+            try {
+                if (!service.awaitTermination(30, TimeUnit.SECONDS)) {
+                    service.shutdownNow();
+                }
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private Executor getDelegate() {
+        Executor executor = delegate;
+        if (executor == null) {
+            synchronized (this) {
+                executor = delegate;
+                if (executor == null) {
+                    executor = createDelegate();
+                    delegate = executor;
+                }
+            }
+        }
+        return executor;
+    }
+
+    private Executor createDelegate() {
+        switch (type) {
+        case "dispatcher":
+            if (actorSystem == null) {
+                throw new IllegalStateException("No actor system, is playx.cdi.beans.defaults disabled?");
+            }
+            return actorSystem.get().dispatchers().lookup(dispatcher);
+        case "pool":
+            return new ThreadPoolExecutor(poolSize, poolSize, 1, TimeUnit.MINUTES, new LinkedBlockingQueue<>(queueSize),
+                    new ThreadFactory() {
+
+                        private final AtomicInteger counter = new AtomicInteger();
+
+                        @Override
+                        public Thread newThread(final Runnable r) {
+                            final Thread thread = new Thread(r, "playx-async-" + counter.incrementAndGet());
+                            thread.setDaemon(true);
+                            return thread;
+                        }
+                    });
+        case "virtual":
+            try { // java 21, the build targets 17
+                return Executor.class.cast(Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null));
+            } catch (final ReflectiveOperationException e) {
+                throw new IllegalStateException("Virtual threads need java 21", e);
+            }
+        default: // play
+            return playExecutor == null ? ForkJoinPool.commonPool() : playExecutor.get();
+        }
+    }
+}
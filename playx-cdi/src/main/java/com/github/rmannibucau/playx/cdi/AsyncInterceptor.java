@@ -0,0 +1,51 @@
+package com.github.rmannibucau.playx.cdi;
+
+import java.io.Serializable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+
+import javax.annotation.Priority;
+import javax.inject.Inject;
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.Interceptor;
+import javax.interceptor.InvocationContext;
+
+@Async
+@Interceptor
+@Priority(Interceptor.Priority.PLATFORM_BEFORE) // first so the other interceptors run in the asynchronous task
+public class AsyncInterceptor implements Serializable {
+
+    @Inject
+    private AsyncExecutor executor;
+
+    @AroundInvoke
+    public Object async(final InvocationContext context) {
+        if (!CompletionStage.class.isAssignableFrom(context.getMethod().getReturnType())) {
+            throw new IllegalStateException("@Async methods must return a CompletionStage: " + context.getMethod());
+        }
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    final Object stage = context.proceed();
+                    if (stage == null) {
+                        result.complete(null);
+                    } else {
+                        CompletionStage.class.cast(stage).whenComplete((value, error) -> {
+                            if (error != null) {
+                                result.completeExceptionally(Throwable.class.cast(error));
+                            } else {
+                                result.complete(value);
+                            }
+                        });
+                    }
+                } catch (final Exception e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (final RuntimeException re) { // rejected (bounded pool)
+            result.completeExceptionally(re);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,94 @@
+package com.github.rmannibucau.playx.cdi;
+
+import static java.util.Arrays.asList;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.enterprise.inject.Instance;
+import javax.inject.Provider;
+
+import org.apache.pekko.actor.ActorSystem;
+import org.apache.pekko.stream.Materializer;
+
+import com.github.rmannibucau.playx.core.StartupTimeline;
+import com.typesafe.config.Config;
+
+import play.Application;
+import play.api.Configuration;
+import play.api.Environment;
+import play.api.http.HttpConfiguration;
+import play.api.http.HttpErrorHandler;
+import play.api.http.HttpRequestHandler;
+import play.api.mvc.request.RequestFactory;
+import play.inject.ApplicationLifecycle;
+import play.inject.Injector;
+import play.routing.Router;
+
+// decides which built-in play beans CdiLoader registers: all by default, else (prune mode) only the ones
+// injected by the application (ProcessInjectionPoint) or looked up by play/playx itself, excludes always win
+class BuiltInBeans {
+
+    // looked up programmatically by play (server, application facade, router) so never injected
+    private static final Collection<Class<?>> ROOTS = new HashSet<>(asList(
+            Application.class, play.api.Application.class, Injector.class, play.api.inject.Injector.class,
+            Config.class, Configuration.class, play.Environment.class, Environment.class,
+            ApplicationLifecycle.class, play.api.inject.ApplicationLifecycle.class,
+            ActorSystem.class, Materializer.class, RequestFactory.class, HttpConfiguration.class,
+            HttpRequestHandler.class, play.http.HttpRequestHandler.class, HttpErrorHandler.class, play.http.HttpErrorHandler.class,
+            Router.class, play.api.routing.Router.class,
+            RequestContext.class, AsyncExecutor.class, StartupTimeline.class));
+
+    private final boolean prune;
+
+    private final Collection<String> includes;
+
+    private final Collection<String> excludes;
+
+    private final Set<Class<?>> injected = new HashSet<>();
+
+    BuiltInBeans(final boolean prune, final Collection<String> includes, final Collection<String> excludes) {
+        this.prune = prune;
+        this.includes = new HashSet<>(includes);
+        this.excludes = new HashSet<>(excludes);
+    }
+
+    boolean isPrune() {
+        return prune;
+    }
+
+    void onInjectionPoint(final Type type) {
+        if (!prune) {
+            return;
+        }
+        if (Class.class.isInstance(type)) {
+            injected.add(Class.class.cast(type));
+        } else if (ParameterizedType.class.isInstance(type)) {
+            final ParameterizedType parameterized = ParameterizedType.class.cast(type);
+            final Type raw = parameterized.getRawType();
+            if ((raw == Provider.class || raw == Instance.class) && parameterized.getActualTypeArguments().length == 1) {
+                onInjectionPoint(parameterized.getActualTypeArguments()[0]);
+            } else {
+                onInjectionPoint(raw);
+            }
+        }
+    }
+
+    boolean isExcluded(final Class<?> api) {
+        return excludes.contains(api.getName());
+    }
+
+    // api is the main type of the bean (the one used in the configuration lists), types its other types
+    boolean isEnabled(final Class<?> api, final Collection<? extends Type> types) {
+        if (isExcluded(api)) {
+            return false;
+        }
+        if (!prune || ROOTS.contains(api) || includes.contains(api.getName()) || injected.contains(api)) {
+            return true;
+        }
+        return types.stream().anyMatch(injected::contains);
+    }
+}
@@ -0,0 +1,83 @@
+package com.github.rmannibucau.playx.cdi;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.unmodifiableCollection;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.AnnotatedElement;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import com.github.rmannibucau.playx.servlet.servlet.api.ClassFinder;
+
+// index of the types discovered by the container: supertype/interface/annotation -> classes,
+// built once after the discovery so @HandlesTypes lookups are a map access.
+// Like a servlet container (servlet spec 8.2.4) annotations are indexed at class, method, field and constructor level
+class CdiClassFinder implements ClassFinder {
+
+    private final Map<Class<?>, Collection<Class<?>>> index = new HashMap<>();
+
+    CdiClassFinder(final Collection<Class<?>> types) {
+        types.forEach(this::index);
+        index.replaceAll((k, v) -> unmodifiableCollection(new ArrayList<>(v)));
+    }
+
+    @Override
+    public Collection<Class<?>> findClasses(final Class<?> type) {
+        return index.getOrDefault(type, emptyList());
+    }
+
+    private void index(final Class<?> type) {
+        final Set<Class<?>> visited = new LinkedHashSet<>();
+        try {
+            collect(type, visited);
+        } catch (final RuntimeException | LinkageError e) { // incomplete classpath for this type, skip it
+            return;
+        }
+        try {
+            collectAnnotations(type.getDeclaredFields(), visited);
+            collectAnnotations(type.getDeclaredMethods(), visited);
+            collectAnnotations(type.getDeclaredConstructors(), visited);
+        } catch (final RuntimeException | LinkageError e) { // a member signature is not loadable, keep the type level keys
+            // no-op
+        }
+        visited.remove(type);
+        visited.forEach(key -> index.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(type));
+    }
+
+    private void collect(final Class<?> type, final Set<Class<?>> visited) {
+        Class<?> current = type.getSuperclass();
+        while (current != null && current != Object.class) {
+            visited.add(current);
+            current = current.getSuperclass();
+        }
+        collectInterfaces(type, visited);
+        for (final Annotation annotation : type.getAnnotations()) { // includes @Inherited ones
+            visited.add(annotation.annotationType());
+        }
+    }
+
+    private void collectAnnotations(final AnnotatedElement[] members, final Set<Class<?>> visited) {
+        for (final AnnotatedElement member : members) {
+            for (final Annotation annotation : member.getAnnotations()) {
+                visited.add(annotation.annotationType());
+            }
+        }
+    }
+
+    private void collectInterfaces(final Class<?> type, final Set<Class<?>> visited) {
+        Class<?> current = type;
+        while (current != null && current != Object.class) {
+            for (final Class<?> itf : current.getInterfaces()) {
+                if (visited.add(itf)) {
+                    collectInterfaces(itf, visited);
+                }
+            }
+            current = current.getSuperclass();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.github.rmannibucau.playx.cdi;
+
+import static java.util.Collections.unmodifiableCollection;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.TreeSet;
+
+// bean classes written at build time by playx-cdi-index, lets the container skip the classpath scanning
+class CdiIndex {
+
+    static final String LOCATION = "META-INF/playx/cdi.index";
+
+    private final NavigableSet<String> classes;
+
+    private final int archives;
+
+    private CdiIndex(final NavigableSet<String> classes, final int archives) {
+        this.classes = classes;
+        this.archives = archives;
+    }
+
+    // null if no archive is indexed
+    static CdiIndex read(final ClassLoader loader) {
+        final NavigableSet<String> classes = new TreeSet<>();
+        int archives = 0;
+        try {
+            final Enumeration<URL> indexes = loader.getResources(LOCATION);
+            while (indexes.hasMoreElements()) {
+                archives++;
+                try (final BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(indexes.nextElement().openStream(), StandardCharsets.UTF_8))) {
+                    reader.lines().map(String::trim).filter(it -> !it.isEmpty() && !it.startsWith("#")).forEach(classes::add);
+                }
+            }
+        } catch (final IOException | UncheckedIOException e) {
+            throw new IllegalStateException("Can't read " + LOCATION, e);
+        }
+        return archives == 0 ? null : new CdiIndex(classes, archives);
+    }
+
+    Collection<String> getClasses() {
+        return unmodifiableCollection(classes);
+    }
+
+    int getArchives() {
+        return archives;
+    }
+
+    // same contract as the classloader lookup: a class of the package or, if recursive and the package has no class,
+    // a class of each top level subpackage, empty if the package is not indexed
+    Collection<String> findPackageClasses(final String pck, final boolean recursive) {
+        final String prefix = pck + '.';
+        final Map<String, String> classByPackage = new LinkedHashMap<>();
+        for (final String clazz : classes.tailSet(prefix, true)) {
+            if (!clazz.startsWith(prefix)) {
+                break;
+            }
+            final String clazzPackage = clazz.substring(0, clazz.lastIndexOf('.'));
+            if (clazzPackage.equals(pck)) {
+                final Collection<String> single = new ArrayList<>(1);
+                single.add(clazz);
+                return single;
+            }
+            if (recursive) {
+                classByPackage.putIfAbsent(clazzPackage, clazz);
+            }
+        }
+        final Collection<String> packages = new PackageCleaner().removeOverlaps(classByPackage.keySet());
+        final Collection<String> result = new ArrayList<>(packages.size());
+        packages.forEach(it -> result.add(classByPackage.get(it)));
+        return result;
+    }
+
+    @Override
+    public String toString() {
+        return "CdiIndex(archives=" + archives + ", classes=" + classes.size() + ')';
+    }
+}
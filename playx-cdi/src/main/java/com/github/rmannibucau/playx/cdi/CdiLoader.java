@@ -1,59 +1,65 @@
 package com.github.rmannibucau.playx.cdi;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
-import static java.util.Collections.list;
 import static java.util.Objects.requireNonNull;
-import static java.util.Optional.of;
 import static java.util.Optional.ofNullable;
 import static java.util.stream.Collectors.toList;
 
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.lang.annotation.Annotation;
-import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Enumeration;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
-import java.util.Set;
+import java.util.Properties;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
-import java.util.jar.JarEntry;
-import java.util.jar.JarFile;
 import java.util.stream.Stream;
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.context.Dependent;
+import javax.enterprise.context.RequestScoped;
 import javax.enterprise.event.Observes;
 import javax.enterprise.inject.Any;
 import javax.enterprise.inject.Default;
 import javax.enterprise.inject.se.SeContainer;
 import javax.enterprise.inject.se.SeContainerInitializer;
 import javax.enterprise.inject.spi.AfterBeanDiscovery;
+import javax.enterprise.inject.spi.AfterDeploymentValidation;
 import javax.enterprise.inject.spi.AnnotatedType;
+import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanManager;
 import javax.enterprise.inject.spi.BeforeBeanDiscovery;
 import javax.enterprise.inject.spi.Extension;
 import javax.enterprise.inject.spi.InjectionTarget;
+import javax.enterprise.inject.spi.ProcessAnnotatedType;
 import javax.enterprise.inject.spi.ProcessBeanAttributes;
+import javax.enterprise.inject.spi.ProcessInjectionPoint;
 import javax.enterprise.inject.spi.configurator.BeanConfigurator;
 import javax.enterprise.util.TypeLiteral;
 import javax.inject.Singleton;
 
 import org.apache.pekko.actor.CoordinatedShutdown;
 import org.slf4j.ILoggerFactory;
+import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.github.rmannibucau.playx.core.LookupMetrics;
+import com.github.rmannibucau.playx.core.StartupTimeline;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigObject;
 import com.typesafe.config.ConfigValueType;
@@ -126,6 +132,7 @@ import scala.concurrent.Future;
 import scala.reflect.ClassTag;
 
 public class CdiLoader implements ApplicationLoader, Consumer<Collection<Application>> {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CdiLoader.class);
     private final Collection<Application> otherApplications = new ArrayList<>();
     private final BiFunction<Context, String, Class<?>> classLoader = (context, className) -> {
         try {
@@ -137,22 +144,26 @@ public class CdiLoader implements ApplicationLoader, Consumer<Collection<Applica
 
     @Override
     public Application load(final Context context) {
+        final StartupTimeline timeline = new StartupTimeline(CdiLoader.class.getSimpleName());
         final Config config = context.initialConfig();
+        final CdiIndex index = safeConfigAccess(config, "playx.cdi.container.index", Config::getBoolean).orElse(false)
+                ? CdiIndex.read(context.environment().classLoader())
+                : null;
+        final PackageScanner scanner = new PackageScanner(context.environment().classLoader());
         final BiFunction<Boolean, String, Stream<Package>> packageLoader = (recursive, pckName) -> {
             final ClassLoader loader = context.environment().classLoader();
             final String trimmed = pckName.trim();
+            final Package defined = scanner.findDefinedPackage(trimmed);
+            if (defined != null) {
+                return Stream.of(defined);
+            }
             try {
-                return Stream.of(loader.loadClass(trimmed + ".package-info.class").getPackage());
-            } catch (final ClassNotFoundException e) {
-                return ofNullable(Package.getPackage(trimmed))
-                        .map(Stream::of)
-                        .orElseGet(() -> of(trimmed)
-                                .map(name -> { // try to find a class - more relevant to load
-                                    return findPackageFromClassLoader(loader, name, recursive).stream()
-                                            .map(it -> classLoader.apply(context, it))
-                                            .map(Class::getPackage);
-                                })
-                                .orElseThrow(() -> new IllegalArgumentException("can't find package: " + trimmed, e)));
+                return Stream.of(loader.loadClass(trimmed + ".package-info").getPackage());
+            } catch (final ClassNotFoundException e) { // try to find a class - more relevant to load
+                final Collection<String> indexed = index == null ? emptyList() : index.findPackageClasses(trimmed, recursive);
+                return (indexed.isEmpty() ? scanner.findClasses(trimmed, recursive) : indexed).stream()
+                        .map(it -> classLoader.apply(context, it))
+                        .map(Class::getPackage);
             }
         };
 
@@ -161,23 +172,53 @@ public class CdiLoader implements ApplicationLoader, Consumer<Collection<Applica
         if (safeConfigAccess(config, "playx.cdi.container.disableDiscovery", Config::getBoolean).orElse(false)) {
             initializer.disableDiscovery();
         }
+        if (index != null) {
+            final Class<?>[] indexedClasses = loadIndexedClasses(context, index);
+            if (indexedClasses != null) { // else scanning is the fallback
+                initializer.disableDiscovery();
+                initializer.addBeanClasses(indexedClasses);
+                timeline.count("indexedClasses", indexedClasses.length);
+            }
+            timeline.mark("index");
+        }
         safeConfigAccess(config, "playx.cdi.container.beanClasses", Config::getStringList)
                 .map(list -> list.stream().map(c -> classLoader.apply(context, c)).toArray(Class<?>[]::new))
                 .ifPresent(initializer::addBeanClasses);
-        safeConfigAccess(config, "playx.cdi.container.packages", Config::getList).ifPresent(pcks -> pcks.forEach(value -> {
-            if (value.valueType() == ConfigValueType.OBJECT) {
-                final ConfigObject object = ConfigObject.class.cast(value);
-                final boolean recursive = safeConfigAccess(object.toConfig(), "recursive", Config::getBoolean).orElse(false);
-                final String pck = safeConfigAccess(object.toConfig(), "package", Config::getString)
-                        .orElseThrow(() -> new IllegalArgumentException("Missing package value in " + value))
-                        .trim();
-                packageLoader.apply(recursive, pck).forEach(pckIt -> initializer.addPackages(recursive, pckIt));
-            } else if (value.valueType() == ConfigValueType.STRING) {
-                packageLoader.apply(false, value.unwrapped().toString().trim()).forEach(initializer::addPackages);
-            } else {
-                throw new IllegalArgumentException("Unsupported configuration: " + value);
-            }
-        }));
+        safeConfigAccess(config, "playx.cdi.container.packages", Config::getList).ifPresent(pcks -> {
+            // index all the jars at once, in parallel, before resolving the packages
+            scanner.prefetch(pcks.stream()
+                    .map(value -> value.valueType() == ConfigValueType.OBJECT
+                            ? safeConfigAccess(ConfigObject.class.cast(value).toConfig(), "package", Config::getString).orElse(null)
+                            : value.valueType() == ConfigValueType.STRING ? value.unwrapped().toString() : null)
+                    .filter(Objects::nonNull)
+                    .map(String::trim)
+                    .filter(pck -> scanner.findDefinedPackage(pck) == null)
+                    .filter(pck -> index == null || index.findPackageClasses(pck, true).isEmpty())
+                    .collect(toList()));
+            pcks.forEach(value -> {
+                if (value.valueType() == ConfigValueType.OBJECT) {
+                    final ConfigObject object = ConfigObject.class.cast(value);
+                    final boolean recursive = safeConfigAccess(object.toConfig(), "recursive", Config::getBoolean).orElse(false);
+                    final String pck = safeConfigAccess(object.toConfig(), "package", Config::getString)
+                            .orElseThrow(() -> new IllegalArgumentException("Missing package value in " + value))
+                            .trim();
+                    packageLoader.apply(recursive, pck).forEach(pckIt -> initializer.addPackages(recursive, pckIt));
+                } else if (value.valueType() == ConfigValueType.STRING) {
+                    packageLoader.apply(false, value.unwrapped().toString().trim()).forEach(initializer::addPackages);
+                } else {
+                    throw new IllegalArgumentException("Unsupported configuration: " + value);
+                }
+            });
+            timeline.count("scannedJars", scanner.getScannedJars());
+            scanner.clear();
+            timeline.mark("packages");
+        });
+        final String proxiesOutput = safeConfigAccess(config, PregeneratedProxies.OUTPUT, Config::getString).orElse(null);
+        final boolean pregeneratedProxies = proxiesOutput != null
+                || safeConfigAccess(config, "playx.cdi.container.proxies.pregenerated", Config::getBoolean).orElse(false);
+        if (pregeneratedProxies) {
+            configureProxies(context, initializer, proxiesOutput);
+        }
         safeConfigAccess(config, "playx.cdi.container.properties", Config::getObjectList).ifPresent(properties -> properties
                 .forEach(value -> initializer.addProperty(value.get("key").render(), value.get("value").unwrapped())));
         safeConfigAccess(config, "playx.cdi.container.extensions", Config::getStringList).ifPresent(extensions -> {
@@ -197,83 +238,183 @@ public class CdiLoader implements ApplicationLoader, Consumer<Collection<Applica
             initializer.selectAlternativeStereotypes(alternativeStereotypeClasses);
         });
 
-        final CdiInjector injector = new CdiInjector();
+        final LookupMetrics metrics = safeConfigAccess(config, "playx.cdi.metrics.enabled", Config::getBoolean).orElse(false) ?
+                new LookupMetrics("CDI", safeConfigAccess(config, "playx.cdi.metrics.top", Config::getInt).orElse(10)) :
+                null;
+        final CdiInjector injector = new CdiInjector(metrics);
         final Application application = new CdiApplication(injector, context);
 
-        addProvidedBeans(context, initializer, injector, application);
+        addProvidedBeans(context, initializer, injector, application, timeline);
+        timeline.mark("configuration");
 
         final SeContainer container = initializer.initialize();
         injector.container = container;
-        context.applicationLifecycle().addStopHook(() -> CompletableFuture.runAsync(container::close, Runnable::run));
+        endStartupRequestContext(context);
+        if (proxiesOutput != null) { // normal scoped proxies are lazy, create them all
+            createNormalScopeProxies(container.getBeanManager());
+        }
+        timeline.mark("initialize");
+        timeline.done();
+        LOGGER.info("{}", timeline);
+        if (metrics != null) {
+            metrics.register();
+        }
+        context.applicationLifecycle().addStopHook(() -> CompletableFuture.runAsync(() -> {
+            if (metrics != null) {
+                metrics.unregister();
+            }
+            injector.clear();
+            container.close();
+        }, Runnable::run));
         return application;
     }
 
-    private Collection<String> findPackageFromClassLoader(final ClassLoader loader, final String name, final boolean recursive) {
-        final String pck = name.replace(".", "/");
+    // OWB SE activates a request context for the startup thread, it would shadow the requests of RequestContext there,
+    // done by reflection to not depend on the CDI implementation
+    private void endStartupRequestContext(final Context context) {
+        final ClassLoader loader = context.environment().classLoader();
+        final Thread thread = Thread.currentThread();
+        final ClassLoader contextClassLoader = thread.getContextClassLoader();
+        thread.setContextClassLoader(loader);
         try {
-            final Enumeration<URL> urls = loader.getResources(pck);
-            final Collection<String> names = new ArrayList<>();
-            while (urls.hasMoreElements()) {
-                final File next = toFile(urls.nextElement());
-                final boolean exists = next != null && next.exists();
-                if (exists && !next.isDirectory()) {
-                    try (final JarFile file = new JarFile(next)) {
-                        final Collection<JarEntry> entries = list(file.entries());
-                        final Set<String> packages = new HashSet<>();
-                        final List<String> classes = entries.stream()
-                                .filter(it -> {
-                                    final String eName = it.getName();
-                                    return eName.startsWith(pck + '/') && eName.endsWith(".class") &&
-                                            (recursive || eName.lastIndexOf('/', pck.length()) == pck.length());
-                                })
-                                .map(JarEntry::getName)
-                                .map(clazz -> clazz.replace('/', '.').substring(0, clazz.length() - ".class".length()))
-                                .filter(s -> {
-                                    final String sPck = s.substring(0, s.lastIndexOf('.'));
-                                    return packages.add(sPck);
-                                })
-                                .sorted()
-                                .collect(toList());
-                        if (name.equals(classes.get(0).substring(0, classes.get(0).lastIndexOf('.')))) {
-                            names.add(classes.iterator().next());
-                        } else if (recursive) {
-                            // here we don't have any class in the root package so need to list them all
-                            final PackageCleaner packageCleaner = new PackageCleaner();
-                            final Collection<String> pcks = packageCleaner.removeOverlaps(packages);
-                            names.addAll(classes
-                                    .stream().filter(
-                                            className -> pcks.stream()
-                                                    .anyMatch(pack -> className.startsWith(pack)
-                                                            && !className.substring(pack.length() + 1).contains(".")))
-                                    .collect(toList()));
-                        }
-                    }
-                } else if (exists) { // cheap mode, enforces to have a class in the package directly
-                    ofNullable(next.listFiles())
-                            .map(Stream::of)
-                            .orElseGet(Stream::empty)
-                            .filter(c -> c.getName().endsWith(".class"))
-                            .findFirst()
-                            .ifPresent(c -> names.add(name + '.' + c.getName().substring(0, c.getName().length() - ".class".length())));
+            final Class<?> webBeansContext = loader.loadClass("org.apache.webbeans.config.WebBeansContext");
+            final Class<?> contextsService = loader.loadClass("org.apache.webbeans.spi.ContextsService");
+            final Object contexts = webBeansContext.getMethod("getContextsService")
+                    .invoke(webBeansContext.getMethod("currentInstance").invoke(null));
+            contextsService.getMethod("endContext", Class.class, Object.class).invoke(contexts, RequestScoped.class, null);
+        } catch (final ClassNotFoundException | NoClassDefFoundError e) {
+            // no-op: not OWB
+        } catch (final ReflectiveOperationException | RuntimeException e) {
+            LOGGER.debug("Can't end the startup request context: {}", e.getMessage());
+        } finally {
+            thread.setContextClassLoader(contextClassLoader);
+        }
+    }
+
+    // proxies are defined by PregeneratedProxies, static names make them stable from the build to the runtime
+    private void configureProxies(final Context context, final SeContainerInitializer initializer, final String output) {
+        if (!isOwb(context.environment().classLoader())) {
+            LOGGER.warn("Pre-generated proxies are only supported with OpenWebBeans, ignoring them");
+            return;
+        }
+        initializer.addProperty("org.apache.webbeans.spi.DefiningClassService", PregeneratedProxies.class.getName());
+        initializer.addProperty("org.apache.webbeans.proxy.useStaticNames", "true");
+        if (output != null) {
+            initializer.addProperty(PregeneratedProxies.OUTPUT, output);
+        }
+    }
+
+    private boolean isOwb(final ClassLoader loader) {
+        try {
+            loader.loadClass("org.apache.webbeans.config.WebBeansContext");
+            return true;
+        } catch (final ClassNotFoundException | NoClassDefFoundError e) {
+            return false;
+        }
+    }
+
+    // same resolution as OWB: the openwebbeans.properties with the highest configuration.ordinal wins
+    private String findOwbProperty(final ClassLoader loader, final String key) {
+        String value = null;
+        int ordinal = Integer.MIN_VALUE;
+        try {
+            for (final URL url : Collections.list(loader.getResources("META-INF/openwebbeans/openwebbeans.properties"))) {
+                final Properties properties = new Properties();
+                try (final InputStream stream = url.openStream()) {
+                    properties.load(stream);
+                }
+                final int current = Integer.parseInt(properties.getProperty("configuration.ordinal", "100").trim());
+                if (properties.containsKey(key) && current > ordinal) {
+                    value = properties.getProperty(key).trim();
+                    ordinal = current;
                 }
             }
-            if (!names.isEmpty()) {
-                return names;
+        } catch (final IOException | RuntimeException e) {
+            LOGGER.warn("Can't read OpenWebBeans configuration: {}", e.getMessage());
+            return null;
+        }
+        return value;
+    }
+
+    private void createNormalScopeProxies(final BeanManager beanManager) {
+        beanManager.getBeans(Object.class, Any.Literal.INSTANCE).stream()
+                .filter(bean -> beanManager.isNormalScope(bean.getScope()))
+                .filter(bean -> !Extension.class.isAssignableFrom(bean.getBeanClass()))
+                .forEach(bean -> {
+                    try {
+                        beanManager.getReference(bean, Object.class, beanManager.createCreationalContext(bean));
+                    } catch (final RuntimeException e) {
+                        LOGGER.warn("Can't create the proxy of {}: {}", bean, e.getMessage());
+                    }
+                });
+    }
+
+    private Class<?>[] loadIndexedClasses(final Context context, final CdiIndex index) {
+        final ClassLoader loader = context.environment().classLoader();
+        final Class<?>[] classes = new Class<?>[index.getClasses().size()];
+        int i = 0;
+        for (final String name : index.getClasses()) {
+            try {
+                classes[i++] = loader.loadClass(name);
+            } catch (final ClassNotFoundException | LinkageError e) {
+                LOGGER.warn("Outdated " + CdiIndex.LOCATION + " (" + e.getMessage() + "), scanning the classpath");
+                return null;
             }
-        } catch (final IOException e1) {
-            // no-op
         }
-        return emptyList();
+        LOGGER.debug("Using {}", index);
+        return classes;
     }
 
     private void addProvidedBeans(final Context context, final SeContainerInitializer initializer, final Injector injector,
-                                  final Application application) {
+                                  final Application application, final StartupTimeline timeline) {
         final play.Environment environment = context.environment();
         final Config config = application.config();
         final Configuration configuration = new Configuration(config);
 
+        final Class<?> classFinderApi = findClassFinderApi(context);
+        final Class<?> requestScopeApi = findServletApi(context, "RequestScope");
+        final RequestContext requestContext = new RequestContext();
+        final AsyncExecutor asyncExecutor = new AsyncExecutor(
+                safeConfigAccess(config, "playx.cdi.async.executor", Config::getString).orElse("play").trim(),
+                safeConfigAccess(config, "playx.cdi.async.dispatcher", Config::getString).orElse("pekko.actor.default-dispatcher"),
+                safeConfigAccess(config, "playx.cdi.async.pool.size", Config::getInt)
+                        .orElseGet(() -> Runtime.getRuntime().availableProcessors()),
+                safeConfigAccess(config, "playx.cdi.async.pool.queue", Config::getInt).orElse(1024),
+                requestContext);
+        context.applicationLifecycle().addStopHook(() -> CompletableFuture.runAsync(asyncExecutor::shutdown, Runnable::run));
+        if (isOwb(environment.classLoader())) {
+            if (safeConfigAccess(config, "playx.cdi.async.events", Config::getBoolean).orElse(true)) {
+                // default fireAsync executor, other containers need NotificationOptions.ofExecutor(asyncExecutor)
+                initializer.addProperty(Executor.class.getName(), asyncExecutor);
+            }
+            // OWB request context would shadow the propagated request (asynchronous observers start one)
+            final String contextsService = "org.apache.webbeans.spi.ContextsService";
+            final String delegate = safeConfigAccess(config, "playx.cdi.container.properties", Config::getObjectList)
+                    .flatMap(properties -> properties.stream()
+                            .filter(it -> contextsService.equals(it.get("key").unwrapped()))
+                            .map(it -> String.valueOf(it.get("value").unwrapped()))
+                            .reduce((first, second) -> second))
+                    .orElseGet(() -> findOwbProperty(environment.classLoader(), contextsService));
+            if (delegate != null) {
+                initializer.addProperty(RequestAwareContextsService.DELEGATE, delegate);
+                initializer.addProperty(contextsService, RequestAwareContextsService.class.getName());
+            }
+        }
+        final BuiltInBeans builtIns = new BuiltInBeans(
+                safeConfigAccess(config, "playx.cdi.beans.prune", Config::getBoolean).orElse(false),
+                safeConfigAccess(config, "playx.cdi.beans.includes", Config::getStringList).orElseGet(Collections::emptyList),
+                safeConfigAccess(config, "playx.cdi.beans.excludes", Config::getStringList).orElseGet(Collections::emptyList));
+
         initializer.addExtensions(new Extension() { // todo: make it more configured and modular reusing
 
+            // discovered types, only kept until the ClassFinder index is built
+            private Collection<Class<?>> discoveredTypes = classFinderApi == null ? null : new ArrayList<>();
+
+            private long discoveredTypesCount;
+
+            // play types registered once their reachability is known (prune mode)
+            private final Collection<Class<?>> prunableTypes = new ArrayList<>();
+
             void addSingletons(@Observes final BeforeBeanDiscovery event, final BeanManager beanManager) {
                 // integration with servlet module
                 final Collection<Class<?>> extensions = new ArrayList<>();
@@ -284,13 +425,40 @@ public class CdiLoader implements ApplicationLoader, Consumer<Collection<Applica
                     // no-op
                 }
 
+                event.addAnnotatedType(beanManager.createAnnotatedType(RequestContextFilter.class),
+                        "playx.cdi.beans.builtin." + RequestContextFilter.class.getName());
+                event.addAnnotatedType(beanManager.createAnnotatedType(RequestContextAction.class),
+                        "playx.cdi.beans.builtin." + RequestContextAction.class.getName());
+                event.addInterceptorBinding(Async.class);
+                event.addAnnotatedType(beanManager.createAnnotatedType(AsyncInterceptor.class),
+                        "playx.cdi.beans.builtin." + AsyncInterceptor.class.getName());
+
                 if (safeConfigAccess(context.initialConfig(), "playx.cdi.beans.defaults", Config::getBoolean).orElse(true)) {
-                    Stream.concat(Stream.of(Assets.class, Files.DefaultTemporaryFileCreator.class,
+                    Stream.of(Assets.class, Files.DefaultTemporaryFileCreator.class,
                             Files.DefaultTemporaryFileReaper.class, DefaultPlayBodyParsers.class, BodyParsers.Default.class,
                             DefaultActionBuilderImpl.class, DefaultControllerComponents.class, DefaultMessagesActionBuilderImpl.class,
                             DefaultMessagesControllerComponents.class, DefaultFutures.class,
-                            play.api.libs.concurrent.DefaultFutures.class, HttpExecutionContext.class, DefaultAssetsMetadata.class),
-                            extensions.stream()).forEach(it -> event.addAnnotatedType(beanManager.createAnnotatedType(it)));
+                            play.api.libs.concurrent.DefaultFutures.class, HttpExecutionContext.class, DefaultAssetsMetadata.class)
+                            .filter(it -> !builtIns.isExcluded(it))
+                            .forEach(it -> {
+                                if (builtIns.isPrune()) {
+                                    prunableTypes.add(it);
+                                } else {
+                                    event.addAnnotatedType(beanManager.createAnnotatedType(it));
+                                }
+                            });
+                    extensions.forEach(it -> event.addAnnotatedType(beanManager.createAnnotatedType(it)));
+                }
+            }
+
+            void collectInjectionPoints(@Observes final ProcessInjectionPoint<?, ?> pip) {
+                builtIns.onInjectionPoint(pip.getInjectionPoint().getType());
+            }
+
+            void collectDiscoveredTypes(@Observes final ProcessAnnotatedType<?> pat) {
+                discoveredTypesCount++;
+                if (discoveredTypes != null) {
+                    discoveredTypes.add(pat.getAnnotatedType().getJavaClass());
                 }
             }
 
@@ -299,10 +467,83 @@ public class CdiLoader implements ApplicationLoader, Consumer<Collection<Applica
             }
 
             void addProvidedBeans(@Observes final AfterBeanDiscovery event, final BeanManager beanManager) {
+                timeline.count("discoveredTypes", discoveredTypesCount);
+                timeline.mark("discovery");
+
+                // used when the container has no active request context of its own (default OWB SE one is per thread)
+                event.addContext(requestContext);
+                addBean(event, () -> requestContext, RequestContext.class);
+                addBean(event, () -> asyncExecutor, AsyncExecutor.class);
+                if (requestScopeApi != null) {
+                    final Object requestScope = new CdiRequestScope(requestContext);
+                    event.addBean().id("playx.cdi.beans.builtin." + requestScopeApi.getName()).beanClass(requestScopeApi)
+                         .types(requestScopeApi, Object.class)
+                         .qualifiers(Default.Literal.INSTANCE, Any.Literal.INSTANCE)
+                         .scope(Dependent.class)
+                         .createWith(ctx -> requestScope);
+                }
                 if (safeConfigAccess(context.initialConfig(), "playx.cdi.beans.defaults", Config::getBoolean).orElse(true)) {
+                    addReachableTypes(event, beanManager);
                     addPlayBeans(event);
+                    timeline.mark("playBeans");
                 }
                 addCustomBeans(event, beanManager);
+                if (discoveredTypes != null) {
+                    final Object classFinder = new CdiClassFinder(discoveredTypes);
+                    discoveredTypes = null;
+                    event.addBean().id("playx.cdi.beans.builtin." + classFinderApi.getName()).beanClass(classFinderApi)
+                         .types(classFinderApi, Object.class)
+                         .qualifiers(Default.Literal.INSTANCE, Any.Literal.INSTANCE)
+                         .scope(Dependent.class)
+                         .createWith(ctx -> classFinder);
+                }
+                addBean(event, () -> timeline, StartupTimeline.class);
+                timeline.mark("customBeans");
+            }
+
+            void countBeans(@Observes final AfterDeploymentValidation event, final BeanManager beanManager) {
+                timeline.count("beans", beanManager.getBeans(Object.class, Any.Literal.INSTANCE).size());
+                timeline.mark("validation");
+            }
+
+            // prune mode: the play types injected by the application and, transitively, by these types
+            private void addReachableTypes(final AfterBeanDiscovery event, final BeanManager beanManager) {
+                boolean changed = !prunableTypes.isEmpty();
+                while (changed) {
+                    changed = false;
+                    for (final Iterator<Class<?>> it = prunableTypes.iterator(); it.hasNext(); ) {
+                        final AnnotatedType<?> type = beanManager.createAnnotatedType(it.next());
+                        if (builtIns.isEnabled(type.getJavaClass(), type.getTypeClosure())) {
+                            it.remove();
+                            changed = true;
+                            addAnnotatedBean(event, beanManager, type);
+                        }
+                    }
+                }
+                prunableTypes.clear();
+            }
+
+            // same as an annotated type but added once discovery is done (no ProcessBeanAttributes for it)
+            private <T> void addAnnotatedBean(final AfterBeanDiscovery event, final BeanManager beanManager,
+                                              final AnnotatedType<T> type) {
+                final InjectionTarget<T> injectionTarget = beanManager.createInjectionTarget(type);
+                injectionTarget.getInjectionPoints().forEach(ip -> builtIns.onInjectionPoint(ip.getType()));
+
+                final BeanConfigurator<T> configurator = event.addBean();
+                configurator.read(type).id(toId(type.getJavaClass())).beanClass(type.getJavaClass());
+                if (type.getJavaClass() == DefaultMessagesControllerComponents.class) { // see restrictTypesFor...
+                    configurator.types(MessagesControllerComponents.class, Object.class);
+                }
+                configurator.createWith(ctx -> {
+                    final T instance = injectionTarget.produce(ctx);
+                    injectionTarget.inject(instance, ctx);
+                    injectionTarget.postConstruct(instance);
+                    return instance;
+                }).destroyWith((instance, ctx) -> {
+                    injectionTarget.preDestroy(instance);
+                    injectionTarget.dispose(instance);
+                    ctx.release();
+                });
             }
 
             private void addCustomBeans(final AfterBeanDiscovery event, final BeanManager beanManager) {
@@ -386,6 +627,7 @@ public class CdiLoader implements ApplicationLoader, Consumer<Collection<Applica
                 addBean(event, () -> langs.get().asJava(), Langs.class);
 
                 // built-in
+                timeline.mark("coreBeans");
                 final BuiltInComponentsFromContext builtInComponentsFromContext = new BuiltInComponentsFromContext(context) {
 
                     private JavaRouterAdapter router;
@@ -406,6 +648,7 @@ public class CdiLoader implements ApplicationLoader, Consumer<Collection<Applica
                                 .map(play.api.mvc.EssentialFilter::asJava).collect(toList());
                     }
                 };
+                timeline.mark("builtInComponents");
 
                 final Supplier<HttpConfiguration> httpConfiguration = new LazyProvider<>(
                         builtInComponentsFromContext::httpConfiguration);
@@ -450,6 +693,7 @@ public class CdiLoader implements ApplicationLoader, Consumer<Collection<Applica
                 final Supplier<ExecutionContextExecutor> executionContextExecutor = new LazyProvider<>(
                         () -> new ExecutionContextProvider(actorSystem.get()).get());
                 addBean(event, executionContextExecutor, ExecutionContextExecutor.class, Executor.class, ExecutionContext.class);
+                asyncExecutor.bind(actorSystem, executionContextExecutor);
 
                 final Supplier<play.http.HttpRequestHandler> httpRequestHandler = new LazyProvider<>(
                         builtInComponentsFromContext::httpRequestHandler);
@@ -488,6 +732,9 @@ public class CdiLoader implements ApplicationLoader, Consumer<Collection<Applica
 
             private <T> void addBean(final AfterBeanDiscovery event, final Supplier<T> instance, final Class<T> mainApi,
                                      final Class<?>... types) {
+                if (!builtIns.isEnabled(mainApi, asList(types))) {
+                    return;
+                }
                 event.addBean().id(toId(mainApi)).beanClass(mainApi)
                         .types(Stream.concat(Stream.of(mainApi), Stream.concat(Stream.of(types), Stream.of(Object.class)))
                                 .toArray(Class[]::new))
@@ -502,6 +749,23 @@ public class CdiLoader implements ApplicationLoader, Consumer<Collection<Applica
         });
     }
 
+    // the servlet module is optional, the index is only built if it is there to use it for @HandlesTypes
+    private Class<?> findClassFinderApi(final Context context) {
+        if (!safeConfigAccess(context.initialConfig(), "playx.cdi.servlet.classFinder", Config::getBoolean).orElse(true)) {
+            return null;
+        }
+        return findServletApi(context, "ClassFinder");
+    }
+
+    private Class<?> findServletApi(final Context context, final String name) {
+        try {
+            return context.environment().classLoader()
+                    .loadClass("com.github.rmannibucau.playx.servlet.servlet.api." + name);
+        } catch (final ClassNotFoundException | NoClassDefFoundError e) {
+            return null;
+        }
+    }
+
     @Override
     public void accept(final Collection<Application> applications) {
         this.otherApplications.addAll(applications);
@@ -517,23 +781,62 @@ public class CdiLoader implements ApplicationLoader, Consumer<Collection<Applica
 
     private static class CdiInjector implements Injector {
 
+        private static final Annotation[] NO_QUALIFIER = new Annotation[0];
+
         private final CdiScalaInjector scala;
 
+        private final Map<Class<?>, Resolution> byClass = new ConcurrentHashMap<>();
+
+        private final Map<BindingKey<?>, Resolution> byKey = new ConcurrentHashMap<>();
+
+        private final LookupMetrics metrics;
+
         private SeContainer container;
 
-        private CdiInjector() {
+        private CdiInjector(final LookupMetrics metrics) {
             this.scala = new CdiScalaInjector(this);
+            this.metrics = metrics;
         }
 
         @Override
         public <T> T instanceOf(final Class<T> clazz) {
-            return container.select(clazz).get();
+            final long start = metrics == null ? 0 : System.nanoTime();
+            boolean failed = true;
+            try {
+                Resolution resolution = byClass.get(clazz);
+                if (resolution == null) {
+                    resolution = byClass.computeIfAbsent(clazz, k -> resolve(clazz, NO_QUALIFIER));
+                }
+                final T instance = clazz.cast(resolution.get());
+                failed = false;
+                return instance;
+            } finally {
+                if (metrics != null) {
+                    metrics.record(clazz, System.nanoTime() - start, failed);
+                }
+            }
         }
 
         @Override
         public <T> T instanceOf(final BindingKey<T> key) {
-            return (key.qualifier().isEmpty() ? container.select(key.clazz())
-                    : container.select(key.clazz(), asQualifier(key.qualifier().get()))).get();
+            if (key.qualifier().isEmpty()) {
+                return instanceOf(key.clazz());
+            }
+            final long start = metrics == null ? 0 : System.nanoTime();
+            boolean failed = true;
+            try {
+                Resolution resolution = byKey.get(key);
+                if (resolution == null) {
+                    resolution = byKey.computeIfAbsent(key, k -> resolve(key.clazz(), new Annotation[] { asQualifier(key.qualifier().get()) }));
+                }
+                final T instance = key.clazz().cast(resolution.get());
+                failed = false;
+                return instance;
+            } finally {
+                if (metrics != null) {
+                    metrics.record(key, System.nanoTime() - start, 0, 0, failed);
+                }
+            }
         }
 
         @Override
@@ -541,6 +844,26 @@ public class CdiLoader implements ApplicationLoader, Consumer<Collection<Applica
             return scala;
         }
 
+        private void clear() {
+            byClass.clear();
+            byKey.clear();
+        }
+
+        // the bean is resolved once, the instance too when it is a proxy or a singleton
+        private Resolution resolve(final Class<?> type, final Annotation[] qualifiers) {
+            final BeanManager beanManager = container.getBeanManager();
+            final Bean<?> bean = beanManager.resolve(beanManager.getBeans(type, qualifiers));
+            if (bean == null) { // let the container fail with the right exception or handle this unlikely case
+                return () -> container.select(type, qualifiers).get();
+            }
+            final Supplier<Object> factory = () -> beanManager.getReference(bean, type, beanManager.createCreationalContext(bean));
+            if (beanManager.isNormalScope(bean.getScope()) || bean.getScope() == Singleton.class) {
+                final Supplier<Object> instance = new LazyProvider<>(factory);
+                return instance::get;
+            }
+            return factory::get;
+        }
+
         private Annotation asQualifier(final QualifierAnnotation qualifierAnnotation) {
             return QualifierInstance.class.isInstance(qualifierAnnotation)
                     ? Annotation.class.cast(QualifierInstance.class.cast(qualifierAnnotation).instance())
@@ -548,6 +871,10 @@ public class CdiLoader implements ApplicationLoader, Consumer<Collection<Applica
         }
     }
 
+    private interface Resolution {
+        Object get();
+    }
+
     private static class CdiScalaInjector implements play.api.inject.Injector {
 
         private final CdiInjector java;
@@ -581,43 +908,61 @@ public class CdiLoader implements ApplicationLoader, Consumer<Collection<Applica
 
         private final CdiApplication java;
 
+        // play calls these accessors per request, they are singletons in practise so resolved once
+        private final Supplier<ActorSystem> actorSystem;
+        private final Supplier<Materializer> materializer;
+        private final Supplier<CoordinatedShutdown> coordinatedShutdown;
+        private final Supplier<RequestFactory> requestFactory;
+        private final Supplier<HttpRequestHandler> requestHandler;
+        private final Supplier<HttpErrorHandler> errorHandler;
+        private final Supplier<HttpConfiguration> httpConfiguration;
+        private final Supplier<Configuration> configuration;
+
         private CdiScalaApplication(final CdiApplication cdiApplication) {
             this.java = cdiApplication;
+            this.actorSystem = new LazyProvider<>(() -> java.injector.instanceOf(ActorSystem.class));
+            this.materializer = new LazyProvider<>(() -> java.injector.instanceOf(Materializer.class));
+            this.coordinatedShutdown = new LazyProvider<>(() -> java.injector.instanceOf(CoordinatedShutdown.class));
+            this.requestFactory = new LazyProvider<>(() -> java.injector.instanceOf(RequestFactory.class));
+            this.requestHandler = new LazyProvider<>(() -> java.injector.instanceOf(HttpRequestHandler.class));
+            this.errorHandler = new LazyProvider<>(() -> java.injector.instanceOf(HttpErrorHandler.class));
+            this.httpConfiguration = new LazyProvider<>(() -> java.injector.instanceOf(HttpConfiguration.class));
+            this.configuration = new LazyProvider<>(() -> new Configuration(java.context.initialConfig()));
         }
 
         @Override
         public ActorSystem actorSystem() {
-            return java.injector.instanceOf(ActorSystem.class);
+            return actorSystem.get();
         }
 
         @Override
         public Materializer materializer() {
-            return java.injector.instanceOf(Materializer.class);
+            return materializer.get();
         }
 
         @Override
         public CoordinatedShutdown coordinatedShutdown() {
-            return java.injector.instanceOf(CoordinatedShutdown.class);
+            return coordinatedShutdown.get();
         }
 
         @Override
         public RequestFactory requestFactory() {
-            return java.injector.instanceOf(RequestFactory.class);
+            return requestFactory.get();
         }
 
         @Override
         public HttpRequestHandler requestHandler() {
-            return java.injector.instanceOf(HttpRequestHandler.class);
+            return requestHandler.get();
         }
 
         @Override
         public HttpErrorHandler errorHandler() {
-            return java.injector.instanceOf(HttpErrorHandler.class);
+            return errorHandler.get();
         }
 
         @Override
         public HttpConfiguration httpConfiguration() {
-            return java.injector.instanceOf(HttpConfiguration.class);
+            return httpConfiguration.get();
         }
 
         @Override
@@ -668,7 +1013,7 @@ public class CdiLoader implements ApplicationLoader, Consumer<Collection<Applica
 
         @Override
         public Configuration configuration() {
-            return new Configuration(java.context.initialConfig());
+            return configuration.get();
         }
 
         @Override
@@ -749,70 +1094,4 @@ public class CdiLoader implements ApplicationLoader, Consumer<Collection<Applica
             return val;
         }
     }
-
-    private static File toFile(final URL url) {
-        if ("jar".equals(url.getProtocol())) {
-            try {
-                final String spec = url.getFile();
-                final int separator = spec.indexOf('!');
-                if (separator == -1) {
-                    return null;
-                }
-                return toFile(new URL(spec.substring(0, separator + 1)));
-            } catch (final MalformedURLException e) {
-                return null;
-            }
-        } else if ("file".equals(url.getProtocol())) {
-            String path = decode(url.getFile());
-            if (path.endsWith("!")) {
-                path = path.substring(0, path.length() - 1);
-            }
-            return new File(path);
-        }
-        return null;
-    }
-
-    private static String decode(final String fileName) {
-        if (fileName.indexOf('%') == -1) {
-            return fileName;
-        }
-
-        final StringBuilder result = new StringBuilder(fileName.length());
-        final ByteArrayOutputStream out = new ByteArrayOutputStream();
-
-        for (int i = 0; i < fileName.length(); ) {
-            final char c = fileName.charAt(i);
-
-            if (c == '%') {
-                out.reset();
-                do {
-                    if (i + 2 >= fileName.length()) {
-                        throw new IllegalArgumentException("Incomplete % sequence at: " + i);
-                    }
-
-                    final int d1 = Character.digit(fileName.charAt(i + 1), 16);
-                    final int d2 = Character.digit(fileName.charAt(i + 2), 16);
-
-                    if (d1 == -1 || d2 == -1) {
-                        throw new IllegalArgumentException("Invalid % sequence (" + fileName.substring(i, i + 3) + ") at: " + String.valueOf(i));
-                    }
-
-                    out.write((byte) ((d1 << 4) + d2));
-
-                    i += 3;
-
-                } while (i < fileName.length() && fileName.charAt(i) == '%');
-
-
-                result.append(out.toString());
-
-                continue;
-            } else {
-                result.append(c);
-            }
-
-            i++;
-        }
-        return result.toString();
-    }
 }
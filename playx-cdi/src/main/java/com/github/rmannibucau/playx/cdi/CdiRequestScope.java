@@ -0,0 +1,49 @@
+package com.github.rmannibucau.playx.cdi;
+
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import com.github.rmannibucau.playx.servlet.servlet.api.RequestScope;
+
+import play.mvc.Http;
+
+// binds the servlet invocations to the CDI request context, joins the request started by RequestContextFilter if any
+class CdiRequestScope implements RequestScope {
+
+    private final RequestContext context;
+
+    CdiRequestScope(final RequestContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public Handle begin(final Http.RequestHeader request) {
+        final Optional<RequestContext.Handle> filter = request.attrs().getOptional(RequestContext.HANDLE)
+                .filter(it -> !it.isEnded());
+        return filter.map(it -> new ServletHandle(it, false)).orElseGet(() -> new ServletHandle(context.begin(), true));
+    }
+
+    private static class ServletHandle implements Handle {
+
+        private final RequestContext.Handle delegate;
+
+        private final boolean owner; // else the filter ends the request
+
+        private ServletHandle(final RequestContext.Handle delegate, final boolean owner) {
+            this.delegate = delegate;
+            this.owner = owner;
+        }
+
+        @Override
+        public <T> T execute(final Supplier<T> task) {
+            return delegate.execute(task);
+        }
+
+        @Override
+        public void end() {
+            if (owner) {
+                delegate.end();
+            }
+        }
+    }
+}
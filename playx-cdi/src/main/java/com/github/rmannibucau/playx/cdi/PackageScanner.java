@@ -0,0 +1,232 @@
+package com.github.rmannibucau.playx.cdi;
+
+import static java.util.Collections.emptyList;
+import static java.util.Optional.ofNullable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+
+// resolves the configured packages (playx.cdi.container.packages) to a class per package,
+// each jar is read once and indexed in parallel, the indexes only live as long as the scanner (CdiLoader.load)
+class PackageScanner {
+
+    private final ClassLoader loader;
+
+    private final Executor executor;
+
+    private final ForkJoinPool pool; // owned pool, null when the executor is provided
+
+    private final Map<File, CompletableFuture<JarIndex>> jars = new ConcurrentHashMap<>();
+
+    private final Map<String, Collection<File>> roots = new ConcurrentHashMap<>(); // package -> jars/directories
+
+    // the common pool would use a thread per task on a single cpu so the scanner owns its pool until clear()
+    PackageScanner(final ClassLoader loader) {
+        this(loader, new ForkJoinPool(Runtime.getRuntime().availableProcessors()), true);
+    }
+
+    PackageScanner(final ClassLoader loader, final Executor executor) {
+        this(loader, executor, false);
+    }
+
+    private PackageScanner(final ClassLoader loader, final Executor executor, final boolean ownedPool) {
+        this.loader = loader;
+        this.executor = executor;
+        this.pool = ownedPool ? ForkJoinPool.class.cast(executor) : null;
+    }
+
+    // starts indexing the jars of all the packages before the first lookup
+    void prefetch(final Collection<String> packages) {
+        packages.forEach(pck -> findRoots(pck).stream().filter(File::isFile).forEach(this::index));
+    }
+
+    // the package if a class of it was already loaded, avoids to load one only to get it
+    Package findDefinedPackage(final String name) {
+        ClassLoader current = loader;
+        while (current != null) {
+            final Package pck = current.getDefinedPackage(name);
+            if (pck != null) {
+                return pck;
+            }
+            current = current.getParent();
+        }
+        return null;
+    }
+
+    // a class of the package or, if recursive and the package has no class, a class of each top level subpackage
+    Collection<String> findClasses(final String name, final boolean recursive) {
+        final Collection<String> names = new ArrayList<>();
+        for (final File next : findRoots(name)) {
+            if (next.isFile()) {
+                names.addAll(index(next).join().findClasses(name, recursive));
+            } else { // cheap mode, enforces to have a class in the package directly
+                ofNullable(next.listFiles())
+                        .map(Stream::of)
+                        .orElseGet(Stream::empty)
+                        .filter(c -> c.getName().endsWith(".class"))
+                        .findFirst()
+                        .ifPresent(c -> names.add(name + '.' + c.getName().substring(0, c.getName().length() - ".class".length())));
+            }
+        }
+        return names;
+    }
+
+    // jars indexed so far
+    int getScannedJars() {
+        return jars.size();
+    }
+
+    void clear() {
+        jars.clear();
+        roots.clear();
+        if (pool != null) {
+            pool.shutdown();
+        }
+    }
+
+    // jars or package directories containing the package
+    private Collection<File> findRoots(final String name) {
+        return roots.computeIfAbsent(name, pck -> {
+            final Collection<File> files = new ArrayList<>();
+            try {
+                final Enumeration<URL> urls = loader.getResources(pck.replace('.', '/'));
+                while (urls.hasMoreElements()) {
+                    final File file = toFile(urls.nextElement());
+                    if (file != null && file.exists()) {
+                        files.add(file);
+                    }
+                }
+            } catch (final IOException e) {
+                return emptyList();
+            }
+            return files;
+        });
+    }
+
+    private CompletableFuture<JarIndex> index(final File jar) {
+        return jars.computeIfAbsent(jar, file -> CompletableFuture.supplyAsync(() -> new JarIndex(file), executor));
+    }
+
+    // package -> first class (sorted) directly in this package, from a single pass over the entries
+    private static class JarIndex {
+
+        private final NavigableMap<String, String> firstClassByPackage = new TreeMap<>();
+
+        private JarIndex(final File file) {
+            try (final JarFile jar = new JarFile(file)) {
+                final Enumeration<JarEntry> entries = jar.entries();
+                while (entries.hasMoreElements()) {
+                    final String entry = entries.nextElement().getName();
+                    final int lastSlash = entry.lastIndexOf('/');
+                    if (lastSlash < 0 || !entry.endsWith(".class") || entry.startsWith("META-INF/")
+                            || entry.endsWith("package-info.class") || entry.endsWith("module-info.class")) {
+                        continue;
+                    }
+                    final String clazz = entry.substring(0, entry.length() - ".class".length()).replace('/', '.');
+                    firstClassByPackage.merge(clazz.substring(0, lastSlash), clazz, (a, b) -> a.compareTo(b) <= 0 ? a : b);
+                }
+            } catch (final IOException e) {
+                // no-op: not a readable jar, nothing indexed
+            }
+        }
+
+        private Collection<String> findClasses(final String pck, final boolean recursive) {
+            final String direct = firstClassByPackage.get(pck);
+            if (direct != null) {
+                final Collection<String> single = new ArrayList<>(1);
+                single.add(direct);
+                return single;
+            }
+            if (!recursive) {
+                return emptyList();
+            }
+            // here we don't have any class in the root package so need one class per top level subpackage
+            final NavigableMap<String, String> subPackages = firstClassByPackage.subMap(pck + '.', true, pck + '/', false);
+            final Collection<String> names = new ArrayList<>();
+            new PackageCleaner().removeOverlaps(subPackages.keySet()).forEach(it -> names.add(subPackages.get(it)));
+            return names;
+        }
+    }
+
+    private static File toFile(final URL url) {
+        if ("jar".equals(url.getProtocol())) {
+            try {
+                final String spec = url.getFile();
+                final int separator = spec.indexOf('!');
+                if (separator == -1) {
+                    return null;
+                }
+                return toFile(new URL(spec.substring(0, separator + 1)));
+            } catch (final MalformedURLException e) {
+                return null;
+            }
+        } else if ("file".equals(url.getProtocol())) {
+            String path = decode(url.getFile());
+            if (path.endsWith("!")) {
+                path = path.substring(0, path.length() - 1);
+            }
+            return new File(path);
+        }
+        return null;
+    }
+
+    private static String decode(final String fileName) {
+        if (fileName.indexOf('%') == -1) {
+            return fileName;
+        }
+
+        final StringBuilder result = new StringBuilder(fileName.length());
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        for (int i = 0; i < fileName.length(); ) {
+            final char c = fileName.charAt(i);
+
+            if (c == '%') {
+                out.reset();
+                do {
+                    if (i + 2 >= fileName.length()) {
+                        throw new IllegalArgumentException("Incomplete % sequence at: " + i);
+                    }
+
+                    final int d1 = Character.digit(fileName.charAt(i + 1), 16);
+                    final int d2 = Character.digit(fileName.charAt(i + 2), 16);
+
+                    if (d1 == -1 || d2 == -1) {
+                        throw new IllegalArgumentException("Invalid % sequence (" + fileName.substring(i, i + 3) + ") at: " + String.valueOf(i));
+                    }
+
+                    out.write((byte) ((d1 << 4) + d2));
+
+                    i += 3;
+
+                } while (i < fileName.length() && fileName.charAt(i) == '%');
+
+
+                result.append(out.toString());
+
+                continue;
+            } else {
+                result.append(c);
+            }
+
+            i++;
+        }
+        return result.toString();
+    }
+}
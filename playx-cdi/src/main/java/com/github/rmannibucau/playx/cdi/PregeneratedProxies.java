@@ -0,0 +1,99 @@
+package com.github.rmannibucau.playx.cdi;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.webbeans.config.WebBeansContext;
+import org.apache.webbeans.proxy.Unsafe;
+import org.apache.webbeans.spi.DefiningClassService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// OpenWebBeans proxy (normal scope, interceptor/decorator, subclass) definition: with static proxy names a proxy
+// packaged with the application (see ProxyGenerator) is loaded from the classpath when it is the one OWB just generated,
+// else (missing or outdated) it is defined as OWB does, at build time (output property) the defined proxies are also
+// written as .class files
+public class PregeneratedProxies implements DefiningClassService {
+
+    static final String OUTPUT = "playx.cdi.container.proxies.output";
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(PregeneratedProxies.class);
+
+    private final Unsafe unsafe = new Unsafe();
+
+    private final File output;
+
+    private final AtomicInteger loaded = new AtomicInteger();
+
+    private final AtomicInteger generated = new AtomicInteger();
+
+    public PregeneratedProxies(final WebBeansContext context) {
+        final String dir = context.getOpenWebBeansConfiguration().getProperty(OUTPUT);
+        this.output = dir == null || dir.trim().isEmpty() ? null : new File(dir.trim());
+    }
+
+    @Override
+    public ClassLoader getProxyClassLoader(final Class<?> forClass) {
+        final ClassLoader loader = forClass.getClassLoader();
+        return loader == null ? Thread.currentThread().getContextClassLoader() : loader;
+    }
+
+    @Override
+    public <T> Class<T> defineAndLoad(final String name, final byte[] bytecode, final Class<T> proxiedClass) {
+        final ClassLoader loader = getProxyClassLoader(proxiedClass);
+        if (output == null) {
+            final byte[] packaged = read(loader, name);
+            if (packaged == null) {
+                LOGGER.debug("No pre-generated proxy {}, generating it", name);
+            } else if (!Arrays.equals(packaged, bytecode)) { // the proxied class changed since the build
+                LOGGER.debug("Outdated pre-generated proxy {}, generating it", name);
+            } else {
+                try {
+                    final Class<T> proxy = (Class<T>) Class.forName(name, false, loader);
+                    loaded.incrementAndGet();
+                    return proxy;
+                } catch (final ClassNotFoundException | NoClassDefFoundError e) {
+                    LOGGER.debug("Can't load the pre-generated proxy {}, generating it", name);
+                }
+            }
+        }
+        final Class<T> proxy = unsafe.defineAndLoadClass(loader, name, bytecode, proxiedClass);
+        generated.incrementAndGet();
+        if (output != null) {
+            dump(name, bytecode);
+        }
+        return proxy;
+    }
+
+    // proxies loaded from the classpath
+    public int getLoaded() {
+        return loaded.get();
+    }
+
+    // proxies generated at runtime (or dumped)
+    public int getGenerated() {
+        return generated.get();
+    }
+
+    private static byte[] read(final ClassLoader loader, final String name) {
+        try (final InputStream stream = loader.getResourceAsStream(name.replace('.', '/') + ".class")) {
+            return stream == null ? null : stream.readAllBytes();
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+
+    private void dump(final String name, final byte[] bytecode) {
+        final File file = new File(output, name.replace('.', '/') + ".class");
+        try {
+            Files.createDirectories(file.getParentFile().toPath());
+            Files.write(file.toPath(), bytecode);
+        } catch (final IOException e) {
+            throw new IllegalStateException("Can't write " + file, e);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.github.rmannibucau.playx.cdi;
+
+import static java.util.Collections.singletonMap;
+
+import java.io.File;
+
+import play.Application;
+import play.ApplicationLoader;
+import play.Environment;
+import scala.concurrent.Await;
+import scala.concurrent.duration.Duration;
+
+// build step: starts CdiLoader with the application configuration, writes all the OpenWebBeans proxies
+// in the output directory (args[0], default target/classes) and stops,
+// then playx.cdi.container.proxies.pregenerated = true loads them instead of generating them
+public final class ProxyGenerator {
+
+    private ProxyGenerator() {
+        // no-op
+    }
+
+    public static void main(final String[] args) throws Exception {
+        generate(new File(args.length > 0 ? args[0] : "target/classes"));
+    }
+
+    static void generate(final File output) throws Exception {
+        final ApplicationLoader.Context context = ApplicationLoader.create(Environment.simple(),
+                singletonMap(PregeneratedProxies.OUTPUT, output.getAbsolutePath()));
+        final Application application = new CdiLoader().load(context);
+        Await.result(application.asScala().stop(), Duration.Inf());
+    }
+}
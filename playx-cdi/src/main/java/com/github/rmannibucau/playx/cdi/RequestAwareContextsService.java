@@ -0,0 +1,94 @@
+package com.github.rmannibucau.playx.cdi;
+
+import java.lang.annotation.Annotation;
+
+import javax.enterprise.context.ContextException;
+import javax.enterprise.context.RequestScoped;
+import javax.enterprise.context.spi.Context;
+
+import org.apache.webbeans.config.WebBeansContext;
+import org.apache.webbeans.spi.ContextsService;
+
+// OpenWebBeans contexts (the configured ContextsService is the delegate) hiding the OWB request context while
+// a RequestContext request is bound to the thread, else OWB one wins, for instance in the fresh request context
+// OWB starts for each asynchronous observer
+public class RequestAwareContextsService implements ContextsService {
+
+    static final String DELEGATE = "playx.cdi.contexts.delegate";
+
+    private final ContextsService delegate;
+
+    public RequestAwareContextsService(final WebBeansContext context) {
+        final String delegateClass = context.getOpenWebBeansConfiguration().getProperty(DELEGATE);
+        if (delegateClass == null) {
+            throw new IllegalArgumentException("No " + DELEGATE + " configured");
+        }
+        try {
+            final Class<? extends ContextsService> type = Thread.currentThread().getContextClassLoader()
+                    .loadClass(delegateClass.trim()).asSubclass(ContextsService.class);
+            ContextsService instance;
+            try {
+                instance = type.getConstructor(WebBeansContext.class).newInstance(context);
+            } catch (final NoSuchMethodException e) {
+                instance = type.getConstructor().newInstance();
+            }
+            this.delegate = instance;
+        } catch (final ReflectiveOperationException e) {
+            throw new IllegalArgumentException("Can't create " + delegateClass, e);
+        }
+    }
+
+    @Override
+    public void init(final Object initializeObject) {
+        delegate.init(initializeObject);
+    }
+
+    @Override
+    public void destroy(final Object destroyObject) {
+        delegate.destroy(destroyObject);
+    }
+
+    @Override
+    public Context getCurrentContext(final Class<? extends Annotation> scopeType) {
+        if (isHidden(scopeType)) {
+            return null;
+        }
+        return delegate.getCurrentContext(scopeType);
+    }
+
+    @Override
+    public Context getCurrentContext(final Class<? extends Annotation> scopeType, final boolean createIfNotExists) {
+        if (isHidden(scopeType)) {
+            return null;
+        }
+        return delegate.getCurrentContext(scopeType, createIfNotExists);
+    }
+
+    @Override
+    public void startContext(final Class<? extends Annotation> scopeType, final Object startParameter) throws ContextException {
+        if (!isHidden(scopeType)) {
+            delegate.startContext(scopeType, startParameter);
+        }
+    }
+
+    @Override
+    public void endContext(final Class<? extends Annotation> scopeType, final Object endParameters) {
+        if (!isHidden(scopeType)) {
+            delegate.endContext(scopeType, endParameters);
+        }
+    }
+
+    @Override
+    public void removeThreadLocals() {
+        delegate.removeThreadLocals();
+    }
+
+    @Override
+    public void setSupportConversations(final boolean supportConversations) {
+        delegate.setSupportConversations(supportConversations);
+    }
+
+    private boolean isHidden(final Class<? extends Annotation> scopeType) {
+        return scopeType == RequestScoped.class && RequestContext.isBound();
+    }
+}
@@ -0,0 +1,206 @@
+package com.github.rmannibucau.playx.cdi;
+
+import java.lang.annotation.Annotation;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import javax.enterprise.context.ContextNotActiveException;
+import javax.enterprise.context.RequestScoped;
+import javax.enterprise.context.spi.AlterableContext;
+import javax.enterprise.context.spi.Contextual;
+import javax.enterprise.context.spi.CreationalContext;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import play.libs.typedmap.TypedKey;
+
+// @RequestScoped context bound to play/servlet requests, a request is a Handle captured by the code
+// hopping threads (servlet async context, play filter attribute) and bound to the thread only while it executes,
+// there is no inheritable state so it works the same with pooled and virtual threads
+public class RequestContext implements AlterableContext {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(RequestContext.class);
+
+    // set by RequestContextFilter on the play request
+    public static final TypedKey<Handle> HANDLE = TypedKey.create("playx.cdi.request");
+
+    // static so the container integration (RequestAwareContextsService) sees a request is bound, handles check their context
+    private static final ThreadLocal<Handle> CURRENT = new ThreadLocal<>();
+
+    @Override
+    public Class<? extends Annotation> getScope() {
+        return RequestScoped.class;
+    }
+
+    @Override
+    public boolean isActive() {
+        final Handle handle = current();
+        return handle != null && !handle.ended;
+    }
+
+    @Override
+    public <T> T get(final Contextual<T> contextual, final CreationalContext<T> creationalContext) {
+        return getHandle().get(contextual, creationalContext);
+    }
+
+    @Override
+    public <T> T get(final Contextual<T> contextual) {
+        return getHandle().get(contextual, null);
+    }
+
+    @Override
+    public void destroy(final Contextual<?> contextual) {
+        getHandle().destroy(contextual);
+    }
+
+    // a new request, not bound to any thread until executed
+    public Handle begin() {
+        return new Handle();
+    }
+
+    // the request bound to the current thread, null if none, captured to continue the request on another thread
+    public Handle current() {
+        final Handle handle = CURRENT.get();
+        return handle != null && handle.getContext() == this ? handle : null;
+    }
+
+    // a request of any RequestContext is bound to the current thread
+    static boolean isBound() {
+        return CURRENT.get() != null;
+    }
+
+    private Handle getHandle() {
+        final Handle handle = current();
+        if (handle == null || handle.ended) {
+            throw new ContextNotActiveException("No active request on " + Thread.currentThread().getName());
+        }
+        return handle;
+    }
+
+    public class Handle {
+
+        // a request runs on one thread at a time but can switch threads, creation can be reentrant
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final Map<Contextual<?>, Instance<?>> instances = new HashMap<>();
+
+        private volatile boolean ended;
+
+        private Handle() {
+            // no-op
+        }
+
+        public <T> T execute(final Supplier<T> task) {
+            final Handle previous = CURRENT.get();
+            if (previous == this) {
+                return task.get();
+            }
+            CURRENT.set(this);
+            try {
+                return task.get();
+            } finally {
+                if (previous == null) {
+                    CURRENT.remove();
+                } else {
+                    CURRENT.set(previous);
+                }
+            }
+        }
+
+        public Runnable wrap(final Runnable task) {
+            return () -> execute(() -> {
+                task.run();
+                return null;
+            });
+        }
+
+        public Executor wrap(final Executor executor) {
+            return task -> executor.execute(wrap(task));
+        }
+
+        private RequestContext getContext() {
+            return RequestContext.this;
+        }
+
+        public boolean isEnded() {
+            return ended;
+        }
+
+        // destroys the request beans, idempotent
+        public void end() {
+            final Collection<Instance<?>> destroyed;
+            lock.lock();
+            try {
+                if (ended) {
+                    return;
+                }
+                ended = true;
+                destroyed = new ArrayList<>(instances.values());
+                instances.clear();
+            } finally {
+                lock.unlock();
+            }
+            destroyed.forEach(Instance::destroy);
+        }
+
+        private <T> T get(final Contextual<T> contextual, final CreationalContext<T> creationalContext) {
+            lock.lock();
+            try {
+                final Instance<?> existing = instances.get(contextual);
+                if (existing != null) {
+                    return (T) existing.instance;
+                }
+                if (creationalContext == null) {
+                    return null;
+                }
+                final T instance = contextual.create(creationalContext);
+                instances.put(contextual, new Instance<>(contextual, instance, creationalContext));
+                return instance;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void destroy(final Contextual<?> contextual) {
+            final Instance<?> instance;
+            lock.lock();
+            try {
+                instance = instances.remove(contextual);
+            } finally {
+                lock.unlock();
+            }
+            if (instance != null) {
+                instance.destroy();
+            }
+        }
+    }
+
+    private static class Instance<T> {
+
+        private final Contextual<T> contextual;
+
+        private final T instance;
+
+        private final CreationalContext<T> creationalContext;
+
+        private Instance(final Contextual<T> contextual, final T instance, final CreationalContext<T> creationalContext) {
+            this.contextual = contextual;
+            this.instance = instance;
+            this.creationalContext = creationalContext;
+        }
+
+        private void destroy() {
+            try {
+                contextual.destroy(instance, creationalContext);
+            } catch (final RuntimeException re) {
+                LOGGER.warn("Can't destroy request bean " + contextual, re);
+            }
+        }
+    }
+}
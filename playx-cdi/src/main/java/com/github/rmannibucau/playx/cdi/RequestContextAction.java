@@ -0,0 +1,40 @@
+package com.github.rmannibucau.playx.cdi;
+
+import java.util.concurrent.CompletionStage;
+
+import javax.inject.Inject;
+
+import play.mvc.Action;
+import play.mvc.Http;
+import play.mvc.Result;
+
+// java actions run on play executors, this action (@With(RequestContextAction.class)) binds the request
+// of RequestContextFilter to the action thread, without the filter the action owns its own request
+public class RequestContextAction extends Action.Simple {
+
+    private final RequestContext context;
+
+    @Inject
+    public RequestContextAction(final RequestContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public CompletionStage<Result> call(final Http.Request request) {
+        final RequestContext.Handle existing = request.attrs().getOptional(RequestContext.HANDLE)
+                .filter(it -> !it.isEnded()).orElse(null);
+        if (existing != null) {
+            return existing.execute(() -> delegate.call(request));
+        }
+
+        final RequestContext.Handle handle = context.begin();
+        final CompletionStage<Result> result;
+        try {
+            result = handle.execute(() -> delegate.call(request.addAttr(RequestContext.HANDLE, handle)));
+        } catch (final RuntimeException re) {
+            handle.end();
+            throw re;
+        }
+        return result.whenComplete((r, e) -> handle.end());
+    }
+}
@@ -0,0 +1,46 @@
+package com.github.rmannibucau.playx.cdi;
+
+import java.util.concurrent.CompletableFuture;
+
+import javax.inject.Inject;
+
+import org.apache.pekko.util.ByteString;
+
+import play.libs.streams.Accumulator;
+import play.mvc.EssentialAction;
+import play.mvc.EssentialFilter;
+import play.mvc.Result;
+
+// starts a CDI request per play request, ended when the result is there (not after a streamed body),
+// the handle is a request attribute (RequestContext.HANDLE) to continue the request on other threads,
+// usage: play.filters.enabled += com.github.rmannibucau.playx.cdi.RequestContextFilter
+public class RequestContextFilter extends EssentialFilter {
+
+    private final RequestContext context;
+
+    @Inject
+    public RequestContextFilter(final RequestContext context) {
+        this.context = context;
+    }
+
+    @Override
+    public EssentialAction apply(final EssentialAction next) {
+        return EssentialAction.of(request -> {
+            final RequestContext.Handle handle = context.begin();
+            final Accumulator<ByteString, Result> accumulator;
+            try {
+                accumulator = handle.execute(() -> next.apply(request.addAttr(RequestContext.HANDLE, handle)));
+            } catch (final RuntimeException re) {
+                handle.end();
+                throw re;
+            }
+            return accumulator.map(result -> {
+                handle.end();
+                return result;
+            }, Runnable::run).recoverWith(error -> {
+                handle.end();
+                return CompletableFuture.failedFuture(error);
+            }, Runnable::run);
+        });
+    }
+}
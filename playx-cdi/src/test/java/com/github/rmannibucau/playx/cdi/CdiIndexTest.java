@@ -0,0 +1,59 @@
+package com.github.rmannibucau.playx.cdi;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class CdiIndexTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void missing() throws IOException {
+        try (final URLClassLoader loader = new URLClassLoader(new URL[0], null)) {
+            assertNull(CdiIndex.read(loader));
+        }
+    }
+
+    @Test
+    public void packages() throws IOException {
+        final CdiIndex index = read("# comment\nsome.Bean\nsome.Bean$Nested\nother.a.A\nother.a.b.B\nother.c.C\n",
+                "third.Third\n");
+        assertEquals(2, index.getArchives());
+        assertEquals(6, index.getClasses().size());
+        assertEquals(singletonList("some.Bean"), index.findPackageClasses("some", false));
+        assertEquals(singletonList("some.Bean"), index.findPackageClasses("some", true));
+        assertTrue(index.findPackageClasses("other", false).isEmpty());
+        assertEquals(asList("other.a.A", "other.c.C"), index.findPackageClasses("other", true));
+        assertEquals(singletonList("third.Third"), index.findPackageClasses("third", false));
+        assertTrue(index.findPackageClasses("missing", true).isEmpty());
+    }
+
+    private CdiIndex read(final String... indexes) throws IOException {
+        final URL[] urls = new URL[indexes.length];
+        for (int i = 0; i < indexes.length; i++) {
+            final File root = temporaryFolder.newFolder();
+            final File index = new File(root, CdiIndex.LOCATION);
+            index.getParentFile().mkdirs();
+            Files.write(index.toPath(), indexes[i].getBytes(StandardCharsets.UTF_8));
+            urls[i] = root.toURI().toURL();
+        }
+        try (final URLClassLoader loader = new URLClassLoader(urls, null)) {
+            return CdiIndex.read(loader);
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.rmannibucau.playx.cdi;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.fail;
+import static play.test.Helpers.running;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TestRule;
+import org.junit.runners.model.Statement;
+
+import com.github.rmannibucau.playx.cdi.bean.MyI18nService;
+
+import controllers.Assets;
+import play.Application;
+import play.ApplicationLoader;
+import play.Environment;
+import play.Mode;
+import play.api.http.HttpConfiguration;
+import play.i18n.Langs;
+import play.inject.Injector;
+import play.libs.crypto.CookieSigner;
+
+public class CdiLoaderPruneTest {
+
+    private static Application app;
+
+    @ClassRule
+    public static final TestRule play = (base, description) -> new Statement() {
+
+        @Override
+        public void evaluate() throws Throwable {
+            final ApplicationLoader.Context context = ApplicationLoader.create(
+                    new Environment(new File("target/play"), Thread.currentThread().getContextClassLoader(), Mode.TEST),
+                    new HashMap<String, Object>() {
+
+                        {
+                            put("play.application.loader", CdiLoader.class.getName());
+                            put("playx.cdi.beans.prune", true);
+                            put("playx.cdi.beans.includes", singletonList(play.api.i18n.Langs.class.getName()));
+                            put("playx.cdi.beans.excludes", singletonList(CookieSigner.class.getName()));
+                        }
+                    });
+            app = ApplicationLoader.apply(context).load(context);
+            final AtomicReference<Throwable> error = new AtomicReference<>();
+            try {
+                running(app, () -> {
+                    try {
+                        base.evaluate();
+                    } catch (final Throwable throwable) {
+                        error.set(throwable);
+                    }
+                });
+            } finally {
+                app = null;
+            }
+            if (error.get() != null) {
+                throw error.get();
+            }
+        }
+    };
+
+    @Test
+    public void injected() {
+        assertNotNull(app.injector().instanceOf(MyI18nService.class).getMessages());
+    }
+
+    @Test
+    public void roots() {
+        assertNotNull(app.injector().instanceOf(HttpConfiguration.class));
+        assertNotNull(app.asScala().requestHandler());
+    }
+
+    @Test
+    public void includes() {
+        assertNotNull(app.injector().instanceOf(play.api.i18n.Langs.class));
+    }
+
+    @Test
+    public void pruned() {
+        assertMissing(app.injector(), Langs.class);
+        assertMissing(app.injector(), Assets.class);
+        assertMissing(app.injector(), CookieSigner.class);
+    }
+
+    private static void assertMissing(final Injector injector, final Class<?> type) {
+        try {
+            injector.instanceOf(type);
+            fail(type + " should not be registered");
+        } catch (final RuntimeException re) {
+            // ok
+        }
+    }
+}
@@ -1,32 +1,55 @@
 package com.github.rmannibucau.playx.cdi;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static java.util.Collections.singletonMap;
+import static java.util.stream.Collectors.toList;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
 import static play.test.Helpers.running;
 
 import java.io.File;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Field;
 import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicReference;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.rules.TestRule;
 import org.junit.runners.model.Statement;
 
+import com.github.rmannibucau.playx.cdi.bean.MyAsyncService;
+import com.github.rmannibucau.playx.cdi.bean.MyI18nService;
+import com.github.rmannibucau.playx.cdi.bean.MyRequestBean;
 import com.github.rmannibucau.playx.cdi.bean.MyService;
+import com.github.rmannibucau.playx.core.StartupTimeline;
+import com.github.rmannibucau.playx.servlet.servlet.api.ClassFinder;
+import com.github.rmannibucau.playx.servlet.servlet.api.RequestScope;
 
 import play.Application;
 import play.ApplicationLoader;
 import play.Environment;
 import play.Mode;
 import play.inject.Injector;
+import play.mvc.Http;
 
+import javax.enterprise.context.ApplicationScoped;
 import javax.enterprise.inject.Vetoed;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.inject.Inject;
 
 public class CdiLoaderTest {
 
@@ -44,6 +67,7 @@ public class CdiLoaderTest {
                         {
                             put("play.application.loader", CdiLoader.class.getName());
                             put("playx.cdi.beans.customs", singletonList(singletonMap("className", MyConfiguredBean.class.getName())));
+                            put("playx.cdi.metrics.enabled", true);
                         }
                     });
             final ApplicationLoader loader = ApplicationLoader.apply(context);
@@ -76,6 +100,109 @@ public class CdiLoaderTest {
         assertEquals("ok", injector.instanceOf(MyService.class).test());
     }
 
+    @Test
+    public void cachedResolution() {
+        final Injector injector = app.injector();
+        assertSame(injector.instanceOf(MyService.class), injector.instanceOf(MyService.class));
+        assertSame(app.asScala().configuration(), app.asScala().configuration());
+        assertSame(app.asScala().actorSystem(), app.asScala().actorSystem());
+    }
+
+    @Test
+    public void lookupMetrics() throws Exception {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        final ObjectName name = new ObjectName("com.github.rmannibucau.playx:type=LookupMetrics,injector=CDI");
+        server.invoke(name, "reset", new Object[0], new String[0]);
+
+        final Injector injector = app.injector();
+        for (int i = 0; i < 3; i++) {
+            injector.instanceOf(MyService.class);
+        }
+
+        assertEquals(3L, server.getAttribute(name, "Lookups"));
+        assertEquals(0L, server.getAttribute(name, "FallThroughs")); // a single container, nothing to fall through
+        assertEquals(0L, server.getAttribute(name, "SwallowedExceptions"));
+        final String[] hottest = String[].class.cast(server.getAttribute(name, "HottestKeys"));
+        assertTrue(asList(hottest).toString(), asList(hottest).stream()
+                .anyMatch(it -> it.startsWith(MyService.class.getName() + ": lookups=3, fallThroughs=0, swallowed=0, failures=0, ")));
+    }
+
+    @Test
+    public void requestScope() throws Exception {
+        final RequestContext context = app.injector().instanceOf(RequestContext.class);
+        final MyRequestBean bean = app.injector().instanceOf(MyRequestBean.class);
+        final int destroyed = MyRequestBean.DESTROYED.get();
+
+        final RequestContext.Handle request = context.begin();
+        final String id = request.execute(bean::id);
+        assertEquals(id, request.execute(bean::id));
+        assertNotEquals(id, context.begin().execute(bean::id));
+
+        final ExecutorService executor = Executors.newSingleThreadExecutor();
+        try { // captured handle follows the request on another thread
+            assertEquals(id, CompletableFuture.supplyAsync(bean::id, request.wrap(executor)).get());
+        } finally {
+            executor.shutdownNow();
+        }
+
+        request.end();
+        assertEquals(destroyed + 1, MyRequestBean.DESTROYED.get());
+        assertFalse(context.isActive());
+    }
+
+    @Test
+    public void async() throws Exception {
+        final MyAsyncService service = app.injector().instanceOf(MyAsyncService.class);
+        final MyRequestBean bean = app.injector().instanceOf(MyRequestBean.class);
+        final RequestContext.Handle request = app.injector().instanceOf(RequestContext.class).begin();
+        final String id = request.execute(bean::id);
+
+        // play dispatcher and same request for @Async methods and async events
+        final String method = request.execute(() -> service.threadAndRequest().toCompletableFuture()).get();
+        assertTrue(method, method.contains("pekko.actor.default-dispatcher") && method.endsWith('/' + id));
+        final String event = request.execute(() -> app.injector().instanceOf(BeanManager.class).getEvent()
+                .fireAsync(new StringBuilder()).toCompletableFuture()).get().toString();
+        assertTrue(event, event.contains("pekko.actor.default-dispatcher") && event.endsWith('/' + id));
+        request.end();
+    }
+
+    @Test
+    public void servletRequestScope() {
+        final RequestScope scope = app.injector().instanceOf(RequestScope.class);
+        final MyRequestBean bean = app.injector().instanceOf(MyRequestBean.class);
+
+        final RequestScope.Handle servlet = scope.begin(new Http.RequestBuilder().build());
+        final String id = servlet.execute(bean::id);
+        servlet.end();
+        assertNotEquals(id, scope.begin(new Http.RequestBuilder().build()).execute(bean::id));
+
+        // joins the play request started by RequestContextFilter
+        final RequestContext.Handle play = app.injector().instanceOf(RequestContext.class).begin();
+        final RequestScope.Handle joined = scope.begin(new Http.RequestBuilder().build().addAttr(RequestContext.HANDLE, play));
+        assertEquals(play.execute(bean::id), joined.execute(bean::id));
+        joined.end();
+        assertFalse(play.isEnded());
+        play.end();
+    }
+
+    @Test
+    public void startupTimeline() {
+        final StartupTimeline timeline = app.injector().instanceOf(StartupTimeline.class);
+        assertEquals(asList("configuration", "discovery", "coreBeans", "builtInComponents", "playBeans", "customBeans",
+                "validation", "initialize"), timeline.getPhases().stream().map(StartupTimeline.Phase::getName).collect(toList()));
+        assertTrue(timeline.getCounts().get("beans") > 0);
+        assertTrue(timeline.getCounts().get("discoveredTypes") > 0);
+        assertTrue(timeline.toString(), timeline.toString().startsWith("CdiLoader started in "));
+    }
+
+    @Test
+    public void classFinder() {
+        final ClassFinder finder = app.injector().instanceOf(ClassFinder.class);
+        assertTrue(finder.findClasses(ApplicationScoped.class).contains(MyService.class));
+        assertFalse(finder.findClasses(Vetoed.class).contains(MyService.class));
+        assertTrue(finder.findClasses(Inject.class).contains(MyI18nService.class)); // field annotation
+    }
+
     @Test
     public void checkCustombeans() {
         final Injector injector = app.injector();
@@ -0,0 +1,127 @@
+package com.github.rmannibucau.playx.cdi;
+
+import static java.util.Collections.list;
+import static java.util.stream.Collectors.toList;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.stream.IntStream;
+
+// startup benchmark of the packages resolution, not a test: run the main from the IDE or with
+// mvn test-compile exec:java -Dexec.classpathScope=test -Dexec.mainClass=com.github.rmannibucau.playx.cdi.PackageScannerBenchmark
+public final class PackageScannerBenchmark {
+
+    private static final int JARS = 200;
+    private static final int PACKAGES = 50;
+    private static final int FILLER_ENTRIES = 1000;
+    private static final int ITERATIONS = 10;
+
+    private PackageScannerBenchmark() {
+        // no-op
+    }
+
+    public static void main(final String[] args) throws IOException {
+        final File root = Files.createTempDirectory("playx-cdi-benchmark").toFile();
+        final URL[] urls = new URL[JARS];
+        for (int i = 0; i < JARS; i++) {
+            urls[i] = createJar(new File(root, "lib-" + i + ".jar"), i).toURI().toURL();
+        }
+        final List<String> packages = IntStream.range(0, PACKAGES).mapToObj(i -> "org.app.p" + i).collect(toList());
+        try (final URLClassLoader loader = new URLClassLoader(urls, null)) {
+            for (int i = 0; i < 3; i++) { // warmup
+                legacy(loader, packages);
+                scanner(loader, packages);
+            }
+            long legacy = 0;
+            long scanner = 0;
+            for (int i = 0; i < ITERATIONS; i++) {
+                long start = System.nanoTime();
+                legacy(loader, packages);
+                legacy += System.nanoTime() - start;
+
+                start = System.nanoTime();
+                scanner(loader, packages);
+                scanner += System.nanoTime() - start;
+            }
+            System.out.println(PACKAGES + " packages over " + JARS + " jars: legacy="
+                    + TimeUnit.NANOSECONDS.toMillis(legacy / ITERATIONS) + "ms, scanner="
+                    + TimeUnit.NANOSECONDS.toMillis(scanner / ITERATIONS) + "ms");
+        } finally {
+            delete(root);
+        }
+    }
+
+    private static Collection<String> scanner(final ClassLoader loader, final List<String> packages) {
+        final PackageScanner scanner = new PackageScanner(loader);
+        scanner.prefetch(packages);
+        final Collection<String> classes = new ArrayList<>();
+        packages.forEach(pck -> classes.addAll(scanner.findClasses(pck, true)));
+        scanner.clear();
+        return classes;
+    }
+
+    // previous implementation: each package reopens and lists every jar containing it
+    private static Collection<String> legacy(final ClassLoader loader, final List<String> packages) throws IOException {
+        final Collection<String> classes = new ArrayList<>();
+        for (final String name : packages) {
+            final String pck = name.replace('.', '/');
+            final Enumeration<URL> resources = loader.getResources(pck);
+            while (resources.hasMoreElements()) {
+                final String spec = resources.nextElement().getFile();
+                final File file = new File(new URL(spec.substring(0, spec.indexOf('!'))).getFile());
+                try (final JarFile jar = new JarFile(file)) {
+                    list(jar.entries()).stream()
+                            .map(JarEntry::getName)
+                            .filter(it -> it.startsWith(pck + '/') && it.endsWith(".class"))
+                            .map(it -> it.replace('/', '.').substring(0, it.length() - ".class".length()))
+                            .sorted()
+                            .findFirst()
+                            .ifPresent(classes::add);
+                }
+            }
+        }
+        return classes;
+    }
+
+    // each package is in a tenth of the jars, with unrelated entries around as in real libraries
+    private static File createJar(final File file, final int index) throws IOException {
+        try (final JarOutputStream jar = new JarOutputStream(new FileOutputStream(file))) {
+            jar.putNextEntry(new JarEntry("org/"));
+            jar.putNextEntry(new JarEntry("org/app/"));
+            for (int p = index % 10; p < PACKAGES; p += 10) {
+                jar.putNextEntry(new JarEntry("org/app/p" + p + "/"));
+                for (int c = 0; c < 20; c++) {
+                    jar.putNextEntry(new JarEntry("org/app/p" + p + "/Class" + index + "_" + c + ".class"));
+                }
+            }
+            jar.putNextEntry(new JarEntry("com/"));
+            jar.putNextEntry(new JarEntry("com/lib" + index + "/"));
+            for (int c = 0; c < FILLER_ENTRIES; c++) {
+                jar.putNextEntry(new JarEntry("com/lib" + index + "/Filler" + c + ".class"));
+            }
+        }
+        return file;
+    }
+
+    private static void delete(final File file) {
+        final File[] children = file.listFiles();
+        if (children != null) {
+            for (final File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -0,0 +1,70 @@
+package com.github.rmannibucau.playx.cdi;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class PackageScannerTest {
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    @Test
+    public void jars() throws IOException {
+        final File first = jar("first.jar", "org/app/B.class", "org/app/A.class", "org/app/sub/C.class", "org/other/D.class");
+        final File second = jar("second.jar", "org/lib/a/E.class", "org/lib/a/b/F.class", "org/lib/c/G.class",
+                "org/lib/package-info.class", "META-INF/versions/11/org/lib/H.class");
+        try (final URLClassLoader loader = new URLClassLoader(new URL[] { first.toURI().toURL(), second.toURI().toURL() }, null)) {
+            final PackageScanner scanner = new PackageScanner(loader, Runnable::run);
+            scanner.prefetch(asList("org.app", "org.lib"));
+            assertEquals(singletonList("org.app.A"), scanner.findClasses("org.app", false));
+            assertEquals(singletonList("org.app.A"), scanner.findClasses("org.app", true));
+            assertEquals(singletonList("org.app.sub.C"), scanner.findClasses("org.app.sub", false));
+            assertTrue(scanner.findClasses("org.lib", false).isEmpty());
+            assertEquals(asList("org.lib.a.E", "org.lib.c.G"), scanner.findClasses("org.lib", true));
+            assertTrue(scanner.findClasses("org.missing", true).isEmpty());
+        }
+    }
+
+    @Test
+    public void definedPackage() {
+        final PackageScanner scanner = new PackageScanner(getClass().getClassLoader());
+        assertNotNull(scanner.findDefinedPackage(getClass().getPackage().getName()));
+        assertNull(scanner.findDefinedPackage("org.missing"));
+    }
+
+    private File jar(final String name, final String... entries) throws IOException {
+        final File file = new File(temporaryFolder.getRoot(), name);
+        final Set<String> directories = new HashSet<>();
+        try (final JarOutputStream jar = new JarOutputStream(new FileOutputStream(file))) {
+            for (final String entry : entries) {
+                for (int i = entry.indexOf('/'); i > 0; i = entry.indexOf('/', i + 1)) { // getResources() needs them
+                    if (directories.add(entry.substring(0, i + 1))) {
+                        jar.putNextEntry(new JarEntry(entry.substring(0, i + 1)));
+                        jar.closeEntry();
+                    }
+                }
+                jar.putNextEntry(new JarEntry(entry));
+                jar.closeEntry();
+            }
+        }
+        return file;
+    }
+}
@@ -0,0 +1,139 @@
+package com.github.rmannibucau.playx.cdi;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static play.test.Helpers.running;
+
+import java.io.File;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+
+import org.apache.webbeans.config.WebBeansContext;
+import org.apache.webbeans.spi.DefiningClassService;
+import org.junit.Test;
+
+import com.github.rmannibucau.playx.cdi.bean.MyService;
+
+import play.Application;
+import play.ApplicationLoader;
+import play.Environment;
+import play.Mode;
+
+public class ProxyGeneratorTest {
+
+    @Test
+    public void generateAndLoad() throws Exception {
+        final File output = new File("target/ProxyGeneratorTest");
+        final File proxy = generate(output);
+        run(output, (definitions, proxyClass) -> {
+            assertEquals(proxy.getName(), proxyClass.getSimpleName() + ".class");
+            // a defined proxy would get the protection domain of MyService (test-classes)
+            assertEquals(output.getAbsoluteFile(), toFile(proxyClass.getProtectionDomain().getCodeSource().getLocation()));
+            assertEquals(1, definitions.getLoaded());
+            assertEquals(0, definitions.getGenerated());
+        });
+    }
+
+    @Test
+    public void outdatedProxyIsGenerated() throws Exception {
+        final File output = new File("target/ProxyGeneratorTest-outdated");
+        final File proxy = generate(output);
+        final byte[] bytecode = Files.readAllBytes(proxy.toPath());
+        bytecode[bytecode.length - 1]++; // not the bytecode OWB generates anymore
+        Files.write(proxy.toPath(), bytecode);
+        run(output, (definitions, proxyClass) -> {
+            assertEquals(proxy.getName(), proxyClass.getSimpleName() + ".class");
+            assertNotEquals(output.getAbsoluteFile(), toFile(proxyClass.getProtectionDomain().getCodeSource().getLocation()));
+            assertEquals(0, definitions.getLoaded());
+            assertEquals(1, definitions.getGenerated());
+        });
+    }
+
+    private static File generate(final File output) throws Exception {
+        ProxyGenerator.generate(output);
+        final File[] proxies = new File(output, MyService.class.getPackage().getName().replace('.', '/'))
+                .listFiles((dir, name) -> name.startsWith("MyService$$OwbNormalScopeProxy"));
+        assertTrue(proxies != null && proxies.length == 1);
+        return proxies[0];
+    }
+
+    // the generation defined the proxies in this classloader, the application gets its own one
+    // with the beans and the dumped proxies as a packaged application would
+    private static void run(final File output, final BiConsumer<PregeneratedProxies, Class<?>> test) throws Exception {
+        try (final ApplicationClassLoader loader = new ApplicationClassLoader(
+                new URL[] { output.toURI().toURL(), MyService.class.getProtectionDomain().getCodeSource().getLocation() })) {
+            final Class<?> service = loader.loadClass(MyService.class.getName());
+            assertSame(loader, service.getClassLoader());
+
+            final Map<String, Object> config = new HashMap<>();
+            config.put("playx.cdi.container.proxies.pregenerated", true);
+            config.put("playx.cdi.container.disableDiscovery", true);
+            config.put("playx.cdi.container.beanClasses", asList(service.getName()));
+            final ApplicationLoader.Context context = ApplicationLoader.create(
+                    new Environment(new File("target/play"), loader, Mode.TEST), config);
+            final Application app = new CdiLoader().load(context);
+            running(app, () -> {
+                final Object instance = app.injector().instanceOf(service);
+                assertSame(loader, instance.getClass().getClassLoader());
+                try {
+                    assertEquals("ok", service.getMethod("test").invoke(instance));
+                } catch (final ReflectiveOperationException e) {
+                    throw new IllegalStateException(e);
+                }
+
+                final Thread thread = Thread.currentThread();
+                final ClassLoader contextClassLoader = thread.getContextClassLoader();
+                thread.setContextClassLoader(loader);
+                try {
+                    test.accept(PregeneratedProxies.class.cast(
+                            WebBeansContext.currentInstance().getService(DefiningClassService.class)), instance.getClass());
+                } finally {
+                    thread.setContextClassLoader(contextClassLoader);
+                }
+            });
+        }
+    }
+
+    private static File toFile(final URL url) {
+        try {
+            return new File(url.toURI()).getAbsoluteFile();
+        } catch (final URISyntaxException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    // child first for the beans package, the rest (CDI, play) is shared with the test
+    private static class ApplicationClassLoader extends URLClassLoader {
+
+        private static final String BEANS = MyService.class.getPackage().getName() + '.';
+
+        private ApplicationClassLoader(final URL[] urls) {
+            super(urls, ProxyGeneratorTest.class.getClassLoader());
+        }
+
+        @Override
+        protected Class<?> loadClass(final String name, final boolean resolve) throws ClassNotFoundException {
+            if (!name.startsWith(BEANS)) {
+                return super.loadClass(name, resolve);
+            }
+            synchronized (getClassLoadingLock(name)) {
+                Class<?> clazz = findLoadedClass(name);
+                if (clazz == null) {
+                    clazz = findClass(name);
+                }
+                if (resolve) {
+                    resolveClass(clazz);
+                }
+                return clazz;
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.github.rmannibucau.playx.cdi.bean;
+
+import static java.util.concurrent.CompletableFuture.completedFuture;
+
+import java.util.concurrent.CompletionStage;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.ObservesAsync;
+import javax.inject.Inject;
+
+import com.github.rmannibucau.playx.cdi.Async;
+
+@ApplicationScoped
+public class MyAsyncService {
+
+    @Inject
+    private MyRequestBean request;
+
+    @Async
+    public CompletionStage<String> threadAndRequest() {
+        return completedFuture(Thread.currentThread().getName() + "/" + request.id());
+    }
+
+    public String onEvent(@ObservesAsync final StringBuilder event) {
+        event.append(Thread.currentThread().getName()).append('/').append(request.id());
+        return event.toString();
+    }
+}
@@ -0,0 +1,17 @@
+package com.github.rmannibucau.playx.cdi.bean;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+
+import play.i18n.MessagesApi;
+
+@ApplicationScoped
+public class MyI18nService {
+
+    @Inject
+    private MessagesApi messages;
+
+    public MessagesApi getMessages() {
+        return messages;
+    }
+}
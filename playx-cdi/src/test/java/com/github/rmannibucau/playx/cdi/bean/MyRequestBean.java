@@ -0,0 +1,24 @@
+package com.github.rmannibucau.playx.cdi.bean;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.RequestScoped;
+
+@RequestScoped
+public class MyRequestBean {
+
+    public static final AtomicInteger DESTROYED = new AtomicInteger();
+
+    private final String id = UUID.randomUUID().toString();
+
+    public String id() {
+        return id;
+    }
+
+    @PreDestroy
+    void destroy() {
+        DESTROYED.incrementAndGet();
+    }
+}
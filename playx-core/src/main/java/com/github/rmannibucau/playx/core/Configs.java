@@ -0,0 +1,22 @@
+package com.github.rmannibucau.playx.core;
+
+import java.util.Optional;
+import java.util.function.BiFunction;
+
+import com.typesafe.config.Config;
+
+public final class Configs {
+
+    private Configs() {
+        // no-op
+    }
+
+    // empty when the key is missing or null
+    public static <T> Optional<T> safeConfigAccess(final Config config, final String key,
+                                                   final BiFunction<Config, String, T> extractor) {
+        if (config.hasPathOrNull(key) && !config.getIsNull(key)) {
+            return Optional.of(extractor.apply(config, key));
+        }
+        return Optional.empty();
+    }
+}
@@ -0,0 +1,185 @@
+package com.github.rmannibucau.playx.core;
+
+import static java.util.Comparator.comparingLong;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import play.api.inject.BindingKey;
+import play.api.inject.QualifierClass;
+import play.api.inject.QualifierInstance;
+
+// injector lookups: counts and latency per binding key, lookups which fell through the first delegates and the
+// delegate exceptions swallowed doing so (IoCInjector only), exposed as
+// com.github.rmannibucau.playx:type=LookupMetrics,injector=<IoC|CDI> (playx.ioc.metrics.enabled, playx.cdi.metrics.enabled)
+public class LookupMetrics implements LookupMetricsMBean {
+
+    // log2 buckets of microseconds (bucket i is [2^(i-1), 2^i[), the last one is everything from 2^22us (~4.2s)
+    private static final int BUCKETS = 24;
+
+    private final Map<String, KeyMetrics> keys = new ConcurrentHashMap<>();
+
+    private final ObjectName name;
+
+    private volatile int top;
+
+    public LookupMetrics(final String injector, final int top) {
+        this.top = top;
+        try {
+            this.name = new ObjectName("com.github.rmannibucau.playx:type=LookupMetrics,injector=" + injector);
+        } catch (final JMException e) {
+            throw new IllegalArgumentException(e);
+        }
+    }
+
+    public void register() {
+        final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            if (server.isRegistered(name)) { // previous application not stopped (tests, dev mode)
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (final JMException e) {
+            throw new IllegalStateException("Can't register " + name, e);
+        }
+    }
+
+    public void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (final JMException e) {
+            // no-op: already unregistered
+        }
+    }
+
+    // unqualified lookup served without any fall through
+    public void record(final Class<?> type, final long durationNanos, final boolean failed) {
+        record(type.getName(), durationNanos, 0, 0, failed);
+    }
+
+    public void record(final BindingKey<?> key, final long durationNanos, final int fallThroughs, final int swallowed,
+                       final boolean failed) {
+        record(toName(key), durationNanos, fallThroughs, swallowed, failed);
+    }
+
+    private void record(final String key, final long durationNanos, final int fallThroughs, final int swallowed,
+                        final boolean failed) {
+        final KeyMetrics metrics = keys.computeIfAbsent(key, k -> new KeyMetrics());
+        metrics.lookups.increment();
+        if (fallThroughs > 0) {
+            metrics.fallThroughs.add(fallThroughs);
+        }
+        if (swallowed > 0) {
+            metrics.swallowed.add(swallowed);
+        }
+        if (failed) {
+            metrics.failures.increment();
+        }
+        final long micros = TimeUnit.NANOSECONDS.toMicros(durationNanos);
+        metrics.latency.incrementAndGet(Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros)));
+    }
+
+    @Override
+    public long getLookups() {
+        return keys.values().stream().mapToLong(it -> it.lookups.sum()).sum();
+    }
+
+    @Override
+    public long getFallThroughs() {
+        return keys.values().stream().mapToLong(it -> it.fallThroughs.sum()).sum();
+    }
+
+    @Override
+    public long getSwallowedExceptions() {
+        return keys.values().stream().mapToLong(it -> it.swallowed.sum()).sum();
+    }
+
+    @Override
+    public long getFailures() {
+        return keys.values().stream().mapToLong(it -> it.failures.sum()).sum();
+    }
+
+    @Override
+    public int getKeys() {
+        return keys.size();
+    }
+
+    @Override
+    public int getTop() {
+        return top;
+    }
+
+    @Override
+    public void setTop(final int top) {
+        this.top = top;
+    }
+
+    @Override
+    public String[] getHottestKeys() {
+        return keys.entrySet().stream()
+                .sorted(comparingLong((Map.Entry<String, KeyMetrics> it) -> it.getValue().lookups.sum()).reversed())
+                .limit(top)
+                .map(it -> it.getKey() + ": " + it.getValue())
+                .toArray(String[]::new);
+    }
+
+    @Override
+    public void reset() {
+        keys.clear();
+    }
+
+    private static String toName(final BindingKey<?> key) {
+        if (key.qualifier().isEmpty()) {
+            return key.clazz().getName();
+        }
+        final Object qualifier = key.qualifier().get();
+        return key.clazz().getName() + '@' + (QualifierInstance.class.isInstance(qualifier)
+                ? QualifierInstance.class.cast(qualifier).instance()
+                : QualifierClass.class.cast(qualifier).clazz().getName());
+    }
+
+    private static class KeyMetrics {
+
+        private final LongAdder lookups = new LongAdder();
+
+        private final LongAdder fallThroughs = new LongAdder();
+
+        private final LongAdder swallowed = new LongAdder();
+
+        private final LongAdder failures = new LongAdder();
+
+        private final AtomicLongArray latency = new AtomicLongArray(BUCKETS);
+
+        // upper bound of the bucket containing the percentile
+        private long percentileMicros(final double percentile) {
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                total += latency.get(i);
+            }
+            final long threshold = (long) Math.ceil(total * percentile);
+            long count = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                count += latency.get(i);
+                if (count >= threshold && count > 0) {
+                    return 1L << i;
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return "lookups=" + lookups.sum() + ", fallThroughs=" + fallThroughs.sum() + ", swallowed=" + swallowed.sum()
+                    + ", failures=" + failures.sum() + ", p50<=" + percentileMicros(0.5) + "us, p99<="
+                    + percentileMicros(0.99) + "us";
+        }
+    }
+}
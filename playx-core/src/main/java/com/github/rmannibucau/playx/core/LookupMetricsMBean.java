@@ -0,0 +1,23 @@
+package com.github.rmannibucau.playx.core;
+
+public interface LookupMetricsMBean {
+
+    long getLookups();
+
+    long getFallThroughs();
+
+    long getSwallowedExceptions();
+
+    long getFailures();
+
+    int getKeys();
+
+    int getTop();
+
+    void setTop(int top);
+
+    // the most looked up keys with their counters and latency percentiles
+    String[] getHottestKeys();
+
+    void reset();
+}
@@ -0,0 +1,202 @@
+package com.github.rmannibucau.playx.core;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.stream.Collectors.toList;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import jdk.jfr.Category;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+// startup phases of a loader (CdiLoader, IoCLoader) and a few counters, each phase is a JFR event (playx.StartupPhase),
+// the whole timeline is logged once and the loader injector provides it.
+// A phase is either consecutive (mark: it ends when the next one starts) or measured on its own (record: concurrent
+// or lazy steps as the IoCLoader delegates, named after their class, a declared step not recorded yet is pending)
+public class StartupTimeline {
+
+    private final String loader;
+
+    private final long start = System.nanoTime();
+
+    // in declaration/mark order, null while pending
+    private final Map<String, Duration> phases = new LinkedHashMap<>();
+
+    private final Map<Object, String> steps = new IdentityHashMap<>();
+
+    private final Map<String, Long> counts = new LinkedHashMap<>();
+
+    private long last = start;
+
+    private PhaseEvent event;
+
+    private long end = -1;
+
+    public StartupTimeline(final String loader) {
+        this.loader = loader;
+        this.event = newEvent();
+    }
+
+    // ends the current phase under this name
+    public synchronized void mark(final String phase) {
+        final long now = System.nanoTime();
+        phases.put(phase, Duration.ofNanos(now - last));
+        last = now;
+        if (event != null) {
+            event.loader = loader;
+            event.phase = phase;
+            event.commit();
+        }
+        event = newEvent();
+    }
+
+    // keeps the steps in this order whatever order they are recorded in
+    public synchronized void declare(final Collection<?> steps) {
+        steps.forEach(this::nameOf);
+    }
+
+    public <T> T record(final Object step, final Supplier<T> task) {
+        final String phase;
+        synchronized (this) {
+            phase = nameOf(step);
+        }
+        final PhaseEvent event = new PhaseEvent();
+        event.begin();
+        final long begin = System.nanoTime();
+        try {
+            return task.get();
+        } finally {
+            final long now = System.nanoTime();
+            synchronized (this) {
+                phases.put(phase, Duration.ofNanos(now - begin));
+                last = Math.max(last, now);
+            }
+            if (event.shouldCommit()) {
+                event.loader = loader;
+                event.phase = phase;
+                event.commit();
+            }
+        }
+    }
+
+    public synchronized void count(final String name, final long value) {
+        counts.put(name, value);
+    }
+
+    public synchronized void done() {
+        end = System.nanoTime();
+        event = null;
+    }
+
+    public String getLoader() {
+        return loader;
+    }
+
+    public synchronized List<Phase> getPhases() {
+        return unmodifiableList(phases.entrySet().stream()
+                .filter(it -> it.getValue() != null)
+                .map(it -> new Phase(it.getKey(), it.getValue()))
+                .collect(toList()));
+    }
+
+    // declared steps not recorded yet (lazy IoCLoader delegates not used yet), readiness indicator
+    public synchronized List<String> getPendingPhases() {
+        return unmodifiableList(phases.entrySet().stream()
+                .filter(it -> it.getValue() == null)
+                .map(Map.Entry::getKey)
+                .collect(toList()));
+    }
+
+    public synchronized Map<String, Long> getCounts() {
+        return unmodifiableMap(new LinkedHashMap<>(counts));
+    }
+
+    // until done() or the last phase while starting
+    public synchronized Duration getTotal() {
+        return Duration.ofNanos((end < 0 ? last : end) - start);
+    }
+
+    @Override
+    public synchronized String toString() {
+        final StringBuilder builder = new StringBuilder(loader).append(" started in ").append(getTotal().toMillis()).append("ms");
+        String separator = ": ";
+        for (final Phase phase : getPhases()) {
+            builder.append(separator).append(phase);
+            separator = ", ";
+        }
+        separator = " (";
+        for (final Map.Entry<String, Long> count : counts.entrySet()) {
+            builder.append(separator).append(count.getKey()).append('=').append(count.getValue());
+            separator = ", ";
+        }
+        return counts.isEmpty() ? builder.toString() : builder.append(')').toString();
+    }
+
+    // class name, suffixed with #2, #3... for the next instances of the same class
+    private String nameOf(final Object step) {
+        return steps.computeIfAbsent(step, it -> {
+            final String base = it.getClass().getName();
+            String name = base;
+            for (int i = 2; phases.containsKey(name); i++) {
+                name = base + '#' + i;
+            }
+            phases.put(name, null);
+            return name;
+        });
+    }
+
+    private static PhaseEvent newEvent() {
+        final PhaseEvent event = new PhaseEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    public static class Phase {
+
+        private final String name;
+
+        private final Duration duration;
+
+        private Phase(final String name, final Duration duration) {
+            this.name = name;
+            this.duration = duration;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Duration getDuration() {
+            return duration;
+        }
+
+        @Override
+        public String toString() {
+            return name + '=' + duration.toMillis() + "ms";
+        }
+    }
+
+    @Name("playx.StartupPhase")
+    @Label("Playx Startup Phase")
+    @Category("Playx")
+    static class PhaseEvent extends Event {
+
+        @Label("Loader")
+        String loader;
+
+        @Label("Phase")
+        String phase;
+    }
+}
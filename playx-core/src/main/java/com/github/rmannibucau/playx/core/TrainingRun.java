@@ -0,0 +1,157 @@
+package com.github.rmannibucau.playx.core;
+
+import static com.github.rmannibucau.playx.core.Configs.safeConfigAccess;
+import static java.util.Collections.emptyMap;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.pekko.stream.Materializer;
+import org.apache.pekko.util.ByteString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.typesafe.config.Config;
+
+import play.Application;
+import play.ApplicationLoader;
+import play.Environment;
+import play.Mode;
+import play.api.Play;
+import play.api.mvc.Handler;
+import play.api.mvc.RequestHeader;
+import play.mvc.EssentialAction;
+import play.mvc.Http;
+import play.mvc.Result;
+import scala.Tuple2;
+import scala.concurrent.Await;
+import scala.concurrent.duration.Duration;
+
+// CDS training run: boots the application in PROD mode (play.application.loader, CdiLoader, IoCLoader...), replays
+// the configured warm-up requests through the play request handler (filters, servlet bridge, IoC lookups) and stops it,
+// launched with -XX:ArchiveClassesAtExit=app.jsa the JVM then dumps the loaded classes for the next boots when it exits
+public final class TrainingRun {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TrainingRun.class);
+
+    private TrainingRun() {
+        // no-op
+    }
+
+    public static void main(final String[] args) throws Exception {
+        if (ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .noneMatch(it -> it.startsWith("-XX:ArchiveClassesAtExit"))) {
+            LOGGER.warn("No -XX:ArchiveClassesAtExit, the training run will not produce any CDS archive");
+        }
+
+        final ApplicationLoader.Context context = ApplicationLoader.create(
+                new Environment(new File("."), TrainingRun.class.getClassLoader(), Mode.PROD), emptyMap());
+        final Application application = ApplicationLoader.apply(context).load(context);
+        Play.start(application.asScala());
+        final long started = ManagementFactory.getRuntimeMXBean().getUptime();
+        try {
+            final Summary summary = train(application);
+            LOGGER.info("Application started in {}ms, trained in {}ms ({})", started,
+                    ManagementFactory.getRuntimeMXBean().getUptime() - started, summary);
+        } finally { // once stopped no thread is left and the JVM exits
+            Await.result(application.asScala().stop(), Duration.Inf());
+        }
+    }
+
+    static Summary train(final Application application) throws Exception {
+        final Config config = application.config();
+        final int iterations = safeConfigAccess(config, "playx.training.iterations", Config::getInt).orElse(10);
+        final long timeout = safeConfigAccess(config, "playx.training.timeout", Config::getDuration)
+                .map(java.time.Duration::toMillis).orElse(30000L);
+
+        // lookups first, some requests can depend on lazy beans
+        final Summary summary = new Summary();
+        final ClassLoader loader = application.classloader();
+        for (final String lookup : safeConfigAccess(config, "playx.training.lookups", Config::getStringList)
+                .orElseGet(Collections::emptyList)) {
+            application.injector().instanceOf(loader.loadClass(lookup.trim()));
+            summary.lookups++;
+        }
+
+        final List<? extends Config> requests = safeConfigAccess(config, "playx.training.requests", Config::getConfigList)
+                .orElseGet(Collections::emptyList);
+        if (requests.isEmpty()) {
+            return summary;
+        }
+        final Materializer materializer = application.asScala().materializer();
+        for (int i = 0; i < iterations; i++) {
+            for (final Config request : requests) {
+                final String method = safeConfigAccess(request, "method", Config::getString).orElse("GET");
+                final int status = execute(application, materializer, request, timeout);
+                summary.requests++;
+                summary.statuses.putIfAbsent(method + ' ' + request.getString("uri"), status);
+                if (i == 0) {
+                    LOGGER.info("{} {} -> HTTP {}", method, request.getString("uri"), status);
+                }
+            }
+            summary.iterations++;
+        }
+        return summary;
+    }
+
+    private static int execute(final Application application, final Materializer materializer, final Config request,
+                               final long timeout) throws Exception {
+        final Http.RequestBuilder builder = new Http.RequestBuilder()
+                .method(safeConfigAccess(request, "method", Config::getString).orElse("GET"))
+                .uri(request.getString("uri"));
+        safeConfigAccess(request, "headers", Config::getObject).ifPresent(headers -> headers
+                .forEach((name, value) -> builder.header(name, value.unwrapped().toString())));
+        final String body = safeConfigAccess(request, "body", Config::getString).orElse("");
+
+        final Tuple2<RequestHeader, Handler> handler = application.asScala().requestHandler()
+                .handlerForRequest(builder.build().asScala());
+        if (!play.api.mvc.EssentialAction.class.isInstance(handler._2())) { // websockets etc
+            return -1;
+        }
+        final EssentialAction action = play.api.mvc.EssentialAction.class.cast(handler._2()).asJava();
+        final Result result = action.apply(handler._1().asJava())
+                .run(ByteString.fromString(body), materializer)
+                .toCompletableFuture().get(timeout, TimeUnit.MILLISECONDS);
+        result.body().consumeData(materializer).toCompletableFuture().get(timeout, TimeUnit.MILLISECONDS);
+        return result.status();
+    }
+
+    // what the training did, a request not answered as expected means some code paths were not trained
+    static class Summary {
+
+        private int iterations;
+
+        private int lookups;
+
+        private int requests;
+
+        // status of the first execution per "method uri", -1 when not an http action (websockets etc)
+        private final Map<String, Integer> statuses = new LinkedHashMap<>();
+
+        int getIterations() {
+            return iterations;
+        }
+
+        int getLookups() {
+            return lookups;
+        }
+
+        int getRequests() {
+            return requests;
+        }
+
+        Map<String, Integer> getStatuses() {
+            return statuses;
+        }
+
+        @Override
+        public String toString() {
+            return "iterations=" + iterations + ", lookups=" + lookups + ", requests=" + requests + ", statuses=" + statuses;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.github.rmannibucau.playx.core;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+public class StartupTimelineTest {
+
+    @Test
+    public void phases() {
+        final StartupTimeline timeline = new StartupTimeline("TestLoader");
+        timeline.mark("configuration");
+        timeline.count("beans", 2);
+        timeline.done();
+        assertEquals(singletonList("configuration"), names(timeline));
+        assertTrue(timeline.toString(), timeline.toString().matches("TestLoader started in \\d+ms: configuration=\\d+ms \\(beans=2\\)"));
+    }
+
+    @Test
+    public void steps() {
+        final StartupTimeline timeline = new StartupTimeline("TestLoader");
+        final Step first = new Step();
+        final Step second = new Step();
+        final Other other = new Other();
+        timeline.declare(asList(first, second, other));
+        assertEquals(asList(Step.class.getName(), Step.class.getName() + "#2", Other.class.getName()), timeline.getPendingPhases());
+
+        // recorded out of order (concurrent loads), reported in declaration order and keyed by instance
+        assertEquals("other", timeline.record(other, () -> "other"));
+        assertEquals("second", timeline.record(second, () -> "second"));
+        timeline.done();
+        assertEquals(asList(Step.class.getName() + "#2", Other.class.getName()), names(timeline));
+        assertEquals(singletonList(Step.class.getName()), timeline.getPendingPhases());
+
+        timeline.record(first, () -> null); // lazy
+        assertEquals(asList(Step.class.getName(), Step.class.getName() + "#2", Other.class.getName()), names(timeline));
+        assertTrue(timeline.getPendingPhases().isEmpty());
+    }
+
+    private static List<String> names(final StartupTimeline timeline) {
+        return timeline.getPhases().stream().map(StartupTimeline.Phase::getName).collect(toList());
+    }
+
+    private static class Step {
+    }
+
+    private static class Other {
+    }
+}
@@ -0,0 +1,36 @@
+package com.github.rmannibucau.playx.core;
+
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static play.test.Helpers.running;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import play.Application;
+import play.Mode;
+import play.inject.guice.GuiceApplicationBuilder;
+
+public class TrainingRunTest {
+
+    @Test
+    public void train() {
+        final Application app = new GuiceApplicationBuilder() // see application.conf
+                .in(new File("target/play"))
+                .in(Mode.PROD)
+                .build();
+        running(app, () -> {
+            final TrainingRun.Summary summary;
+            try {
+                summary = TrainingRun.train(app);
+            } catch (final Exception e) {
+                throw new IllegalStateException(e);
+            }
+            assertEquals(2, summary.getIterations());
+            assertEquals(1, summary.getLookups());
+            assertEquals(2, summary.getRequests());
+            assertEquals(singletonMap("GET /missing", 404), summary.getStatuses()); // but goes through the whole request handling
+        });
+    }
+}
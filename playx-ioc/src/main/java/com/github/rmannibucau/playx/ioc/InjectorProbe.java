@@ -0,0 +1,196 @@
+package com.github.rmannibucau.playx.ioc;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.Set;
+
+import play.api.inject.BindingKey;
+import play.api.inject.QualifierAnnotation;
+import play.api.inject.QualifierClass;
+import play.api.inject.QualifierInstance;
+import play.inject.Injector;
+
+// tells if a delegate injector can provide a key without creating the instance nor throwing,
+// the containers are used through reflection to not depend on them:
+// - CDI: the BeanManager resolution (as Instance#isResolvable),
+// - Guice: an existing binding, or not bindable just in time (interface/abstract class),
+// others are UNKNOWN so tried as before
+abstract class InjectorProbe {
+
+    enum Result {
+        YES, NO, UNKNOWN
+    }
+
+    static final InjectorProbe UNKNOWN = new InjectorProbe() {
+
+        @Override
+        Result canProvide(final BindingKey<?> key) {
+            return Result.UNKNOWN;
+        }
+    };
+
+    abstract Result canProvide(BindingKey<?> key);
+
+    static InjectorProbe of(final Injector injector, final ClassLoader loader) {
+        final InjectorProbe cdi = Cdi.create(injector, loader);
+        if (cdi != null) {
+            return cdi;
+        }
+        final InjectorProbe guice = Guice.create(injector, loader);
+        return guice == null ? UNKNOWN : guice;
+    }
+
+    // the delegate provides its own container, injectors throw or return null when they can't
+    private static Object lookup(final Injector injector, final Class<?> type) {
+        try {
+            return injector.instanceOf(type);
+        } catch (final RuntimeException | LinkageError e) {
+            return null;
+        }
+    }
+
+    private static Class<?> load(final ClassLoader loader, final String name) {
+        try {
+            return loader.loadClass(name);
+        } catch (final ClassNotFoundException | NoClassDefFoundError e) {
+            return null;
+        }
+    }
+
+    private static class Cdi extends InjectorProbe {
+
+        private final Object beanManager;
+
+        private final Method getBeans;
+
+        private final Method resolve;
+
+        private Cdi(final Object beanManager, final Class<?> api) throws NoSuchMethodException {
+            this.beanManager = beanManager;
+            this.getBeans = api.getMethod("getBeans", Type.class, Annotation[].class);
+            this.resolve = api.getMethod("resolve", Set.class);
+        }
+
+        private static InjectorProbe create(final Injector injector, final ClassLoader loader) {
+            final Class<?> api = load(loader, "javax.enterprise.inject.spi.BeanManager");
+            if (api == null) {
+                return null;
+            }
+            final Object beanManager = lookup(injector, api);
+            if (!api.isInstance(beanManager)) {
+                return null;
+            }
+            try {
+                return new Cdi(beanManager, api);
+            } catch (final NoSuchMethodException e) {
+                return null;
+            }
+        }
+
+        @Override
+        Result canProvide(final BindingKey<?> key) {
+            final Annotation[] qualifiers;
+            if (key.qualifier().isEmpty()) {
+                qualifiers = new Annotation[0];
+            } else {
+                final QualifierAnnotation qualifier = key.qualifier().get();
+                qualifiers = new Annotation[] { QualifierInstance.class.isInstance(qualifier)
+                        ? QualifierInstance.class.cast(qualifier).instance()
+                        : (Annotation) () -> QualifierClass.class.cast(qualifier).clazz() };
+            }
+            try {
+                final Collection<?> beans = Collection.class.cast(getBeans.invoke(beanManager, key.clazz(), qualifiers));
+                if (beans.isEmpty()) {
+                    return Result.NO;
+                }
+                return resolve.invoke(beanManager, beans) != null ? Result.YES : Result.UNKNOWN;
+            } catch (final Exception e) { // ambiguous, invalid qualifier...: let the injector report it
+                return Result.UNKNOWN;
+            }
+        }
+    }
+
+    private static class Guice extends InjectorProbe {
+
+        private final Object injector;
+
+        private final Method getExistingBinding;
+
+        private final Method keyOfType;
+
+        private final Method keyOfAnnotation;
+
+        private final Method keyOfAnnotationType;
+
+        private final Class<? extends Annotation> implementedBy;
+
+        private final Class<? extends Annotation> providedBy;
+
+        private Guice(final Object injector, final Class<?> api, final ClassLoader loader) throws NoSuchMethodException {
+            final Class<?> key = load(loader, "com.google.inject.Key");
+            if (key == null) {
+                throw new NoSuchMethodException("No com.google.inject.Key");
+            }
+            this.injector = injector;
+            this.getExistingBinding = api.getMethod("getExistingBinding", key);
+            this.keyOfType = key.getMethod("get", Class.class);
+            this.keyOfAnnotation = key.getMethod("get", Class.class, Annotation.class);
+            this.keyOfAnnotationType = key.getMethod("get", Class.class, Class.class);
+            this.implementedBy = annotation(loader, "com.google.inject.ImplementedBy");
+            this.providedBy = annotation(loader, "com.google.inject.ProvidedBy");
+        }
+
+        private static InjectorProbe create(final Injector injector, final ClassLoader loader) {
+            final Class<?> api = load(loader, "com.google.inject.Injector");
+            if (api == null) {
+                return null;
+            }
+            final Object guice = lookup(injector, api);
+            if (!api.isInstance(guice)) {
+                return null;
+            }
+            try {
+                return new Guice(guice, api, loader);
+            } catch (final NoSuchMethodException e) {
+                return null;
+            }
+        }
+
+        @Override
+        Result canProvide(final BindingKey<?> key) {
+            try {
+                final Object guiceKey;
+                if (key.qualifier().isEmpty()) {
+                    guiceKey = keyOfType.invoke(null, key.clazz());
+                } else if (QualifierInstance.class.isInstance(key.qualifier().get())) {
+                    guiceKey = keyOfAnnotation.invoke(null, key.clazz(),
+                            QualifierInstance.class.cast(key.qualifier().get()).instance());
+                } else {
+                    guiceKey = keyOfAnnotationType.invoke(null, key.clazz(),
+                            QualifierClass.class.cast(key.qualifier().get()).clazz());
+                }
+                if (getExistingBinding.invoke(injector, guiceKey) != null) {
+                    return Result.YES;
+                }
+            } catch (final Exception e) {
+                return Result.UNKNOWN;
+            }
+            // just in time bindings of interfaces/abstract classes only exist for unqualified Guice annotated types
+            final Class<?> type = key.clazz();
+            if ((type.isInterface() || Modifier.isAbstract(type.getModifiers())) && (key.qualifier().isDefined()
+                    || ((implementedBy == null || !type.isAnnotationPresent(implementedBy))
+                        && (providedBy == null || !type.isAnnotationPresent(providedBy))))) {
+                return Result.NO;
+            }
+            return Result.UNKNOWN;
+        }
+
+        private static Class<? extends Annotation> annotation(final ClassLoader loader, final String name) {
+            final Class<?> type = load(loader, name);
+            return type == null ? null : type.asSubclass(Annotation.class);
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.github.rmannibucau.playx.ioc;
 
-import static java.util.Locale.ROOT;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.joining;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
+import static java.util.stream.Collectors.toSet;
 
 import java.io.File;
 import java.io.InputStream;
@@ -14,10 +16,26 @@ import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.rmannibucau.playx.core.LookupMetrics;
+import com.github.rmannibucau.playx.core.StartupTimeline;
 import com.typesafe.config.Config;
 
 import org.apache.pekko.actor.ActorSystem;
@@ -41,8 +59,11 @@ import scala.reflect.ClassTag;
 
 public class IoCLoader implements ApplicationLoader {
 
+    private static final Logger LOGGER = LoggerFactory.getLogger(IoCLoader.class);
+
     @Override
     public Application load(final Context context) {
+        final StartupTimeline timeline = new StartupTimeline(IoCLoader.class.getSimpleName());
         final Config config = context.initialConfig();
         final Collection<String> loaders = safeConfigAccess(config, "playx.ioc.loaders", Config::getStringList)
                 .orElseGet(Collections::emptyList);
@@ -59,20 +80,182 @@ public class IoCLoader implements ApplicationLoader {
                 throw new IllegalArgumentException(e);
             }
         }).collect(toList());
-        final Map<ApplicationLoader, Application> instances = new LinkedHashMap<>();
+        final Collection<String> lazyLoaders = safeConfigAccess(config, "playx.ioc.lazy", Config::getStringList)
+                .orElseGet(Collections::emptyList);
+        final Set<ApplicationLoader> lazy = appLoaders.stream()
+                .filter(it -> lazyLoaders.contains(it.getClass().getName()))
+                .collect(toSet());
+        if (lazy.contains(appLoaders.get(0))) {
+            throw new IllegalArgumentException("The first loader provides the application, it can't be lazy");
+        }
+        timeline.declare(appLoaders);
+        final Map<ApplicationLoader, Collection<ApplicationLoader>> dependencies = dependencies(config, appLoaders, lazy);
+        final List<ApplicationLoader> eagerLoaders = appLoaders.stream().filter(it -> !lazy.contains(it)).collect(toList());
+        final int parallelism = safeConfigAccess(config, "playx.ioc.parallelism", Config::getInt)
+                .orElseGet(() -> Math.min(eagerLoaders.size(), Runtime.getRuntime().availableProcessors()));
+        final Map<ApplicationLoader, Application> instances = parallelism <= 1 ?
+                loadSequentially(context, eagerLoaders, dependencies, timeline) :
+                loadConcurrently(context, eagerLoaders, dependencies, parallelism, timeline);
+
+        // lazy loaders are replaced by an injector starting them on the first lookup routed to them
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        final Map<ApplicationLoader, Injector> injectors = new LinkedHashMap<>();
         for (final ApplicationLoader loader : appLoaders) {
-            // add previous apps in the app which will be built to let it look up other context beans
-            if (Consumer.class.isInstance(loader)) {
-                Consumer.class.cast(loader).accept(instances.values());
+            if (!lazy.contains(loader)) {
+                injectors.put(loader, instances.get(loader).injector());
+                continue;
             }
-            instances.put(loader, loader.load(context));
+            final Map<ApplicationLoader, LazyInjector> lazyInjectors = new LinkedHashMap<>();
+            injectors.forEach((key, value) -> {
+                if (LazyInjector.class.isInstance(value)) {
+                    lazyInjectors.put(key, LazyInjector.class.cast(value));
+                }
+            });
+            injectors.put(loader, new LazyInjector(loader, classLoader, () -> load(context, loader, dependencies.get(loader),
+                    it -> lazyInjectors.containsKey(it) ? lazyInjectors.get(it).application() : instances.get(it), timeline)));
         }
 
         final Map<String, String> routingTable = safeConfigAccess(config, "playx.ioc.routing", Config::getObjectList)
                 .orElseGet(Collections::emptyList).stream()
-                .collect(toMap(it -> it.keySet().iterator().next(), it -> it.values().iterator().next().render()));
+                .collect(toMap(it -> it.keySet().iterator().next(),
+                        it -> String.valueOf(it.values().iterator().next().unwrapped())));
+
+        final LookupMetrics metrics = safeConfigAccess(config, "playx.ioc.metrics.enabled", Config::getBoolean).orElse(false) ?
+                new LookupMetrics("IoC", safeConfigAccess(config, "playx.ioc.metrics.top", Config::getInt).orElse(10)) :
+                null;
+        if (metrics != null) {
+            metrics.register();
+            context.applicationLifecycle().addStopHook(() -> CompletableFuture.runAsync(metrics::unregister, Runnable::run));
+        }
 
-        return new IoCApplication(instances, routingTable).asJava();
+        final Application application = new IoCApplication(
+                instances.get(appLoaders.get(0)), injectors, routingTable, timeline, metrics).asJava();
+        timeline.done();
+        LOGGER.info("{}", timeline);
+        return application;
+    }
+
+    // a loader depends on the loaders listed in playx.ioc.dependencies,
+    // else a Consumer loader (it gets the previous applications) depends on all its predecessors,
+    // an eager loader can't depend on a lazy one (ignored by default)
+    private Map<ApplicationLoader, Collection<ApplicationLoader>> dependencies(final Config config,
+                                                                               final List<ApplicationLoader> loaders,
+                                                                               final Set<ApplicationLoader> lazy) {
+        final Map<String, List<String>> configured = safeConfigAccess(config, "playx.ioc.dependencies", Config::getObjectList)
+                .orElseGet(Collections::emptyList).stream()
+                .flatMap(it -> it.entrySet().stream())
+                .collect(toMap(Map.Entry::getKey, it -> ((List<?>) it.getValue().unwrapped()).stream()
+                        .map(String::valueOf).collect(toList())));
+        final Map<ApplicationLoader, Collection<ApplicationLoader>> dependencies = new LinkedHashMap<>();
+        for (int i = 0; i < loaders.size(); i++) {
+            final ApplicationLoader loader = loaders.get(i);
+            final List<ApplicationLoader> predecessors = loaders.subList(0, i);
+            final List<String> names = configured.get(loader.getClass().getName());
+            if (names == null) {
+                dependencies.put(loader, !Consumer.class.isInstance(loader) ? Collections.emptyList() :
+                        predecessors.stream().filter(it -> lazy.contains(loader) || !lazy.contains(it)).collect(toList()));
+                continue;
+            }
+            dependencies.put(loader, names.stream()
+                    .map(name -> predecessors.stream().filter(it -> it.getClass().getName().equals(name)).findFirst()
+                            .orElseThrow(() -> new IllegalArgumentException(
+                                    name + " must be a loader declared before " + loader.getClass().getName())))
+                    .peek(it -> {
+                        if (lazy.contains(it) && !lazy.contains(loader)) {
+                            throw new IllegalArgumentException(loader.getClass().getName() + " is not lazy, it can't depend on "
+                                    + it.getClass().getName() + " which is lazy");
+                        }
+                    })
+                    .collect(toList()));
+        }
+        return dependencies;
+    }
+
+    private Map<ApplicationLoader, Application> loadSequentially(final Context context, final List<ApplicationLoader> loaders,
+                                                                 final Map<ApplicationLoader, Collection<ApplicationLoader>> dependencies,
+                                                                 final StartupTimeline timeline) {
+        final Map<ApplicationLoader, Application> instances = new LinkedHashMap<>();
+        for (final ApplicationLoader loader : loaders) {
+            try {
+                instances.put(loader, load(context, loader, dependencies.get(loader), instances::get, timeline));
+            } catch (final RuntimeException | Error e) { // as concurrently, don't leak the already loaded ones
+                instances.values().forEach(this::stopQuietly);
+                throw e;
+            }
+        }
+        return instances;
+    }
+
+    // independent loaders boot on a bounded pool, a loader starts once its dependencies are loaded
+    private Map<ApplicationLoader, Application> loadConcurrently(final Context context, final List<ApplicationLoader> loaders,
+                                                                 final Map<ApplicationLoader, Collection<ApplicationLoader>> dependencies,
+                                                                 final int parallelism, final StartupTimeline timeline) {
+        final ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        final AtomicInteger threadCounter = new AtomicInteger();
+        final ExecutorService pool = Executors.newFixedThreadPool(Math.min(parallelism, loaders.size()), task -> {
+            final Thread thread = new Thread(task, "playx-ioc-loader-" + threadCounter.incrementAndGet());
+            thread.setContextClassLoader(classLoader); // containers are often bound to it (OpenWebBeans SE for instance)
+            thread.setDaemon(true);
+            return thread;
+        });
+        final Map<ApplicationLoader, Application> instances = new ConcurrentHashMap<>();
+        final Map<ApplicationLoader, Throwable> errors = new ConcurrentHashMap<>();
+        final Map<ApplicationLoader, CompletableFuture<?>> loads = new LinkedHashMap<>();
+        try {
+            for (final ApplicationLoader loader : loaders) {
+                final Collection<ApplicationLoader> loaderDependencies = dependencies.get(loader);
+                loads.put(loader, CompletableFuture.allOf(loaderDependencies.stream().map(loads::get).toArray(CompletableFuture[]::new))
+                        .thenRunAsync(() -> {
+                            try {
+                                instances.put(loader, load(context, loader, loaderDependencies, instances::get, timeline));
+                            } catch (final RuntimeException | Error e) {
+                                errors.put(loader, e);
+                                throw e;
+                            }
+                        }, pool));
+            }
+            try {
+                CompletableFuture.allOf(loads.values().toArray(new CompletableFuture[0])).join();
+            } catch (final CompletionException ce) {
+                // no-op: reported with all the failures once all loaders are done or skipped
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        if (!errors.isEmpty()) {
+            instances.values().forEach(this::stopQuietly);
+            if (errors.size() == 1) {
+                final Throwable error = errors.values().iterator().next();
+                if (RuntimeException.class.isInstance(error)) {
+                    throw RuntimeException.class.cast(error);
+                }
+                throw Error.class.cast(error);
+            }
+            final IllegalStateException error = new IllegalStateException("Can't load " + loaders.stream()
+                    .filter(errors::containsKey).map(it -> it.getClass().getName()).collect(joining(", ")));
+            loaders.stream().map(errors::get).filter(Objects::nonNull).forEach(error::addSuppressed);
+            throw error;
+        }
+        return loaders.stream().collect(toMap(identity(), instances::get, (a, b) -> a, LinkedHashMap::new));
+    }
+
+    private Application load(final Context context, final ApplicationLoader loader,
+                             final Collection<ApplicationLoader> dependencies,
+                             final Function<ApplicationLoader, Application> instances, final StartupTimeline timeline) {
+        // add the dependencies apps in the app which will be built to let it look up other context beans
+        if (Consumer.class.isInstance(loader)) {
+            Consumer.class.cast(loader).accept(dependencies.stream().map(instances).collect(toList()));
+        }
+        return timeline.record(loader, () -> loader.load(context));
+    }
+
+    private void stopQuietly(final Application application) {
+        try {
+            application.asScala().stop();
+        } catch (final RuntimeException re) {
+            LOGGER.warn("Can't stop {}", application, re);
+        }
     }
 
     private <T> Optional<T> safeConfigAccess(final Config config, final String key,
@@ -85,21 +268,16 @@ public class IoCLoader implements ApplicationLoader {
 
     private static class IoCApplication implements play.api.Application {
 
-        private final Collection<Application> delegates;
-
         private final play.api.inject.Injector injector;
 
         private final play.api.Application scalaRef;
 
         private final Application java;
 
-        IoCApplication(final Map<ApplicationLoader, Application> values, final Map<String, String> routing) {
-            this.delegates = new ArrayList<>(values.values());
-            this.injector = new IoCInjector(
-                    values.entrySet().stream().collect(toMap(Map.Entry::getKey, e -> e.getValue().injector(), (a, b) -> {
-                        throw new IllegalStateException("Conflicting keys for " + a + "/" + b);
-                    }, LinkedHashMap::new)), routing);
-            this.scalaRef = delegates.iterator().next().asScala();
+        IoCApplication(final Application main, final Map<ApplicationLoader, Injector> injectors,
+                       final Map<String, String> routing, final StartupTimeline timeline, final LookupMetrics metrics) {
+            this.injector = new IoCInjector(injectors, routing, main.classloader(), timeline, metrics);
+            this.scalaRef = main.asScala();
             this.java = new DefaultApplication(this, injector.asJava());
 
             playxIntegration();
@@ -213,15 +391,111 @@ public class IoCLoader implements ApplicationLoader {
         }
     }
 
+    // placeholder of a lazy loader, the first lookup starts it (once even if concurrent)
+    private static class LazyInjector implements Injector, play.api.inject.Injector {
+
+        private final ApplicationLoader loader;
+
+        private final ClassLoader classLoader;
+
+        private final Supplier<Application> starter;
+
+        private volatile Application application;
+
+        private LazyInjector(final ApplicationLoader loader, final ClassLoader classLoader,
+                             final Supplier<Application> starter) {
+            this.loader = loader;
+            this.classLoader = classLoader;
+            this.starter = starter;
+        }
+
+        private boolean isStarted() {
+            return application != null;
+        }
+
+        private Application application() {
+            Application started = application;
+            if (started == null) {
+                synchronized (this) {
+                    started = application;
+                    if (started == null) {
+                        final Thread thread = Thread.currentThread();
+                        final ClassLoader original = thread.getContextClassLoader();
+                        thread.setContextClassLoader(classLoader);
+                        try {
+                            final long start = System.nanoTime();
+                            started = starter.get();
+                            LOGGER.info("Started lazy loader {} in {}ms", loader.getClass().getName(),
+                                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                        } finally {
+                            thread.setContextClassLoader(original);
+                        }
+                        application = started;
+                    }
+                }
+            }
+            return started;
+        }
+
+        @Override
+        public <T> T instanceOf(final ClassTag<T> tag) {
+            return (T) instanceOf(tag.runtimeClass());
+        }
+
+        @Override
+        public <T> T instanceOf(final Class<T> clazz) {
+            return application().injector().instanceOf(clazz);
+        }
+
+        @Override
+        public <T> T instanceOf(final BindingKey<T> key) {
+            return application().injector().instanceOf(key);
+        }
+
+        @Override
+        public Injector asJava() {
+            return this;
+        }
+
+        @Override
+        public play.api.inject.Injector asScala() {
+            return this;
+        }
+    }
+
     private static class IoCInjector implements Injector, play.api.inject.Injector {
 
-        private final Map<ApplicationLoader, Injector> injectors;
+        private static final int MAX_MISSING_KEYS = 1024;
+
+        private final Routing<Injector> routing;
+
+        private final ClassLoader loader;
+
+        private final StartupTimeline timeline;
+
+        // the delegate which provided a key, it is the only one used for the next lookups
+        private final Map<BindingKey<?>, Injector> resolutions = new ConcurrentHashMap<>();
+
+        // keys no delegate can provide (all probes said so), bounded since qualifiers can be dynamic: the oldest is evicted
+        private final Set<BindingKey<?>> missing = Collections.newSetFromMap(Collections.synchronizedMap(
+                new LinkedHashMap<BindingKey<?>, Boolean>() {
 
-        private final Map<String, String> routing;
+                    @Override
+                    protected boolean removeEldestEntry(final Map.Entry<BindingKey<?>, Boolean> eldest) {
+                        return size() > MAX_MISSING_KEYS;
+                    }
+                }));
 
-        private IoCInjector(final Map<ApplicationLoader, Injector> injectors, final Map<String, String> routing) {
-            this.injectors = injectors;
-            this.routing = routing;
+        private final Map<Injector, InjectorProbe> probes = new ConcurrentHashMap<>();
+
+        private final LookupMetrics metrics;
+
+        private IoCInjector(final Map<ApplicationLoader, Injector> injectors, final Map<String, String> routing,
+                            final ClassLoader loader, final StartupTimeline timeline, final LookupMetrics metrics) {
+            this.routing = new Routing<>(injectors, routing);
+            this.loader = loader;
+            this.timeline = timeline;
+            this.metrics = metrics;
         }
 
         @Override
@@ -236,37 +510,85 @@ public class IoCLoader implements ApplicationLoader {
 
         @Override
         public <T> T instanceOf(final BindingKey<T> key) {
-            final Collection<RuntimeException> errors = new ArrayList<>();
-            for (final Injector delegate : sortInjectorsFor(key.clazz().getName())) {
+            if (metrics == null) {
+                return lookup(key, null);
+            }
+            final Trace trace = new Trace();
+            final long start = System.nanoTime();
+            boolean failed = true;
+            try {
+                final T instance = lookup(key, trace);
+                failed = false;
+                return instance;
+            } finally {
+                metrics.record(key, System.nanoTime() - start, trace.fallThroughs, trace.swallowed, failed);
+            }
+        }
+
+        private <T> T lookup(final BindingKey<T> key, final Trace trace) {
+            if (key.clazz() == StartupTimeline.class && key.qualifier().isEmpty()) { // owned by the facade, not a delegate
+                return key.clazz().cast(timeline);
+            }
+            final Injector resolved = resolutions.get(key);
+            if (resolved != null) {
+                try {
+                    return resolved.instanceOf(key);
+                } catch (final RuntimeException re) { // creation error, resolve it again next time
+                    resolutions.remove(key, resolved);
+                    throw re;
+                }
+            }
+            if (missing.contains(key)) {
+                throw new IllegalArgumentException("No injector can provide " + key);
+            }
+
+            Collection<RuntimeException> errors = null;
+            int skipped = 0;
+            for (final Injector delegate : routing.route(key.clazz().getName())) {
+                if (probe(delegate).canProvide(key) == InjectorProbe.Result.NO) {
+                    skipped++;
+                    continue;
+                }
                 try {
-                    return delegate.instanceOf(key);
+                    final T instance = delegate.instanceOf(key);
+                    resolutions.put(key, delegate);
+                    if (trace != null) {
+                        trace.fill(skipped, errors);
+                        if (trace.fallThroughs > 0) {
+                            LOGGER.debug("{} provided by the delegate #{} ({} exceptions swallowed)",
+                                    key, trace.fallThroughs + 1, trace.swallowed);
+                        }
+                    }
+                    return instance;
                 } catch (final RuntimeException re) {
+                    if (errors == null) {
+                        errors = new ArrayList<>();
+                    }
                     errors.add(re);
                 }
             }
+            if (trace != null) { // all delegates skipped or failed
+                trace.fill(skipped, errors);
+            }
+            if (errors == null) {
+                missing.add(key);
+                throw new IllegalArgumentException("No injector can provide " + key);
+            }
             final RuntimeException error = errors.iterator().next();
             errors.stream().skip(1).forEach(error::addSuppressed);
             throw error;
         }
 
-        private Collection<Injector> sortInjectorsFor(final String name) {
-            if (routing.isEmpty()) {
-                return injectors.values();
+        // probing looks the container up so a lazy delegate is only probed once started, until then it is tried
+        private InjectorProbe probe(final Injector delegate) {
+            final InjectorProbe probe = probes.get(delegate);
+            if (probe != null) {
+                return probe;
             }
-            final Optional<Collection<Injector>> sortedInjectors = routing.entrySet().stream()
-                    .filter(e -> name.startsWith(e.getKey())).findFirst().map(Map.Entry::getValue)
-                    .map(preference -> this.injectors.entrySet().stream().sorted((e1, e2) -> {
-                        final String e1Clazz = e1.getKey().getClass().getSimpleName();
-                        if (e1Clazz.toLowerCase(ROOT).contains(preference)) {
-                            return -1;
-                        }
-                        final String e2Clazz = e2.getKey().getClass().getSimpleName();
-                        if (e2Clazz.toLowerCase(ROOT).contains(preference)) {
-                            return 1;
-                        }
-                        return e1Clazz.compareTo(e2Clazz);
-                    }).map(Map.Entry::getValue).collect(toList()));
-            return sortedInjectors.orElseGet(this.injectors::values);
+            if (LazyInjector.class.isInstance(delegate) && !LazyInjector.class.cast(delegate).isStarted()) {
+                return InjectorProbe.UNKNOWN;
+            }
+            return probes.computeIfAbsent(delegate, it -> InjectorProbe.of(it, loader));
         }
 
         @Override
@@ -279,4 +601,16 @@ public class IoCLoader implements ApplicationLoader {
             return this;
         }
     }
+
+    private static class Trace {
+
+        private int fallThroughs;
+
+        private int swallowed;
+
+        private void fill(final int skipped, final Collection<RuntimeException> errors) {
+            swallowed = errors == null ? 0 : errors.size();
+            fallThroughs = skipped + swallowed;
+        }
+    }
 }
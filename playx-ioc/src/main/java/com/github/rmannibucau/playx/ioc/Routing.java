@@ -0,0 +1,56 @@
+package com.github.rmannibucau.playx.ioc;
+
+import static java.util.Locale.ROOT;
+import static java.util.stream.Collectors.toList;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+// playx.ioc.routing compiled once in a prefix trie: the longest prefix matching the class name wins,
+// it gives the injectors in lookup order: the preferred ones then the others, both in the loaders order
+class Routing<T> {
+
+    private final Node<T> root = new Node<>();
+
+    Routing(final Map<?, T> injectors, final Map<String, String> routing) {
+        root.injectors = new ArrayList<>(injectors.values());
+        routing.forEach((prefix, preference) -> {
+            final String lowerPreference = preference.trim().toLowerCase(ROOT);
+            final List<T> preferred = new ArrayList<>();
+            final List<T> others = new ArrayList<>();
+            injectors.forEach((loader, injector) -> (loader.getClass().getSimpleName().toLowerCase(ROOT)
+                    .contains(lowerPreference) ? preferred : others).add(injector));
+            if (preferred.isEmpty()) {
+                throw new IllegalArgumentException("No loader matching '" + preference + "' for routing '" + prefix + "'");
+            }
+            Node<T> node = root;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = node.children.computeIfAbsent(prefix.charAt(i), k -> new Node<>());
+            }
+            node.injectors = Stream.concat(preferred.stream(), others.stream()).collect(toList());
+        });
+    }
+
+    Collection<T> route(final String name) {
+        Node<T> node = root;
+        Collection<T> injectors = root.injectors;
+        for (int i = 0; i < name.length() && node != null; i++) {
+            node = node.children.get(name.charAt(i));
+            if (node != null && node.injectors != null) {
+                injectors = node.injectors;
+            }
+        }
+        return injectors;
+    }
+
+    private static class Node<T> {
+
+        private final Map<Character, Node<T>> children = new HashMap<>();
+
+        private Collection<T> injectors;
+    }
+}
@@ -1,18 +1,42 @@
 package com.github.rmannibucau.playx.ioc;
 
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static java.util.stream.Collectors.toList;
 import static org.hamcrest.CoreMatchers.instanceOf;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 import static play.test.Helpers.running;
 
 import java.io.File;
+import java.lang.management.ManagementFactory;
 import java.lang.reflect.Field;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.stream.Stream;
 
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.junit.rules.TestRule;
@@ -26,6 +50,8 @@ import play.api.inject.BindingKey;
 import play.inject.Injector;
 import play.inject.guice.GuiceApplicationLoader;
 
+import com.github.rmannibucau.playx.core.StartupTimeline;
+import com.google.inject.Guice;
 import com.typesafe.config.Config;
 
 public class IoCTest {
@@ -79,12 +105,278 @@ public class IoCTest {
         checkInjector(injector);
     }
 
+    @Test
+    public void startupTimeline() {
+        final StartupTimeline timeline = app.injector().instanceOf(StartupTimeline.class);
+        assertEquals(asList(GuiceApplicationLoader.class.getName(), CustomLoader.class.getName()), phases(timeline));
+        assertTrue(timeline.getPendingPhases().isEmpty());
+        assertTrue(timeline.toString(), timeline.toString().startsWith("IoCLoader started in "));
+    }
+
+    @Test
+    public void cachedResolution() {
+        final ApplicationLoader.Context context = ApplicationLoader.create(
+                new Environment(new File("target/play"), Thread.currentThread().getContextClassLoader(), Mode.TEST),
+                singletonMap("playx.ioc.loaders", asList(
+                        GuiceApplicationLoader.class.getName(), FirstLoader.class.getName(), SecondLoader.class.getName())));
+        final Application counted = new IoCLoader().load(context);
+        CountingLoader.LOOKUPS.clear();
+        running(counted, () -> {
+            final Injector injector = counted.injector();
+
+            // guice and first fail, second provides it then second is used directly
+            for (int i = 0; i < 3; i++) {
+                assertNotNull(injector.instanceOf(FallbackService.class));
+            }
+            assertEquals(1, CountingLoader.lookups(FirstLoader.class, FallbackService.class));
+            assertEquals(3, CountingLoader.lookups(SecondLoader.class, FallbackService.class));
+
+            // first is not bound and can't create an interface: its probe says NO, it is never called
+            for (int i = 0; i < 3; i++) {
+                assertNotNull(injector.instanceOf(CountedApi.class));
+            }
+            assertEquals(0, CountingLoader.lookups(FirstLoader.class, CountedApi.class));
+            assertEquals(3, CountingLoader.lookups(SecondLoader.class, CountedApi.class));
+
+            // all probes say NO: negative cache, the next lookups fail without asking the delegates
+            for (int i = 0; i < 2; i++) {
+                try {
+                    injector.instanceOf(SpecificApi.class);
+                    fail();
+                } catch (final IllegalArgumentException iae) {
+                    assertEquals("No injector can provide " + BindingKey.apply(SpecificApi.class), iae.getMessage());
+                }
+                assertTrue(Set.class.cast(getField(injector, "missing")).contains(BindingKey.apply(SpecificApi.class)));
+            }
+            assertEquals(0, CountingLoader.lookups(FirstLoader.class, SpecificApi.class));
+            assertEquals(0, CountingLoader.lookups(SecondLoader.class, SpecificApi.class));
+        });
+    }
+
+    @Test
+    public void lookupMetrics() {
+        final ApplicationLoader.Context context = ApplicationLoader.create(
+                new Environment(new File("target/play"), Thread.currentThread().getContextClassLoader(), Mode.TEST),
+                new HashMap<String, Object>() {
+
+                    {
+                        put("playx.ioc.loaders", asList(
+                                GuiceApplicationLoader.class.getName(), FirstLoader.class.getName(), SecondLoader.class.getName()));
+                        put("playx.ioc.metrics.enabled", true);
+                    }
+                });
+        final Application measured = new IoCLoader().load(context);
+        running(measured, () -> {
+            final Injector injector = measured.injector();
+            for (int i = 0; i < 3; i++) { // guice and first fail then second is used directly
+                injector.instanceOf(FallbackService.class);
+            }
+            injector.instanceOf(CountedApi.class); // guice and first probes say NO
+            for (int i = 0; i < 2; i++) { // all probes say NO then negative cache
+                try {
+                    injector.instanceOf(SpecificApi.class);
+                    fail();
+                } catch (final IllegalArgumentException iae) {
+                    // expected
+                }
+            }
+            try { // all fail
+                injector.instanceOf(UnknownService.class);
+                fail();
+            } catch (final RuntimeException re) {
+                assertEquals(2, re.getSuppressed().length);
+            }
+
+            try {
+                final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+                final ObjectName name = new ObjectName("com.github.rmannibucau.playx:type=LookupMetrics,injector=IoC");
+                assertEquals(7L, server.getAttribute(name, "Lookups"));
+                assertEquals(10L, server.getAttribute(name, "FallThroughs"));
+                assertEquals(5L, server.getAttribute(name, "SwallowedExceptions"));
+                assertEquals(3L, server.getAttribute(name, "Failures"));
+                final String[] hottest = String[].class.cast(server.getAttribute(name, "HottestKeys"));
+                assertKey(hottest, FallbackService.class, "lookups=3, fallThroughs=2, swallowed=2, failures=0");
+                assertKey(hottest, CountedApi.class, "lookups=1, fallThroughs=2, swallowed=0, failures=0");
+                assertKey(hottest, SpecificApi.class, "lookups=2, fallThroughs=3, swallowed=0, failures=2");
+                assertKey(hottest, UnknownService.class, "lookups=1, fallThroughs=3, swallowed=3, failures=1");
+            } catch (final JMException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    @Test
+    public void routing() {
+        final Map<ApplicationLoader, String> injectors = new LinkedHashMap<>();
+        injectors.put(new GuiceApplicationLoader(), "guice");
+        injectors.put(new CustomLoader(), "custom");
+        final Map<String, String> table = new HashMap<>();
+        table.put("com.app", "custom");
+        table.put("com.app.guiced", "guice");
+        final Routing<String> routing = new Routing<>(injectors, table);
+        assertEquals(asList("guice", "custom"), routing.route("org.Foo"));
+        assertEquals(asList("custom", "guice"), routing.route("com.app.Foo"));
+        assertEquals(asList("guice", "custom"), routing.route("com.app.guiced.Foo"));
+        assertEquals(asList("guice", "custom"), routing.route("com.ap"));
+    }
+
+    @Test
+    public void lazyLoader() {
+        final ApplicationLoader.Context context = ApplicationLoader.create(
+                new Environment(new File("target/play"), Thread.currentThread().getContextClassLoader(), Mode.TEST),
+                new HashMap<String, Object>() {
+
+                    {
+                        put("playx.ioc.loaders", asList(
+                                GuiceApplicationLoader.class.getName(), CustomLoader.class.getName(), LazyLoader.class.getName()));
+                        put("playx.ioc.lazy", singletonList(LazyLoader.class.getName()));
+                        put("playx.ioc.routing", singletonList(singletonMap('"' + LazyApi.class.getName() + '"', "lazy")));
+                    }
+                });
+        LazyLoader.STARTS.set(0);
+        final Application lazy = new IoCLoader().load(context);
+        running(lazy, () -> {
+            final StartupTimeline timeline = lazy.injector().instanceOf(StartupTimeline.class);
+            assertEquals(asList(GuiceApplicationLoader.class.getName(), CustomLoader.class.getName()), phases(timeline));
+            assertEquals(singletonList(LazyLoader.class.getName()), timeline.getPendingPhases());
+            assertEquals(0, LazyLoader.STARTS.get());
+
+            final ExecutorService pool = Executors.newFixedThreadPool(4);
+            try {
+                final Collection<Future<LazyApi>> lookups = new ArrayList<>();
+                for (int i = 0; i < 8; i++) {
+                    lookups.add(pool.submit(() -> lazy.injector().instanceOf(LazyApi.class)));
+                }
+                for (final Future<LazyApi> lookup : lookups) {
+                    assertNotNull(lookup.get());
+                }
+            } catch (final InterruptedException | ExecutionException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                pool.shutdownNow();
+            }
+            assertEquals(1, LazyLoader.STARTS.get());
+            assertEquals(asList(GuiceApplicationLoader.class.getName(), CustomLoader.class.getName(), LazyLoader.class.getName()),
+                    phases(timeline));
+            assertTrue(timeline.getPendingPhases().isEmpty());
+        });
+    }
+
+    @Test
+    public void lazyLoaderProbe() {
+        final ApplicationLoader.Context context = ApplicationLoader.create(
+                new Environment(new File("target/play"), Thread.currentThread().getContextClassLoader(), Mode.TEST),
+                new HashMap<String, Object>() {
+
+                    {
+                        put("playx.ioc.loaders", asList(GuiceApplicationLoader.class.getName(), FlakyLazyLoader.class.getName()));
+                        put("playx.ioc.lazy", singletonList(FlakyLazyLoader.class.getName()));
+                    }
+                });
+        final Application lazy = new IoCLoader().load(context);
+        FlakyLazyLoader.STARTS.set(0);
+        CountingLoader.LOOKUPS.clear();
+        running(lazy, () -> {
+            final Injector injector = lazy.injector();
+
+            // not probed before being started: the start failure is the lookup one and it is not started twice
+            try {
+                injector.instanceOf(LazyApi.class);
+                fail();
+            } catch (final IllegalStateException ise) {
+                assertEquals("failing on purpose", ise.getMessage());
+            }
+            assertEquals(1, FlakyLazyLoader.STARTS.get());
+
+            assertNotNull(injector.instanceOf(LazyApi.class));
+            assertEquals(2, FlakyLazyLoader.STARTS.get());
+
+            // started so probed now: it can't provide an unbound interface, it is not called
+            try {
+                injector.instanceOf(SpecificApi.class);
+                fail();
+            } catch (final IllegalArgumentException iae) {
+                assertEquals("No injector can provide " + BindingKey.apply(SpecificApi.class), iae.getMessage());
+            }
+            assertEquals(0, CountingLoader.lookups(FlakyLazyLoader.class, SpecificApi.class));
+            assertEquals(2, FlakyLazyLoader.STARTS.get());
+        });
+    }
+
+    @Test
+    public void aggregatedFailures() {
+        final ApplicationLoader.Context context = ApplicationLoader.create(
+                new Environment(new File("target/play"), Thread.currentThread().getContextClassLoader(), Mode.TEST),
+                new HashMap<String, Object>() {
+
+                    {
+                        put("playx.ioc.loaders", asList(FailingLoader.class.getName(), FailingLoader.class.getName()));
+                        put("playx.ioc.parallelism", 2);
+                    }
+                });
+        try {
+            new IoCLoader().load(context);
+            fail();
+        } catch (final IllegalStateException ise) {
+            assertEquals(2, ise.getSuppressed().length);
+        }
+    }
+
+    @Test
+    public void concurrentLoading() {
+        final ApplicationLoader.Context context = ApplicationLoader.create(
+                new Environment(new File("target/play"), Thread.currentThread().getContextClassLoader(), Mode.TEST),
+                new HashMap<String, Object>() {
+
+                    {
+                        put("playx.ioc.loaders", asList(GuiceApplicationLoader.class.getName(), CustomLoader.class.getName()));
+                        put("playx.ioc.parallelism", 2);
+                    }
+                });
+        final Application concurrent = new IoCLoader().load(context);
+        running(concurrent, () -> {
+            checkInjector(concurrent.injector());
+            assertEquals(asList(GuiceApplicationLoader.class.getName(), CustomLoader.class.getName()),
+                    phases(concurrent.injector().instanceOf(StartupTimeline.class)));
+        });
+    }
+
+    @Test
+    public void sequentialFailureStopsLoadedApplications() {
+        final ApplicationLoader.Context context = ApplicationLoader.create(
+                new Environment(new File("target/play"), Thread.currentThread().getContextClassLoader(), Mode.TEST),
+                new HashMap<String, Object>() {
+
+                    {
+                        put("playx.ioc.loaders", asList(StoppableLoader.class.getName(), FailingLoader.class.getName()));
+                        put("playx.ioc.parallelism", 1);
+                    }
+                });
+        StoppableLoader.STOPS.set(0);
+        try {
+            new IoCLoader().load(context);
+            fail();
+        } catch (final IllegalArgumentException iae) {
+            assertEquals("failing on purpose", iae.getMessage());
+        }
+        assertEquals(1, StoppableLoader.STOPS.get());
+    }
+
     private void checkInjector(final Injector injector) {
         Stream.of(Config.class, Application.class, play.api.Application.class,
                 SpecificApi.class)
               .forEach(clazz -> assertNotNull(clazz.getName(), injector.instanceOf(clazz)));
     }
 
+    private static List<String> phases(final StartupTimeline timeline) {
+        return timeline.getPhases().stream().map(StartupTimeline.Phase::getName).collect(toList());
+    }
+
+    private static void assertKey(final String[] hottest, final Class<?> key, final String counters) {
+        assertTrue(asList(hottest).toString(), Stream.of(hottest)
+                .anyMatch(it -> it.startsWith(key.getName() + ": " + counters + ", p50<=")));
+    }
+
     private static Object getField(final Object root, final String field) {
         Class<?> clazz = root.getClass();
         while (clazz != null) {
@@ -101,18 +393,158 @@ public class IoCTest {
 
     public interface SpecificApi {}
 
+    public interface LazyApi {}
+
+    public static class LazyLoader extends CustomLoader {
+
+        private static final AtomicInteger STARTS = new AtomicInteger();
+
+        @Override
+        public Application load(final Context context) {
+            STARTS.incrementAndGet();
+            return super.load(context);
+        }
+
+        @Override
+        protected Object provide(final Class<?> clazz) {
+            return clazz == LazyApi.class ? new LazyApi() {} : null;
+        }
+    }
+
+    public interface CountedApi {}
+
+    // guice can't create it (no default constructor), only SecondLoader provides it
+    public static class FallbackService {
+
+        public FallbackService(final String name) {
+            // no-op
+        }
+    }
+
+    // nobody provides it
+    public static class UnknownService {
+
+        public UnknownService(final String name) {
+            // no-op
+        }
+    }
+
+    // counts the lookups reaching it, exposes a guice injector with its instances so it gets a guice probe
+    public static class CountingLoader extends CustomLoader {
+
+        private static final Map<String, AtomicInteger> LOOKUPS = new ConcurrentHashMap<>();
+
+        private final Map<Class<?>, Object> instances;
+
+        private volatile com.google.inject.Injector guice;
+
+        protected CountingLoader(final Map<Class<?>, Object> instances) {
+            this.instances = instances;
+        }
+
+        private static int lookups(final Class<? extends CountingLoader> loader, final Class<?> type) {
+            final AtomicInteger counter = LOOKUPS.get(loader.getSimpleName() + ':' + type.getName());
+            return counter == null ? 0 : counter.get();
+        }
+
+        @Override
+        protected Object provide(final Class<?> clazz) {
+            if (clazz == com.google.inject.Injector.class) {
+                if (guice == null) {
+                    guice = Guice.createInjector(binder -> instances.forEach((type, instance) -> binder
+                            .bind(Class.class.cast(type)).toInstance(instance)));
+                }
+                return guice;
+            }
+            LOOKUPS.computeIfAbsent(getClass().getSimpleName() + ':' + clazz.getName(), k -> new AtomicInteger())
+                    .incrementAndGet();
+            final Object instance = instances.get(clazz);
+            if (instance == null) {
+                throw new IllegalArgumentException("No " + clazz);
+            }
+            return instance;
+        }
+    }
+
+    public static class FirstLoader extends CountingLoader {
+
+        public FirstLoader() {
+            super(emptyMap());
+        }
+    }
+
+    public static class SecondLoader extends CountingLoader {
+
+        public SecondLoader() {
+            super(new HashMap<Class<?>, Object>() {
+
+                {
+                    put(CountedApi.class, new CountedApi() {});
+                    put(FallbackService.class, new FallbackService("second"));
+                }
+            });
+        }
+    }
+
+    // lazy, its first start fails
+    public static class FlakyLazyLoader extends CountingLoader {
+
+        private static final AtomicInteger STARTS = new AtomicInteger();
+
+        public FlakyLazyLoader() {
+            super(singletonMap(LazyApi.class, new LazyApi() {}));
+        }
+
+        @Override
+        public Application load(final Context context) {
+            if (STARTS.incrementAndGet() == 1) {
+                throw new IllegalStateException("failing on purpose");
+            }
+            return super.load(context);
+        }
+    }
+
+    public static class StoppableLoader extends CustomLoader {
+
+        private static final AtomicInteger STOPS = new AtomicInteger();
+
+        @Override
+        protected play.api.Application scala() {
+            return play.api.Application.class.cast(Proxy.newProxyInstance(StoppableLoader.class.getClassLoader(),
+                    new Class<?>[] { play.api.Application.class }, (proxy, method, args) -> {
+                        switch (method.getName()) {
+                        case "stop":
+                            STOPS.incrementAndGet();
+                            return scala.concurrent.Future.successful(null);
+                        case "toString":
+                            return "StoppableApplication";
+                        default:
+                            throw new UnsupportedOperationException(method.getName());
+                        }
+                    }));
+        }
+    }
+
+    public static class FailingLoader implements ApplicationLoader {
+        @Override
+        public Application load(final Context context) {
+            throw new IllegalArgumentException("failing on purpose");
+        }
+    }
+
     public static class CustomLoader implements ApplicationLoader {
         @Override
         public Application load(final Context context) {
+            final play.api.Application scala = scala();
             return new Application() {
                 @Override
                 public play.api.Application getWrappedApplication() {
-                    return null;
+                    return scala;
                 }
 
                 @Override
                 public play.api.Application asScala() {
-                    return null;
+                    return scala;
                 }
 
                 @Override
@@ -130,10 +562,7 @@ public class IoCTest {
                     return new Injector() {
                         @Override
                         public <T> T instanceOf(final Class<T> clazz) {
-                            if (clazz == SpecificApi.class) {
-                                return clazz.cast(new SpecificApi() {});
-                            }
-                            return null;
+                            return clazz.cast(provide(clazz));
                         }
 
                         @Override
@@ -149,5 +578,13 @@ public class IoCTest {
                 }
             };
         }
+
+        protected Object provide(final Class<?> clazz) {
+            return clazz == SpecificApi.class ? new SpecificApi() {} : null;
+        }
+
+        protected play.api.Application scala() {
+            return null;
+        }
     }
 }
@@ -0,0 +1,27 @@
+package com.github.rmannibucau.playx.microprofile.config;
+
+import java.util.Set;
+
+// CDI event fired when a watched configuration file changed (playx.config.watch.enabled),
+// the keys are the added, removed or modified property names, the new values are already visible
+public class ConfigChanged {
+
+    private final Set<String> keys;
+
+    ConfigChanged(final Set<String> keys) {
+        this.keys = keys;
+    }
+
+    public Set<String> getKeys() {
+        return keys;
+    }
+
+    public boolean hasChanged(final String prefix) {
+        return keys.stream().anyMatch(it -> it.startsWith(prefix));
+    }
+
+    @Override
+    public String toString() {
+        return "ConfigChanged" + keys;
+    }
+}
@@ -0,0 +1,99 @@
+package com.github.rmannibucau.playx.microprofile.config;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.util.stream.Collectors.toSet;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// watches the configuration files directories and calls the reload callback once a burst of changes is over
+class ConfigWatcher implements Runnable, AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConfigWatcher.class);
+
+    private final Set<Path> files;
+
+    private final long debounce;
+
+    private final Runnable reload;
+
+    private final WatchService watchService;
+
+    private final Thread thread;
+
+    ConfigWatcher(final Collection<Path> files, final long debounce, final Runnable reload) throws IOException {
+        this.files = files.stream().map(it -> it.toAbsolutePath().normalize()).collect(toSet());
+        this.debounce = debounce;
+        this.reload = reload;
+        this.watchService = FileSystems.getDefault().newWatchService();
+        for (final Path directory : this.files.stream().map(Path::getParent).collect(toSet())) {
+            directory.register(watchService, ENTRY_CREATE, ENTRY_MODIFY);
+        }
+        this.thread = new Thread(this, "playx-config-watcher");
+        this.thread.setDaemon(true);
+        this.thread.setContextClassLoader(Thread.currentThread().getContextClassLoader());
+    }
+
+    void start() {
+        LOGGER.info("Watching {}", files);
+        thread.start();
+    }
+
+    @Override
+    public void run() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                if (!isConfigurationChange(watchService.take())) {
+                    continue;
+                }
+                // editors write in several steps, wait for the last one
+                WatchKey next;
+                while ((next = watchService.poll(debounce, TimeUnit.MILLISECONDS)) != null) {
+                    isConfigurationChange(next);
+                }
+                try {
+                    reload.run();
+                } catch (final RuntimeException re) {
+                    LOGGER.warn("Can't reload the configuration, keeping the current one", re);
+                }
+            }
+        } catch (final InterruptedException | ClosedWatchServiceException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void close() {
+        thread.interrupt();
+        try {
+            watchService.close();
+        } catch (final IOException e) {
+            // no-op
+        }
+    }
+
+    private boolean isConfigurationChange(final WatchKey key) {
+        final Path directory = Path.class.cast(key.watchable());
+        boolean changed = false;
+        for (final WatchEvent<?> event : key.pollEvents()) {
+            if (Path.class.isInstance(event.context())
+                    && files.contains(directory.resolve(Path.class.cast(event.context())).toAbsolutePath().normalize())) {
+                changed = true;
+            }
+        }
+        key.reset();
+        return changed;
+    }
+}
@@ -0,0 +1,102 @@
+package com.github.rmannibucau.playx.microprofile.config;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+// immutable sorted property names, a prefix query is a binary search returning a view on the same array
+public final class PropertyIndex extends AbstractSet<String> {
+
+    private final String[] keys;
+
+    private final int from;
+
+    private final int to;
+
+    PropertyIndex(final Collection<String> names) {
+        this(names.stream().distinct().sorted().toArray(String[]::new));
+    }
+
+    private PropertyIndex(final String[] keys) {
+        this(keys, 0, keys.length);
+    }
+
+    private PropertyIndex(final String[] keys, final int from, final int to) {
+        this.keys = keys;
+        this.from = from;
+        this.to = to;
+    }
+
+    // the names starting with this prefix (a.b. for the children of a.b for instance)
+    public PropertyIndex withPrefix(final String prefix) {
+        final int start = lowerBound(prefix);
+        int low = start;
+        int high = to;
+        while (low < high) { // first name after the prefix block
+            final int middle = (low + high) >>> 1;
+            if (keys[middle].startsWith(prefix)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return new PropertyIndex(keys, start, low);
+    }
+
+    @Override
+    public boolean contains(final Object o) {
+        if (!String.class.isInstance(o)) {
+            return false;
+        }
+        final int index = lowerBound(String.class.cast(o));
+        return index < to && keys[index].equals(o);
+    }
+
+    @Override
+    public int size() {
+        return to - from;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return new Iterator<String>() {
+
+            private int current = from;
+
+            @Override
+            public boolean hasNext() {
+                return current < to;
+            }
+
+            @Override
+            public String next() {
+                if (current >= to) {
+                    throw new NoSuchElementException();
+                }
+                return keys[current++];
+            }
+        };
+    }
+
+    @Override
+    public Object[] toArray() {
+        return Arrays.copyOfRange(keys, from, to, Object[].class);
+    }
+
+    // first index in [from, to) of a name >= value
+    private int lowerBound(final String value) {
+        int low = from;
+        int high = to;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (keys[middle].compareTo(value) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -1,79 +1,378 @@
 package com.github.rmannibucau.playx.microprofile.config;
 
+import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.unmodifiableMap;
+import static java.util.Collections.unmodifiableSet;
 import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 import javax.enterprise.inject.Instance;
+import javax.enterprise.inject.spi.BeanManager;
 import javax.enterprise.inject.spi.CDI;
 
 import org.eclipse.microprofile.config.spi.ConfigSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import com.typesafe.config.Config;
+import com.typesafe.config.ConfigException;
+import com.typesafe.config.ConfigFactory;
 import com.typesafe.config.ConfigList;
 import com.typesafe.config.ConfigObject;
 import com.typesafe.config.ConfigValue;
+import com.typesafe.config.ConfigValueType;
 
 import play.api.Environment;
+import play.inject.ApplicationLifecycle;
 
 public class TypesafeConfigConfigSource implements ConfigSource {
 
-    private volatile Map<String, String> configuration;
+    private static final PropertyIndex EMPTY_INDEX = new PropertyIndex(emptyList());
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(TypesafeConfigConfigSource.class);
+
+    // one per application (bean manager), its sources share the snapshot, the file watcher and the ConfigChanged event
+    private static final Map<BeanManager, Watch> WATCHES = new ConcurrentHashMap<>();
+
+    // immutable, replaced as a whole on reload so readers never lock
+    private volatile Snapshot snapshot;
+
+    private volatile Watch watch;
 
     @Override
     public Map<String, String> getProperties() {
-        if (configuration == null) {
-            synchronized (this) {
-                if (configuration == null) {
-                    final Map<String, String> aggregator = new HashMap<>();
+        final Snapshot current = snapshot();
+        return current == null ? emptyMap() : current.properties();
+    }
+
+    // sorted names, use getPropertyNames(prefix) to browse a subset
+    @Override
+    public PropertyIndex getPropertyNames() {
+        final Snapshot current = snapshot();
+        return current == null ? EMPTY_INDEX : current.index();
+    }
+
+    public PropertyIndex getPropertyNames(final String prefix) {
+        return getPropertyNames().withPrefix(prefix);
+    }
+
+    @Override
+    public String getValue(final String propertyName) {
+        final Snapshot current = snapshot();
+        return current == null ? null : current.get(propertyName);
+    }
 
+    @Override
+    public String getName() {
+        return "cdi-typesafe-config";
+    }
+
+    // looked up once the container is ready, until then there is nothing to read nor to cache
+    private Snapshot snapshot() {
+        if (watch != null) {
+            return watch.snapshot;
+        }
+        if (snapshot == null) {
+            synchronized (this) {
+                if (watch == null && snapshot == null) {
+                    final CDI<Object> current;
+                    final Config config;
+                    final Environment environment;
                     try {
-                        final CDI<Object> current = CDI.current();
+                        current = CDI.current();
                         final Instance<Config> configs = current.select(Config.class);
-                        if (configs.isResolvable()) {
-                            final Config config = configs.get();
-                            visit(aggregator, config, "");
-                        }
-
-                        final Instance<Environment> environment = current.select(Environment.class);
-                        if (environment.isResolvable()) {
-                            final Environment env = environment.get();
-                            aggregator.put("playx.application.mode", env.mode().asJava().name());
-                            aggregator.put("playx.application.home", env.rootPath().getAbsolutePath());
-                        }
+                        final Instance<Environment> environments = current.select(Environment.class);
+                        config = configs.isResolvable() ? configs.get() : null;
+                        environment = environments.isResolvable() ? environments.get() : null;
                     } catch (final RuntimeException re) {
-                        return emptyMap(); // server not yet started or ready, retry later
+                        return null; // server not yet started or ready, retry later
+                    }
+                    if (isWatched(config)) {
+                        watch = WATCHES.computeIfAbsent(current.getBeanManager(), bm -> Watch.start(current, config, environment));
+                    }
+                    if (watch == null) {
+                        snapshot = new Snapshot(config, environment);
                     }
-
-                    configuration = aggregator;
                 }
             }
         }
-        return configuration;
+        return watch != null ? watch.snapshot : snapshot;
     }
 
-    @Override
-    public String getValue(final String propertyName) {
-        return getProperties().get(propertyName);
+    private static boolean isWatched(final Config config) {
+        return config != null && config.hasPath("playx.config.watch.enabled") && config.getBoolean("playx.config.watch.enabled");
     }
 
-    @Override
-    public String getName() {
-        return "cdi-typesafe-config";
+    // playx.config.watch.enabled: reload on change of the configuration files and fire ConfigChanged
+    private static final class Watch implements AutoCloseable {
+
+        private final BeanManager beanManager;
+
+        private final Environment environment;
+
+        private final ClassLoader loader;
+
+        private final Collection<Path> files;
+
+        // what the startup configuration has on top of the files, reference.conf and the system properties:
+        // the settings passed programmatically to the application loader
+        private final Config overrides;
+
+        private final ConfigWatcher watcher;
+
+        private volatile Snapshot snapshot;
+
+        private Watch(final BeanManager beanManager, final Config config, final Environment environment,
+                final Collection<Path> files) throws IOException {
+            this.beanManager = beanManager;
+            this.environment = environment;
+            this.loader = environment != null ?
+                    environment.classLoader() : Thread.currentThread().getContextClassLoader();
+            this.files = files;
+            this.overrides = overrides(config);
+            this.snapshot = new Snapshot(config, environment);
+            this.watcher = new ConfigWatcher(files, config.hasPath("playx.config.watch.debounce") ?
+                    config.getDuration("playx.config.watch.debounce", TimeUnit.MILLISECONDS) : 500, this::reload);
+        }
+
+        // null when there is nothing to watch, the sources then keep the startup configuration
+        private static Watch start(final CDI<Object> current, final Config config, final Environment environment) {
+            final Collection<Path> files = config.hasPath("playx.config.watch.files") ?
+                    config.getStringList("playx.config.watch.files").stream().map(Paths::get).collect(toList()) :
+                    defaultFiles(environment);
+            if (files.isEmpty()) {
+                LOGGER.warn("No configuration file to watch, set playx.config.watch.files");
+                return null;
+            }
+            final Watch watch;
+            try {
+                watch = new Watch(current.getBeanManager(), config, environment, files);
+            } catch (final IOException e) {
+                LOGGER.warn("Can't watch {}", files, e);
+                return null;
+            }
+            final Instance<ApplicationLifecycle> lifecycles = current.select(ApplicationLifecycle.class);
+            if (lifecycles.isResolvable()) { // dev mode reloads stop the application, not the JVM
+                lifecycles.get().addStopHook(() -> CompletableFuture.runAsync(watch::close, Runnable::run));
+            }
+            watch.watcher.start();
+            return watch;
+        }
+
+        // -Dconfig.file or the application.conf of the application when it is a file (dev mode, exploded distribution)
+        private static Collection<Path> defaultFiles(final Environment environment) {
+            final String file = System.getProperty("config.file");
+            if (file != null) {
+                return singletonList(Paths.get(file));
+            }
+            final ClassLoader loader = environment != null ?
+                    environment.classLoader() : Thread.currentThread().getContextClassLoader();
+            final URL resource = loader.getResource(System.getProperty("config.resource", "application.conf"));
+            if (resource != null && "file".equals(resource.getProtocol())) {
+                try {
+                    return singletonList(Paths.get(resource.toURI()));
+                } catch (final URISyntaxException e) {
+                    // no-op
+                }
+            }
+            return emptyList();
+        }
+
+        private Config overrides(final Config config) {
+            final Config loaded = load(ConfigFactory.empty());
+            Config overrides = ConfigFactory.empty();
+            for (final Map.Entry<String, ConfigValue> entry : config.entrySet()) {
+                if (!loaded.hasPath(entry.getKey())
+                        || !loaded.getValue(entry.getKey()).unwrapped().equals(entry.getValue().unwrapped())) {
+                    overrides = overrides.withValue(entry.getKey(), entry.getValue());
+                }
+            }
+            return overrides;
+        }
+
+        // system properties > programmatic settings > files (the first one wins) > reference.conf
+        private Config load(final Config overrides) {
+            final Config files = this.files.stream()
+                    .map(it -> ConfigFactory.parseFile(it.toFile()))
+                    .reduce(ConfigFactory.empty(), Config::withFallback);
+            return ConfigFactory.defaultOverrides(loader)
+                    .withFallback(overrides)
+                    .withFallback(files)
+                    .withFallback(ConfigFactory.defaultReference(loader))
+                    .resolve();
+        }
+
+        // reparse the files, diff the flattened keys, swap the snapshot then notify
+        private void reload() {
+            final Snapshot previous = snapshot;
+            ConfigFactory.invalidateCaches();
+            final Snapshot next = new Snapshot(load(overrides), environment);
+            final Map<String, String> oldValues = previous.properties();
+            final Map<String, String> newValues = next.properties();
+            final Set<String> changed = new TreeSet<>();
+            newValues.forEach((key, value) -> {
+                if (!value.equals(oldValues.get(key))) {
+                    changed.add(key);
+                }
+            });
+            oldValues.keySet().stream().filter(it -> !newValues.containsKey(it)).forEach(changed::add);
+            if (changed.isEmpty()) {
+                return;
+            }
+
+            snapshot = next;
+            LOGGER.info("Configuration reloaded, changed keys: {}", changed);
+            try {
+                beanManager.fireEvent(new ConfigChanged(unmodifiableSet(changed)));
+            } catch (final RuntimeException re) { // container stopped
+                LOGGER.debug("Can't notify the configuration change, stopping to watch", re);
+                close();
+            }
+        }
+
+        @Override
+        public void close() {
+            WATCHES.remove(beanManager, this);
+            watcher.close();
+        }
     }
 
-    private void visit(final Map<String, String> aggregator, final Config config, final String prefix) {
-        config.entrySet().forEach(e -> {
-            final ConfigValue value = e.getValue();
-            final String currentKey = prefix + (prefix.isEmpty() ? "" : ".") + e.getKey();
+    // values are resolved on demand (Config#hasPath) and memoized, missing ones included
+    private static final class Snapshot {
+
+        private final Config config;
+
+        private final Map<String, String> environment = new HashMap<>();
+
+        private final Map<String, Optional<String>> values = new ConcurrentHashMap<>();
+
+        private volatile Map<String, String> properties;
+
+        private volatile PropertyIndex index;
+
+        private Snapshot(final Config config, final Environment env) {
+            this.config = config;
+            if (env != null) {
+                environment.put("playx.application.mode", env.mode().asJava().name());
+                environment.put("playx.application.home", env.rootPath().getAbsolutePath());
+            }
+        }
+
+        private String get(final String key) {
+            Optional<String> value = values.get(key);
+            if (value == null) {
+                value = values.computeIfAbsent(key, this::resolve);
+            }
+            return value.orElse(null);
+        }
+
+        private Optional<String> resolve(final String key) {
+            final String env = environment.get(key);
+            if (env != null) {
+                return Optional.of(env);
+            }
+            if (config == null) {
+                return Optional.empty();
+            }
+            try {
+                return Optional.ofNullable(find(config.root(), key)).map(Snapshot::toString);
+            } catch (final ConfigException | NumberFormatException e) { // not a valid path expression
+                return Optional.empty();
+            }
+        }
+
+        // key is a path, lists of objects are browsed with indices (a.b[0].c)
+        private static ConfigValue find(final ConfigValue root, final String key) {
+            if (key.isEmpty()) {
+                return root;
+            }
+            if (key.charAt(0) == '[') {
+                final int end = key.indexOf(']');
+                if (end < 0 || root.valueType() != ConfigValueType.LIST) {
+                    return null;
+                }
+                final ConfigList list = ConfigList.class.cast(root);
+                final int index = Integer.parseInt(key.substring(1, end));
+                if (index < 0 || index >= list.size()) {
+                    return null;
+                }
+                final String next = key.substring(end + 1);
+                return find(list.get(index), next.startsWith(".") ? next.substring(1) : next);
+            }
+            if (root.valueType() != ConfigValueType.OBJECT) {
+                return null;
+            }
+            final int bracket = key.indexOf('[');
+            final String path = bracket < 0 ? key : key.substring(0, bracket);
+            final Config config = ConfigObject.class.cast(root).toConfig();
+            if (path.isEmpty() || !config.hasPath(path)) {
+                return null;
+            }
+            return find(config.getValue(path), bracket < 0 ? "" : key.substring(bracket));
+        }
+
+        private PropertyIndex index() {
+            if (index == null) {
+                synchronized (this) {
+                    if (index == null) {
+                        index = new PropertyIndex(properties().keySet());
+                    }
+                }
+            }
+            return index;
+        }
+
+        private Map<String, String> properties() {
+            if (properties == null) {
+                synchronized (this) {
+                    if (properties == null) {
+                        final Map<String, String> aggregator = new HashMap<>();
+                        if (config != null) {
+                            visit(aggregator, config, "");
+                        }
+                        aggregator.putAll(environment);
+                        properties = unmodifiableMap(aggregator);
+                    }
+                }
+            }
+            return properties;
+        }
+
+        private void visit(final Map<String, String> aggregator, final Config config, final String prefix) {
+            config.entrySet().forEach(e -> visit(aggregator, e.getValue(), prefix + (prefix.isEmpty() ? "" : ".") + e.getKey()));
+        }
+
+        private void visit(final Map<String, String> aggregator, final ConfigValue value, final String key) {
             switch (value.valueType()) {
             case OBJECT:
-                visit(aggregator, ConfigObject.class.cast(value).toConfig(), currentKey);
+                visit(aggregator, ConfigObject.class.cast(value).toConfig(), key);
                 break;
-            case LIST: // only for primitives for now
-                aggregator.put(currentKey, ConfigList.class.cast(value).stream().map(v -> String.valueOf(v.unwrapped())).collect(joining(",")));
+            case LIST:
+                final ConfigList list = ConfigList.class.cast(value);
+                if (isPrimitives(list)) {
+                    aggregator.put(key, toString(value));
+                } else { // a.b[0].c
+                    for (int i = 0; i < list.size(); i++) {
+                        visit(aggregator, list.get(i), key + '[' + i + ']');
+                    }
+                }
                 break;
             case NULL:
                 break;
@@ -81,9 +380,28 @@ public class TypesafeConfigConfigSource implements ConfigSource {
             case BOOLEAN:
             case STRING:
             default:
-                aggregator.put(currentKey, String.valueOf(value.unwrapped()));
+                aggregator.put(key, toString(value));
                 break;
             }
-        });
+        }
+
+        // objects and lists of objects are not values, their leaves are
+        private static String toString(final ConfigValue value) {
+            switch (value.valueType()) {
+            case OBJECT:
+            case NULL:
+                return null;
+            case LIST:
+                final ConfigList list = ConfigList.class.cast(value);
+                return isPrimitives(list) ?
+                        list.stream().map(v -> String.valueOf(v.unwrapped())).collect(joining(",")) : null;
+            default:
+                return String.valueOf(value.unwrapped());
+            }
+        }
+
+        private static boolean isPrimitives(final ConfigList list) {
+            return list.stream().noneMatch(it -> it.valueType() == ConfigValueType.OBJECT || it.valueType() == ConfigValueType.LIST);
+        }
     }
 }
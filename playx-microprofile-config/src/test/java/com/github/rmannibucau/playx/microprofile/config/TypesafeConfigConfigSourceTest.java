@@ -1,7 +1,23 @@
 package com.github.rmannibucau.playx.microprofile.config;
 
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
 import javax.enterprise.inject.Produces;
 import javax.enterprise.inject.se.SeContainer;
 import javax.enterprise.inject.se.SeContainerInitializer;
@@ -11,9 +27,14 @@ import org.eclipse.microprofile.config.inject.ConfigProperty;
 import org.junit.Test;
 
 import com.typesafe.config.Config;
+import com.typesafe.config.ConfigFactory;
 
 import play.api.Configuration;
+import play.api.inject.DefaultApplicationLifecycle;
+import play.inject.ApplicationLifecycle;
+import play.inject.DelegateApplicationLifecycle;
 import scala.collection.immutable.Map;
+import scala.jdk.javaapi.FutureConverters;
 
 public class TypesafeConfigConfigSourceTest {
 
@@ -25,6 +46,135 @@ public class TypesafeConfigConfigSourceTest {
         }
     }
 
+    @Test
+    public void lazyValues() {
+        final TypesafeConfigConfigSource source = new TypesafeConfigConfigSource();
+        assertNull(source.getValue("app.url")); // no container yet
+        try (final SeContainer container = SeContainerInitializer.newInstance().disableDiscovery()
+                .addBeanClasses(ConfProvider.class).initialize()) {
+            assertEquals("http://foo.com", source.getValue("app.url"));
+            assertNull(source.getValue("app.missing"));
+            assertNull(source.getValue("app")); // not a leaf
+            assertNull(source.getValue("app..invalid"));
+            assertEquals("http://foo.com", source.getProperties().get("app.url"));
+        }
+    }
+
+    @Test
+    public void index() {
+        final TypesafeConfigConfigSource source = new TypesafeConfigConfigSource();
+        try (final SeContainer container = SeContainerInitializer.newInstance().disableDiscovery()
+                .addBeanClasses(ListConfProvider.class).initialize()) {
+            assertEquals("a,b", source.getValue("app.tags"));
+            assertEquals("s1", source.getValue("app.servers[0].name"));
+            assertEquals("8081", source.getValue("app.servers[1].port"));
+            assertNull(source.getValue("app.servers"));
+            assertNull(source.getValue("app.servers[2].name"));
+            assertNull(source.getValue("app.servers[x].name"));
+
+            assertEquals(asList("app.servers[0].name", "app.servers[0].port", "app.servers[1].name", "app.servers[1].port"),
+                    new ArrayList<>(source.getPropertyNames("app.servers")));
+            assertEquals(singletonList("app.tags"), new ArrayList<>(source.getPropertyNames("app.t")));
+            assertEquals(2, source.getPropertyNames("app.servers").withPrefix("app.servers[1]").size());
+            assertTrue(source.getPropertyNames().contains("other.url"));
+            assertFalse(source.getPropertyNames("app.").contains("other.url"));
+            assertTrue(source.getPropertyNames("missing").isEmpty());
+            assertEquals("8080", source.getProperties().get("app.servers[0].port"));
+        }
+    }
+
+    @Test
+    public void reload() throws Exception {
+        final Path file = Files.createTempDirectory("playx-config").resolve("application.conf");
+        Files.write(file, ("playx.config.watch { enabled = true, debounce = 100 ms }\n" +
+                "app.url = \"http://foo.com\"\napp.size = 1\napp.removed = true\n").getBytes(StandardCharsets.UTF_8));
+        System.setProperty("config.file", file.toString());
+        ConfigFactory.invalidateCaches();
+        final TypesafeConfigConfigSource source = new TypesafeConfigConfigSource();
+        final TypesafeConfigConfigSource other = new TypesafeConfigConfigSource();
+        try (final SeContainer container = SeContainerInitializer.newInstance().disableDiscovery()
+                .addBeanClasses(LoadedConfProvider.class, LifecycleProvider.class, ConfigListener.class).initialize()) {
+            assertEquals("1", source.getValue("app.size"));
+            assertEquals("programmatic", source.getValue("app.override"));
+            assertEquals("1", other.getValue("app.size"));
+            assertEquals("true", source.getValue("app.removed"));
+            Files.write(file, ("playx.config.watch { enabled = true, debounce = 100 ms }\n" +
+                    "app.url = \"http://foo.com\"\napp.size = 2\napp.added = true\n").getBytes(StandardCharsets.UTF_8));
+
+            final ConfigListener listener = container.select(ConfigListener.class).get();
+            final ConfigChanged event = listener.next(30, TimeUnit.SECONDS);
+            assertNotNull(event);
+            assertTrue(event.toString(), event.getKeys().containsAll(asList("app.added", "app.removed", "app.size")));
+            assertFalse(event.getKeys().contains("app.url"));
+            assertFalse(event.getKeys().contains("app.override"));
+            assertEquals("2", source.getValue("app.size"));
+            assertEquals("true", source.getValue("app.added"));
+            assertNull(source.getValue("app.removed"));
+            assertFalse(source.getProperties().containsKey("app.removed"));
+            assertEquals("programmatic", source.getValue("app.override"));
+            assertEquals("2", other.getValue("app.size")); // same application, same snapshot
+            assertNull(listener.next(500, TimeUnit.MILLISECONDS)); // a single watcher, a single event
+
+            FutureConverters.asJava(LifecycleProvider.LIFECYCLE.stop()).toCompletableFuture().get(1, TimeUnit.MINUTES);
+            final long end = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+            while (isWatching() && System.nanoTime() < end) {
+                Thread.sleep(50);
+            }
+            assertFalse(isWatching());
+        } finally {
+            System.clearProperty("config.file");
+            ConfigFactory.invalidateCaches();
+        }
+    }
+
+    private static boolean isWatching() {
+        return Thread.getAllStackTraces().keySet().stream().anyMatch(it -> "playx-config-watcher".equals(it.getName()));
+    }
+
+    public static class LoadedConfProvider {
+
+        @Produces
+        public Config config() {
+            return ConfigFactory.parseString("app.override = programmatic").withFallback(ConfigFactory.load());
+        }
+    }
+
+    public static class LifecycleProvider {
+
+        private static final DefaultApplicationLifecycle LIFECYCLE = new DefaultApplicationLifecycle();
+
+        @Produces
+        public ApplicationLifecycle lifecycle() {
+            return new DelegateApplicationLifecycle(LIFECYCLE);
+        }
+    }
+
+    @ApplicationScoped
+    public static class ConfigListener {
+
+        private final BlockingQueue<ConfigChanged> events = new LinkedBlockingQueue<>();
+
+        public void onChange(@Observes final ConfigChanged changed) {
+            events.add(changed);
+        }
+
+        public ConfigChanged next(final long timeout, final TimeUnit unit) throws InterruptedException {
+            return events.poll(timeout, unit);
+        }
+    }
+
+    public static class ListConfProvider {
+
+        @Produces
+        public Config config() {
+            return ConfigFactory.parseString("app {\n" +
+                    "  tags = [a, b]\n" +
+                    "  servers = [{ name = s1, port = 8080 }, { name = s2, port = 8081 }]\n" +
+                    "}\n" +
+                    "other.url = \"http://bar.com\"");
+        }
+    }
+
     public static class ConfProvider {
 
         @Produces
@@ -0,0 +1,12 @@
+package com.github.rmannibucau.playx.servlet.servlet.api;
+
+import java.util.Collection;
+
+// lets the IoC expose the classes it already scanned to answer @HandlesTypes without a new classpath scan,
+// looked up from the injector, if there is none initializers get no classes
+public interface ClassFinder {
+
+    // subclasses/implementations of type, or classes annotated with it - on the class, a method, a field or a constructor -
+    // if type is an annotation (type itself excluded)
+    Collection<Class<?>> findClasses(Class<?> type);
+}
@@ -1,13 +1,16 @@
 package com.github.rmannibucau.playx.servlet.servlet.api;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyEnumeration;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
+import static java.util.Collections.singletonList;
 import static java.util.Comparator.comparing;
 import static java.util.Objects.requireNonNull;
 import static java.util.Optional.ofNullable;
 import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.groupingBy;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
@@ -16,6 +19,7 @@ import java.io.InputStream;
 import java.net.URI;
 import java.net.URL;
 import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.AbstractMap;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -23,16 +27,22 @@ import java.util.Collections;
 import java.util.EnumSet;
 import java.util.Enumeration;
 import java.util.EventListener;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -40,6 +50,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import java.util.zip.Deflater;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
@@ -60,22 +71,30 @@ import javax.servlet.annotation.HandlesTypes;
 import javax.servlet.descriptor.JspConfigDescriptor;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.pekko.stream.Materializer;
+import org.apache.pekko.stream.javadsl.Flow;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.rmannibucau.playx.servlet.servlet.internal.AsyncContextImpl;
+import com.github.rmannibucau.playx.servlet.servlet.internal.ConditionalRequests;
 import com.github.rmannibucau.playx.servlet.servlet.internal.DynamicFilter;
 import com.github.rmannibucau.playx.servlet.servlet.internal.DynamicServlet;
 import com.github.rmannibucau.playx.servlet.servlet.internal.FilterChainImpl;
 import com.github.rmannibucau.playx.servlet.servlet.internal.RequestAdapter;
 import com.github.rmannibucau.playx.servlet.servlet.internal.RequestDispatcherImpl;
 import com.github.rmannibucau.playx.servlet.servlet.internal.ResponseAdapter;
+import com.github.rmannibucau.playx.servlet.servlet.internal.ResponseCache;
+import com.github.rmannibucau.playx.servlet.servlet.internal.ResponseCompression;
+import com.github.rmannibucau.playx.servlet.servlet.internal.ServletMappingIndex;
+import com.github.rmannibucau.playx.servlet.servlet.internal.WebSocketUpgrade;
 import com.typesafe.config.Config;
 import com.typesafe.config.ConfigList;
 import com.typesafe.config.ConfigObject;
 import com.typesafe.config.ConfigValueType;
 
 import play.Environment;
+import play.api.http.websocket.Message;
 import play.api.inject.ApplicationLifecycle;
 import play.api.inject.Injector;
 import play.http.HttpEntity;
@@ -93,7 +112,21 @@ public class PlayServletContext implements ServletContext {
 
     private Executor executor;
 
+    private static final int MAX_CACHED_DISPATCHERS = 1024;
+
     private final List<DynamicServlet> servlets = new ArrayList<>();
+    private final Map<String, DynamicServlet> servletsByName = new HashMap<>();
+    // access ordered, paths can be dynamic so the least recently used ones are evicted to keep the hot ones
+    private final Map<String, RequestDispatcher> dispatchers = Collections.synchronizedMap(
+            new LinkedHashMap<String, RequestDispatcher>(16, .75f, true) {
+
+                @Override
+                protected boolean removeEldestEntry(final Map.Entry<String, RequestDispatcher> eldest) {
+                    return size() > MAX_CACHED_DISPATCHERS;
+                }
+            });
+    private final Map<String, RequestDispatcher> namedDispatchers = new ConcurrentHashMap<>();
+    private volatile ServletMappingIndex mappingIndex;
     private final List<DynamicFilter> filters = new ArrayList<>();
     private final Collection<EventListener> listeners = new ArrayList<>();
 
@@ -101,6 +134,30 @@ public class PlayServletContext implements ServletContext {
 
     private String responseEncoding = StandardCharsets.ISO_8859_1.name();
 
+    private final ResponseCompression compression;
+
+    private final ResponseCache cache;
+
+    private final String etagAlgorithm;
+
+    private final CompletableFuture<Void> ready = new CompletableFuture<>();
+
+    private final Map<String, SseBroadcaster> broadcasters = new ConcurrentHashMap<>();
+
+    private final int sseBufferSize;
+
+    private final long sseHeartbeat;
+
+    private ScheduledExecutorService sseTimer; // shared by all broadcasters, started with the first one
+
+    private final int webSocketBufferSize;
+
+    private final Set<WebSocketUpgrade> webSockets = ConcurrentHashMap.newKeySet();
+
+    private Optional<ClassFinder> classFinder; // resolved once, only if an initializer uses @HandlesTypes
+
+    private volatile Optional<RequestScope> requestScope; // resolved with the first request
+
     @Inject
     public PlayServletContext(final ApplicationLifecycle lifecycle, final Injector injector, final Config config) {
         this.injector = injector;
@@ -130,6 +187,41 @@ public class PlayServletContext implements ServletContext {
 
         lifecycle.addStopHook(() -> CompletableFuture.runAsync(this::stop, getDefaultExecutor()));
 
+        if (safeConfigAccess(config, "playx.servlet.compression.enabled", Config::getBoolean).orElse(false)) {
+            compression = new ResponseCompression(
+                    safeConfigAccess(config, "playx.servlet.compression.level", Config::getInt).orElse(Deflater.DEFAULT_COMPRESSION),
+                    safeConfigAccess(config, "playx.servlet.compression.minSize", Config::getInt).orElse(1024),
+                    safeConfigAccess(config, "playx.servlet.compression.poolSize", Config::getInt)
+                            .orElseGet(() -> Runtime.getRuntime().availableProcessors() * 2),
+                    safeConfigAccess(config, "playx.servlet.compression.excludedContentTypes", Config::getStringList)
+                            .orElseGet(() -> asList("image/", "video/", "audio/", "font/woff", "application/zip",
+                                    "application/gzip", "application/x-gzip", "application/octet-stream",
+                                    "application/x-7z-compressed", "application/x-bzip2", "application/pdf",
+                                    "text/event-stream")));
+            lifecycle.addStopHook(() -> CompletableFuture.runAsync(compression::close, Runnable::run));
+        } else {
+            compression = null;
+        }
+
+        etagAlgorithm = safeConfigAccess(config, "playx.servlet.etag.enabled", Config::getBoolean).orElse(false)
+                ? safeConfigAccess(config, "playx.servlet.etag.algorithm", Config::getString).orElse("MD5")
+                : null;
+
+        if (safeConfigAccess(config, "playx.servlet.cache.enabled", Config::getBoolean).orElse(false)) {
+            cache = new ResponseCache(
+                    safeConfigAccess(config, "playx.servlet.cache.maxEntries", Config::getInt).orElse(1024),
+                    safeConfigAccess(config, "playx.servlet.cache.maxBytes", Config::getBytes).orElse(64L * 1024 * 1024),
+                    compression == null ? emptyList() : singletonList("Accept-Encoding"), executor);
+            lifecycle.addStopHook(() -> CompletableFuture.runAsync(cache::clear, Runnable::run));
+        } else {
+            cache = null;
+        }
+
+        sseBufferSize = safeConfigAccess(config, "playx.servlet.sse.bufferSize", Config::getInt).orElse(64);
+        sseHeartbeat = safeConfigAccess(config, "playx.servlet.sse.heartbeat", Config::getDuration)
+                .map(Duration::toMillis).orElse(15000L);
+        webSocketBufferSize = safeConfigAccess(config, "playx.servlet.websocket.bufferSize", Config::getInt).orElse(16);
+
         safeConfigAccess(config, "playx.servlet.listeners", Config::getStringList)
                 .ifPresent(clazz -> clazz.forEach(init -> {
                     final ClassLoader classLoader = getClassLoader();
@@ -227,25 +319,132 @@ public class PlayServletContext implements ServletContext {
                      .forEach(l -> l.contextInitialized(event));
         }
 
-        // filters
-        this.filters.forEach(f -> {
-            try {
-                f.getInstance().init(f.toFilterConfig(this));
-            } catch (final ServletException e) {
-                throw new IllegalStateException(e);
+        // mappings are complete now (they can be added after addServlet), compile them before any request
+        // and before the background initialization, requests resolve their servlet without waiting for it
+        this.servlets.sort(comparing(DynamicServlet::getLoadOnStartup));
+        resetMappings();
+        getMappingIndex();
+
+        // filters and eager servlets, lazy ones (loadOnStartup < 0) are initialized on their first request
+        final int parallelism = safeConfigAccess(config, "playx.servlet.startup.parallelism", Config::getInt)
+                .orElseGet(() -> Runtime.getRuntime().availableProcessors());
+        if (safeConfigAccess(config, "playx.servlet.startup.background", Config::getBoolean).orElse(false)) {
+            CompletableFuture.runAsync(() -> initialize(parallelism), getDefaultExecutor())
+                    .whenComplete((ok, error) -> {
+                        if (error != null) {
+                            LOGGER.error("Can't start servlet context " + contextPath, error);
+                            ready.completeExceptionally(error);
+                        } else {
+                            ready.complete(null);
+                        }
+                    });
+        } else {
+            initialize(parallelism);
+            ready.complete(null);
+        }
+    }
+
+    private void initialize(final int parallelism) {
+        final long start = System.nanoTime();
+        final ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, parallelism), new ThreadFactory() {
+
+            private final AtomicInteger counter = new AtomicInteger();
+
+            @Override
+            public Thread newThread(final Runnable r) {
+                final Thread thread = new Thread(r);
+                thread.setDaemon(true);
+                thread.setName("playx-servlet-init-[context=" + contextPath + "]-" + counter.incrementAndGet());
+                return thread;
             }
         });
+        try {
+            // filters don't have any ordering constraint
+            runAll(pool, filters.stream().map(f -> (Initialization) () -> {
+                final Thread thread = Thread.currentThread();
+                final ClassLoader contextClassLoader = thread.getContextClassLoader();
+                thread.setContextClassLoader(getClassLoader());
+                try {
+                    f.getInstance().init(f.toFilterConfig(this));
+                } finally {
+                    thread.setContextClassLoader(contextClassLoader);
+                }
+            }).collect(toList()));
+
+            // same loadOnStartup value means no ordering between the servlets
+            final Map<Integer, List<DynamicServlet>> eagerServlets = servlets.stream()
+                    .filter(s -> s.getLoadOnStartup() >= 0)
+                    .collect(groupingBy(DynamicServlet::getLoadOnStartup, TreeMap::new, toList()));
+            for (final List<DynamicServlet> group : eagerServlets.values()) {
+                runAll(pool, group.stream().map(s -> (Initialization) () -> {
+                    final Thread thread = Thread.currentThread();
+                    final ClassLoader contextClassLoader = thread.getContextClassLoader();
+                    thread.setContextClassLoader(getClassLoader());
+                    try {
+                        s.ensureInitialized(this);
+                    } finally {
+                        thread.setContextClassLoader(contextClassLoader);
+                    }
+                    LOGGER.info("Initialized servlet {} in {}ms", s.getName(), s.getInitDuration());
+                }).collect(toList()));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        LOGGER.info("Servlet context '{}' ready in {}ms", contextPath,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
 
-
-        // we load all servlets anyway here, no lazy handling for now
-        this.servlets.sort(comparing(DynamicServlet::getLoadOnStartup));
-        this.servlets.forEach(s -> {
+    // waits for all tasks and reports all failures at once
+    private void runAll(final ExecutorService pool, final List<Initialization> tasks) {
+        if (tasks.isEmpty()) {
+            return;
+        }
+        final List<Throwable> errors = new ArrayList<>();
+        if (tasks.size() == 1) { // no need to hop
             try {
-                s.getInstance().init(s.toServletConfig(this));
-            } catch (final ServletException e) {
-                throw new IllegalStateException(e);
+                tasks.get(0).run();
+            } catch (final Exception e) {
+                errors.add(e);
             }
-        });
+        } else {
+            tasks.stream()
+                    .map(task -> CompletableFuture.runAsync(() -> {
+                        try {
+                            task.run();
+                        } catch (final Exception e) {
+                            throw new CompletionException(e);
+                        }
+                    }, pool))
+                    .collect(toList())
+                    .forEach(future -> {
+                        try {
+                            future.join();
+                        } catch (final CompletionException ce) {
+                            errors.add(ce.getCause());
+                        }
+                    });
+        }
+        if (!errors.isEmpty()) {
+            final IllegalStateException error = new IllegalStateException("Can't initialize servlet context " + contextPath);
+            errors.forEach(error::addSuppressed);
+            throw error;
+        }
+    }
+
+    // completed once filters and servlets with loadOnStartup >= 0 are initialized
+    public CompletionStage<Void> getReadiness() {
+        return ready;
+    }
+
+    public boolean isReady() {
+        return ready.isDone() && !ready.isCompletedExceptionally();
+    }
+
+    // servlet name -> init duration in ms for the initialized servlets
+    public Map<String, Long> getInitDurations() {
+        return servlets.stream().filter(DynamicServlet::isInitialized)
+                .collect(toMap(DynamicServlet::getName, DynamicServlet::getInitDuration, (a, b) -> a, LinkedHashMap::new));
     }
 
     private Boolean extractAsyncSupported(ConfigObject filter) {
@@ -288,13 +487,47 @@ public class PlayServletContext implements ServletContext {
     }
 
     // kept as an extension point if needed to not be linked to a particular IoC here
-    protected Class<?>[] findClasses(final Class<?> k) { // TODO
-        return new Class<?>[0];
+    protected Class<?>[] findClasses(final Class<?> k) {
+        if (classFinder == null) {
+            try {
+                classFinder = Optional.of(injector.instanceOf(ClassFinder.class));
+            } catch (final RuntimeException re) { // not provided by the IoC
+                LOGGER.debug("No ClassFinder available, @HandlesTypes will get no class: {}", re.getMessage());
+                classFinder = Optional.empty();
+            }
+        }
+        return classFinder.map(finder -> finder.findClasses(k).toArray(new Class<?>[0])).orElseGet(() -> new Class<?>[0]);
+    }
+
+    // kept as an extension point as findClasses, the IoC can bind its request state to the servlet invocations
+    protected Optional<RequestScope> findRequestScope() {
+        Optional<RequestScope> scope = requestScope;
+        if (scope == null) {
+            try {
+                scope = Optional.of(injector.instanceOf(RequestScope.class));
+            } catch (final RuntimeException re) { // not provided by the IoC
+                LOGGER.debug("No RequestScope available, servlets run without request state: {}", re.getMessage());
+                scope = Optional.empty();
+            }
+            requestScope = scope;
+        }
+        return scope;
     }
 
     public void stop() {
+        // event streams
+        synchronized (broadcasters) {
+            if (sseTimer != null) {
+                sseTimer.shutdownNow();
+            }
+            broadcasters.values().forEach(SseBroadcaster::close);
+        }
+
+        // upgraded connections
+        webSockets.forEach(WebSocketUpgrade::close);
+
         // servlets destruction
-        servlets.stream().sorted(comparing(DynamicServlet::getLoadOnStartup).reversed()).forEach(s -> s.getInstance().destroy());
+        servlets.stream().sorted(comparing(DynamicServlet::getLoadOnStartup).reversed()).forEach(DynamicServlet::destroy);
 
         // filters destruction
         filters.forEach(f -> f.getInstance().destroy());
@@ -311,28 +544,94 @@ public class PlayServletContext implements ServletContext {
 
     public CompletionStage<Result> executeInvoke(final ServletMatching servlet, final Http.RequestHeader requestHeader,
             final InputStream stream, final String servletPath) {
+        if (!ready.isDone()) { // background startup, requests wait for the eager servlets
+            return ready.thenCompose(ok -> executeInvoke(servlet, requestHeader, stream, servletPath));
+        }
+        final CompletionStage<Result> result;
+        if (cache != null && cache.accepts(requestHeader)) {
+            result = cache.execute(requestHeader, () -> doInvoke(servlet, requestHeader, stream, servletPath, null));
+        } else {
+            result = doInvoke(servlet, requestHeader, stream, servletPath, null);
+        }
+        if (etagAlgorithm == null) {
+            return result;
+        }
+        return result.thenApply(response -> ConditionalRequests.apply(requestHeader, response));
+    }
+
+    // websocket handshake: no body, cache nor etag, the upgrade gets the handler if the servlet called request.upgrade()
+    public CompletionStage<Result> executeUpgrade(final ServletMatching servlet, final Http.RequestHeader requestHeader,
+            final WebSocketUpgrade upgrade) {
+        if (!ready.isDone()) {
+            return ready.thenCompose(ok -> executeUpgrade(servlet, requestHeader, upgrade));
+        }
+        return doInvoke(servlet, requestHeader, InputStream.nullInputStream(), servlet.getServletPath(), upgrade);
+    }
+
+    public WebSocketUpgrade newWebSocketUpgrade() {
+        return new WebSocketUpgrade(getDefaultExecutor(), webSocketBufferSize) {
+            @Override
+            public Flow<Message, Message, ?> toFlow(final Materializer materializer) {
+                webSockets.add(this);
+                return super.toFlow(materializer);
+            }
+
+            @Override
+            public void close() {
+                webSockets.remove(this);
+                super.close();
+            }
+        };
+    }
+
+    // active upgraded connections
+    public Collection<WebSocketUpgrade> getWebSockets() {
+        return Collections.unmodifiableSet(webSockets);
+    }
+
+    private CompletionStage<Result> doInvoke(final ServletMatching servlet, final Http.RequestHeader requestHeader,
+            final InputStream stream, final String servletPath, final WebSocketUpgrade upgrade) {
         final Thread thread = Thread.currentThread();
         final ClassLoader contextClassLoader = thread.getContextClassLoader();
         thread.setContextClassLoader(getClassLoader());
         try {
             final ResponseAdapter response = new ResponseAdapter(
-                    (requestHeader.secure() ? "https" : "http") + "://" + requestHeader.host() + requestHeader.uri(), this);
+                    (requestHeader.secure() ? "https" : "http") + "://" + requestHeader.host() + requestHeader.uri(), this,
+                    compression, compression == null || "HEAD".equals(requestHeader.method()) ? null
+                            : compression.negotiate(requestHeader.header("Accept-Encoding").orElse(null)),
+                    "GET".equals(requestHeader.method()) ? etagAlgorithm : null);
             final RequestAdapter request = new RequestAdapter(requestHeader, stream, response, injector, this, servlet.getDynamicServlet(), servletPath);
             request.setAttribute(ResponseAdapter.class.getName(), response);
+            request.setWebSocketUpgrade(upgrade);
+            final RequestScope.Handle scope = findRequestScope().map(it -> it.begin(requestHeader)).orElse(null);
+            if (scope != null) { // captured by the request, async context reactivates it on its threads
+                request.setAttribute(RequestScope.Handle.class.getName(), scope);
+                response.setRequestEnd(scope::end);
+            }
             if (!servlet.getDynamicServlet().isAsyncSupported()) {
-                return CompletableFuture.supplyAsync(() -> doExecute(servlet, response, request), getDefaultExecutor())
+                return CompletableFuture.supplyAsync(() -> doExecute(scope, servlet, response, request), getDefaultExecutor())
                         .thenCompose(identity());
             }
-            return doExecute(servlet, response, request);
+            return doExecute(scope, servlet, response, request);
         } finally {
             thread.setContextClassLoader(contextClassLoader);
         }
     }
 
+    private CompletionStage<Result> doExecute(final RequestScope.Handle scope, final ServletMatching matched,
+                                              final ResponseAdapter response,
+                                              final RequestAdapter request) {
+        if (scope == null) {
+            return doExecute(matched, response, request);
+        }
+        return scope.execute(() -> doExecute(matched, response, request));
+    }
+
     private CompletionStage<Result> doExecute(final ServletMatching matched,
                                               final ResponseAdapter response,
                                               final RequestAdapter request) {
         try {
+            matched.getDynamicServlet().ensureInitialized(this);
             if (matched.getDynamicFilters().isEmpty()) {
                 matched.getDynamicServlet().getInstance().service(request, response);
             } else {
@@ -364,21 +663,40 @@ public class PlayServletContext implements ServletContext {
     }
 
     public Optional<ServletMatching> findFirstMatchingServlet(final String path) {
-        final String matching = path.substring(getContextPath().length());
-        return servlets.stream()
-                .map(servlet -> servlet.getMappings().stream().map(mapping -> findServletPath(mapping, matching))
-                        .filter(Objects::nonNull).findFirst()
-                       .map(mapping -> new ServletMatching(findMatchingFilters(servlet.getName(), path), servlet, mapping)))
-                .filter(Optional::isPresent).findFirst().flatMap(identity());
+        return findFirstMatchingServlet(path.substring(getContextPath().length()), DispatcherType.REQUEST);
     }
 
-    private List<DynamicFilter> findMatchingFilters(final String servlet, final String path) {
+    // path is relative to the context path
+    public Optional<ServletMatching> findFirstMatchingServlet(final String matching, final DispatcherType type) {
+        final ServletMappingIndex.Match match = getMappingIndex().find(matching);
+        if (match == null) {
+            return Optional.empty();
+        }
+        return Optional.of(new ServletMatching(findMatchingFilters(match.getServlet().getName(), matching, type),
+                match.getServlet(), match.getServletPath()));
+    }
+
+    private ServletMappingIndex getMappingIndex() {
+        ServletMappingIndex index = mappingIndex;
+        if (index == null) {
+            synchronized (this) {
+                index = mappingIndex;
+                if (index == null) {
+                    index = mappingIndex = new ServletMappingIndex(servlets);
+                }
+            }
+        }
+        return index;
+    }
+
+    private List<DynamicFilter> findMatchingFilters(final String servlet, final String path, final DispatcherType type) {
         if (filters.isEmpty()) {
             return emptyList();
         }
         return filters.stream()
+                .filter(f -> f.accepts(type))
                 .filter(f -> f.getServletNameMappings().contains(servlet)
-                        || f.getUrlPatternMappings().stream().anyMatch(it -> findServletPath(it, path) != null))
+                        || (path != null && f.getUrlPatternMappings().stream().anyMatch(it -> findServletPath(it, path) != null)))
                 .collect(toList());
     }
 
@@ -409,9 +727,63 @@ public class PlayServletContext implements ServletContext {
         return executor;
     }
 
+    // null when compression is disabled, else gives access to the compression statistics
+    public ResponseCompression getCompression() {
+        return compression;
+    }
+
+    // one broadcaster per name, created on first access
+    public SseBroadcaster getSseBroadcaster(final String name) {
+        final SseBroadcaster existing = broadcasters.get(name);
+        if (existing != null) {
+            return existing;
+        }
+        synchronized (broadcasters) {
+            if (sseTimer == null && sseHeartbeat > 0) { // comments keep idle connections open through proxies
+                sseTimer = Executors.newSingleThreadScheduledExecutor(r -> {
+                    final Thread thread = new Thread(r);
+                    thread.setDaemon(true);
+                    thread.setName("playx-servlet-sse-heartbeat-[context=" + contextPath + "]");
+                    return thread;
+                });
+                sseTimer.scheduleAtFixedRate(() -> broadcasters.values().forEach(b -> b.send(SseBroadcaster.HEARTBEAT)),
+                        sseHeartbeat, sseHeartbeat, TimeUnit.MILLISECONDS);
+            }
+            return broadcasters.computeIfAbsent(name,
+                    n -> new SseBroadcaster(n, sseBufferSize, injector.instanceOf(Materializer.class)));
+        }
+    }
+
+    public Collection<SseBroadcaster> getSseBroadcasters() {
+        return broadcasters.values();
+    }
+
+    // null when the response cache is disabled, else gives access to the cache statistics
+    public ResponseCache getCache() {
+        return cache;
+    }
+
     @Override
     public RequestDispatcher getRequestDispatcher(final String path) {
-        return new RequestDispatcherImpl(this, path);
+        if (path == null || !path.startsWith("/")) {
+            return null;
+        }
+        final RequestDispatcher cached = dispatchers.get(path);
+        if (cached != null) {
+            return cached;
+        }
+
+        final int querySeparator = path.indexOf('?');
+        final String target = querySeparator < 0 ? path : path.substring(0, querySeparator);
+        final String query = querySeparator < 0 ? null : path.substring(querySeparator + 1);
+        final RequestDispatcher dispatcher = findFirstMatchingServlet(target, DispatcherType.FORWARD)
+                .map(forward -> new RequestDispatcherImpl(this, target, query, forward,
+                        findFirstMatchingServlet(target, DispatcherType.INCLUDE).orElse(forward)))
+                .orElse(null);
+        if (dispatcher != null) {
+            dispatchers.putIfAbsent(path, dispatcher);
+        }
+        return dispatcher;
     }
 
     @Override
@@ -466,7 +838,20 @@ public class PlayServletContext implements ServletContext {
 
     @Override
     public RequestDispatcher getNamedDispatcher(final String name) {
-        return getRequestDispatcher("/");
+        if (name == null) {
+            return null;
+        }
+        final RequestDispatcher cached = namedDispatchers.get(name);
+        if (cached != null) {
+            return cached;
+        }
+        final DynamicServlet servlet = servletsByName.get(name);
+        if (servlet == null) {
+            return null;
+        }
+        return namedDispatchers.computeIfAbsent(name, n -> new RequestDispatcherImpl(this, null, null,
+                new ServletMatching(findMatchingFilters(n, null, DispatcherType.FORWARD), servlet, null),
+                new ServletMatching(findMatchingFilters(n, null, DispatcherType.INCLUDE), servlet, null)));
     }
 
     @Override
@@ -553,6 +938,8 @@ public class PlayServletContext implements ServletContext {
     public ServletRegistration.Dynamic addServlet(final String servletName, final Servlet servlet) {
         final DynamicServlet dynamicServlet = new DynamicServlet(servletName, servlet);
         servlets.add(dynamicServlet);
+        servletsByName.put(servletName, dynamicServlet);
+        resetMappings();
         return dynamicServlet;
     }
 
@@ -582,7 +969,7 @@ public class PlayServletContext implements ServletContext {
 
     @Override
     public ServletRegistration getServletRegistration(final String servletName) {
-        return servlets.stream().filter(s -> s.getName().equals(servletName)).findFirst().orElse(null);
+        return servletsByName.get(servletName);
     }
 
     @Override
@@ -604,6 +991,7 @@ public class PlayServletContext implements ServletContext {
     public FilterRegistration.Dynamic addFilter(final String filterName, final Filter filter) {
         final DynamicFilter dynamicFilter = new DynamicFilter(filterName, filter);
         filters.add(dynamicFilter);
+        resetMappings();
         return dynamicFilter;
     }
 
@@ -725,6 +1113,13 @@ public class PlayServletContext implements ServletContext {
         responseEncoding = encoding;
     }
 
+    // registrations happen at startup but don't keep a resolution done before the last one
+    private void resetMappings() {
+        mappingIndex = null;
+        dispatchers.clear();
+        namedDispatchers.clear();
+    }
+
     // todo: add a flag to ask to skip IoC?
     private <T> T newInstance(final Class<T> c) {
         try {
@@ -739,6 +1134,12 @@ public class PlayServletContext implements ServletContext {
         }
     }
 
+    @FunctionalInterface
+    private interface Initialization {
+
+        void run() throws Exception;
+    }
+
     public static class ServletMatching {
         private final List<DynamicFilter> dynamicFilters;
 
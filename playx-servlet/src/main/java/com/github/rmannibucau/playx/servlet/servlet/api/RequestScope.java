@@ -0,0 +1,29 @@
+package com.github.rmannibucau.playx.servlet.servlet.api;
+
+import java.util.function.Supplier;
+
+import play.mvc.Http;
+
+// lets the IoC bind its request state (CDI @RequestScoped for instance) to the servlet invocations,
+// looked up from the injector, if there is none requests just run without it
+public interface RequestScope {
+
+    // called once per servlet request before the filters/servlet, the handle then follows the request across threads
+    Handle begin(Http.RequestHeader request);
+
+    interface Handle {
+
+        // runs the task with the request state bound to the current thread, previous state is restored after
+        <T> T execute(Supplier<T> task);
+
+        // the response is completed, releases the request state
+        void end();
+
+        default Runnable wrap(final Runnable task) {
+            return () -> execute(() -> {
+                task.run();
+                return null;
+            });
+        }
+    }
+}
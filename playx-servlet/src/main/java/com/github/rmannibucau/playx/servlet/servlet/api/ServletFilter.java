@@ -34,18 +34,9 @@ public class ServletFilter extends EssentialFilter implements Consumer<ServletFi
 
             @Override
             public Accumulator<ByteString, Result> apply(final Http.RequestHeader requestHeader) {
-                return state.getServletContext().findMatchingServlet(requestHeader).map(servlet -> {
-                    final long length = requestHeader.getHeaders().get("Content-Length").map(Long::parseLong)
-                            .orElse(Long.MAX_VALUE);
-                    final BodyParser.Bytes slurper = new BodyParser.Bytes(length, state.getHttpErrorHandler());
-                    return slurper.apply(requestHeader).mapFuture(
-                            resultOrBytes -> resultOrBytes.left.map(CompletableFuture::completedFuture).orElseGet(() -> {
-                                return state.getServletContext()
-                                        .executeInvoke(servlet, requestHeader,
-                                                resultOrBytes.right.get().iterator().asInputStream(), servlet.getServletPath())
-                                        .toCompletableFuture();
-                            }), state.getServletContext().getDefaultExecutor());
-                }).orElseGet(() -> next.apply(requestHeader));
+                return state.getServletContext().findMatchingServlet(requestHeader)
+                        .map(servlet -> state.invoke(servlet, requestHeader))
+                        .orElseGet(() -> next.apply(requestHeader));
             }
         };
     }
@@ -77,6 +68,21 @@ public class ServletFilter extends EssentialFilter implements Consumer<ServletFi
             return httpErrorHandler;
         }
 
+        // reads the body and executes the servlet
+        Accumulator<ByteString, Result> invoke(final PlayServletContext.ServletMatching servlet,
+                                               final Http.RequestHeader requestHeader) {
+            final long length = requestHeader.getHeaders().get("Content-Length").map(Long::parseLong)
+                    .orElse(Long.MAX_VALUE);
+            final BodyParser.Bytes slurper = new BodyParser.Bytes(length, httpErrorHandler);
+            return slurper.apply(requestHeader).mapFuture(
+                    resultOrBytes -> resultOrBytes.left.map(CompletableFuture::completedFuture).orElseGet(() -> {
+                        return servletContext
+                                .executeInvoke(servlet, requestHeader,
+                                        resultOrBytes.right.get().iterator().asInputStream(), servlet.getServletPath())
+                                .toCompletableFuture();
+                    }), servletContext.getDefaultExecutor());
+        }
+
         void ensureInit(final Injector injector) {
             if (!init) {
                 synchronized (this) {
@@ -0,0 +1,61 @@
+package com.github.rmannibucau.playx.servlet.servlet.api;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.apache.pekko.stream.Materializer;
+
+import com.github.rmannibucau.playx.servlet.servlet.internal.ServletWebSocket;
+
+import play.http.DefaultHttpRequestHandler;
+import play.http.HandlerForRequest;
+import play.http.HttpRequestHandler;
+import play.inject.Injector;
+import play.mvc.EssentialAction;
+import play.mvc.Http;
+
+// alternative to ServletFilter: servlet requests are routed once, before play router and filters,
+// other requests go to the default play handler without any filter overhead
+// usage: play.http.requestHandler = com.github.rmannibucau.playx.servlet.servlet.api.ServletRequestHandler
+@Singleton
+public class ServletRequestHandler implements HttpRequestHandler {
+    private final Injector injector;
+    private final HttpRequestHandler delegate;
+    private final ServletFilter.State state = new ServletFilter.State();
+    private volatile Materializer materializer;
+
+    @Inject
+    public ServletRequestHandler(final Injector injector, final DefaultHttpRequestHandler delegate) {
+        this(injector, (HttpRequestHandler) delegate);
+    }
+
+    // to decorate a custom handler
+    protected ServletRequestHandler(final Injector injector, final HttpRequestHandler delegate) {
+        this.injector = injector;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public HandlerForRequest handlerForRequest(final Http.RequestHeader request) {
+        state.ensureInit(injector);
+        return state.getServletContext().findMatchingServlet(request)
+                .map(servlet -> new HandlerForRequest(request, isWebSocket(request)
+                        ? new ServletWebSocket(state.getServletContext(), servlet, getMaterializer())
+                        : EssentialAction.of(requestHeader -> state.invoke(servlet, requestHeader))))
+                .orElseGet(() -> delegate.handlerForRequest(request));
+    }
+
+    // servlets can only upgrade websocket requests, play owns the connection for other protocols
+    private boolean isWebSocket(final Http.RequestHeader request) {
+        return "GET".equals(request.method())
+                && request.header("Upgrade").map("websocket"::equalsIgnoreCase).orElse(false);
+    }
+
+    private Materializer getMaterializer() {
+        Materializer result = materializer;
+        if (result == null) {
+            result = materializer = injector.instanceOf(Materializer.class);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,148 @@
+package com.github.rmannibucau.playx.servlet.servlet.api;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletRequest;
+
+import org.apache.pekko.Done;
+import org.apache.pekko.NotUsed;
+import org.apache.pekko.japi.Pair;
+import org.apache.pekko.stream.BoundedSourceQueue;
+import org.apache.pekko.stream.Materializer;
+import org.apache.pekko.stream.QueueOfferResult;
+import org.apache.pekko.stream.javadsl.Source;
+import org.apache.pekko.util.ByteString;
+
+import com.github.rmannibucau.playx.servlet.servlet.internal.ResponseAdapter;
+
+// fans out server-sent events to async servlet responses, each subscriber is a pekko stream with a bounded buffer,
+// a subscriber not consuming fast enough (full buffer) is evicted instead of slowing down the broadcast
+// usage: servletContext.getSseBroadcaster("news").register(request.startAsync()) then broadcast(event)
+public class SseBroadcaster implements AutoCloseable {
+
+    static final ByteString HEARTBEAT = ByteString.fromString(":\n\n", StandardCharsets.UTF_8);
+
+    private final String name;
+
+    private final int bufferSize;
+
+    private final Materializer materializer;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong broadcasts = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    SseBroadcaster(final String name, final int bufferSize, final Materializer materializer) {
+        this.name = name;
+        this.bufferSize = bufferSize;
+        this.materializer = materializer;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getSubscriberCount() {
+        return subscribers.size();
+    }
+
+    public long getBroadcasts() {
+        return broadcasts.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    // starts the event stream response, the async context is completed when the client disconnects or is evicted
+    public Subscriber register(final AsyncContext asyncContext) {
+        final ServletRequest request = asyncContext.getRequest();
+        final ResponseAdapter response = ResponseAdapter.class.cast(request.getAttribute(ResponseAdapter.class.getName()));
+        if (response == null) {
+            throw new IllegalArgumentException("Not a playx request: " + request);
+        }
+
+        final Pair<Pair<BoundedSourceQueue<ByteString>, CompletionStage<Done>>, Source<ByteString, NotUsed>> stream =
+                Source.<ByteString>queue(bufferSize).watchTermination(Pair::create).preMaterialize(materializer);
+        final Subscriber subscriber = new Subscriber(stream.first().first());
+        subscribers.add(subscriber);
+        stream.first().second().whenComplete((done, error) -> {
+            subscribers.remove(subscriber);
+            asyncContext.complete();
+        });
+
+        response.setHeader("Cache-Control", "no-cache");
+        response.setContentType("text/event-stream;charset=UTF-8");
+        response.stream(stream.second(), subscriber::close); // AsyncContext.complete() ends the stream
+        return subscriber;
+    }
+
+    // returns the number of subscribers the event was queued for
+    public int broadcast(final SseEvent event) {
+        broadcasts.incrementAndGet();
+        return send(event.getFrame());
+    }
+
+    // also used by the shared heartbeat timer
+    int send(final ByteString frame) {
+        int sent = 0;
+        for (final Subscriber subscriber : subscribers) {
+            if (subscriber.offer(frame)) {
+                sent++;
+            }
+        }
+        return sent;
+    }
+
+    @Override
+    public void close() {
+        subscribers.forEach(Subscriber::close);
+        subscribers.clear();
+    }
+
+    @Override
+    public String toString() {
+        return "SseBroadcaster(name=" + name + ", subscribers=" + subscribers.size() + ", broadcasts=" + broadcasts.get()
+                + ", evictions=" + evictions.get() + ')';
+    }
+
+    public class Subscriber implements AutoCloseable {
+
+        private final BoundedSourceQueue<ByteString> queue;
+
+        private Subscriber(final BoundedSourceQueue<ByteString> queue) {
+            this.queue = queue;
+        }
+
+        // sends an event to this subscriber only
+        public boolean send(final SseEvent event) {
+            return offer(event.getFrame());
+        }
+
+        private boolean offer(final ByteString frame) {
+            final QueueOfferResult result = queue.offer(frame);
+            if (result.isEnqueued()) {
+                return true;
+            }
+            if (result == QueueOfferResult.dropped()) { // slow consumer
+                evictions.incrementAndGet();
+                close();
+            }
+            subscribers.remove(this);
+            return false;
+        }
+
+        @Override
+        public void close() {
+            subscribers.remove(this);
+            queue.complete();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.rmannibucau.playx.servlet.servlet.api;
+
+import java.nio.charset.StandardCharsets;
+
+import org.apache.pekko.util.ByteString;
+
+// immutable server-sent event, the frame is encoded once and shared by all the subscribers it is sent to
+public class SseEvent {
+
+    private final String id;
+
+    private final String name;
+
+    private final String data;
+
+    private final long retry;
+
+    private final ByteString frame;
+
+    public SseEvent(final String id, final String name, final String data, final long retry) {
+        this.id = checkField("id", id);
+        this.name = checkField("name", name);
+        this.data = data;
+        this.retry = retry;
+        this.frame = encode();
+    }
+
+    public static SseEvent of(final String data) {
+        return new SseEvent(null, null, data, -1);
+    }
+
+    public static SseEvent of(final String name, final String data) {
+        return new SseEvent(null, name, data, -1);
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getData() {
+        return data;
+    }
+
+    public long getRetry() {
+        return retry;
+    }
+
+    public ByteString getFrame() {
+        return frame;
+    }
+
+    // a line break would end the field and let the value inject other fields or events
+    private static String checkField(final String field, final String value) {
+        if (value != null && (value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0)) {
+            throw new IllegalArgumentException("Invalid event " + field + ", it can't contain a line break: '" + value + "'");
+        }
+        return value;
+    }
+
+    // see https://html.spec.whatwg.org/multipage/server-sent-events.html#event-stream-interpretation
+    private ByteString encode() {
+        final StringBuilder builder = new StringBuilder();
+        if (id != null) {
+            builder.append("id: ").append(id).append('\n');
+        }
+        if (name != null) {
+            builder.append("event: ").append(name).append('\n');
+        }
+        if (retry >= 0) {
+            builder.append("retry: ").append(retry).append('\n');
+        }
+        if (data != null) {
+            for (final String line : data.split("\r\n|\r|\n", -1)) {
+                builder.append("data: ").append(line).append('\n');
+            }
+        }
+        return ByteString.fromString(builder.append('\n').toString(), StandardCharsets.UTF_8);
+    }
+
+    @Override
+    public String toString() {
+        return "SseEvent(id=" + id + ", name=" + name + ')';
+    }
+}
@@ -25,6 +25,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.github.rmannibucau.playx.servlet.servlet.api.PlayServletContext;
+import com.github.rmannibucau.playx.servlet.servlet.api.RequestScope;
 
 import play.api.inject.Injector;
 
@@ -143,6 +144,15 @@ public class AsyncContextImpl implements AsyncContext {
             request.setAttribute(ASYNC_QUERY_STRING, request.getQueryString());
         }
 
+        final RequestScope.Handle scope = findRequestScope();
+        if (scope == null) {
+            doDispatch(request);
+        } else {
+            scope.wrap(() -> doDispatch(request)).run();
+        }
+    }
+
+    private void doDispatch(final HttpServletRequest request) {
         try {
             servlet.getInstance().service(request, response);
         } catch (final ServletException | IOException ioe) {
@@ -161,13 +171,20 @@ public class AsyncContextImpl implements AsyncContext {
     public void start(final Runnable run) {
         if (PlayServletContext.class.isInstance(getRequest().getServletContext())) {
             final PlayServletContext context = PlayServletContext.class.cast(getRequest().getServletContext());
-            context.getDefaultExecutor().execute(run);
+            final RequestScope.Handle scope = findRequestScope();
+            context.getDefaultExecutor().execute(scope == null ? run : scope.wrap(run));
         } else {
             // todo: log an error?
             run.run();
         }
     }
 
+    // captured by PlayServletContext when the request started
+    private RequestScope.Handle findRequestScope() {
+        final Object scope = request.getAttribute(RequestScope.Handle.class.getName());
+        return RequestScope.Handle.class.isInstance(scope) ? RequestScope.Handle.class.cast(scope) : null;
+    }
+
     @Override
     public void addListener(final AsyncListener listener) {
         listeners.add(new AsyncListenerWrapper(listener, request, response));
@@ -0,0 +1,149 @@
+package com.github.rmannibucau.playx.servlet.servlet.internal;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+// compresses the servlet output directly into the response buffer once the body is known to be big enough,
+// before that the bytes are kept raw in the same buffer so nothing is copied twice
+class CompressingOutputStream extends OutputStream {
+
+    private static final byte[] GZIP_HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+    private final ByteArrayOutputStream output;
+
+    private final ResponseCompression compression;
+
+    private final String encoding;
+
+    private final ResponseAdapter response;
+
+    private final byte[] chunk = new byte[8192];
+
+    private Deflater deflater;
+
+    private CRC32 crc;
+
+    private long raw;
+
+    private boolean decided;
+
+    private boolean finished;
+
+    CompressingOutputStream(final ByteArrayOutputStream output, final ResponseCompression compression,
+                            final String encoding, final ResponseAdapter response) {
+        this.output = output;
+        this.compression = compression;
+        this.encoding = encoding;
+        this.response = response;
+    }
+
+    @Override
+    public void write(final int b) {
+        write(new byte[] { (byte) b }, 0, 1);
+    }
+
+    // synchronized as an aborted response can release the deflater from another thread
+    @Override
+    public synchronized void write(final byte[] b, final int off, final int len) {
+        if (finished) {
+            throw new IllegalStateException("Response already completed");
+        }
+        if (len == 0) {
+            return;
+        }
+        raw += len;
+        if (deflater != null) {
+            deflate(b, off, len);
+            return;
+        }
+        output.write(b, off, len);
+        if (!decided && output.size() >= compression.getMinSize()) {
+            decided = true;
+            if (response.isCompressionCandidate()) {
+                start();
+            }
+        }
+    }
+
+    synchronized void finish() {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        if (deflater == null) {
+            return;
+        }
+        deflater.finish();
+        while (!deflater.finished()) {
+            drain();
+        }
+        if (crc != null) {
+            writeInt((int) crc.getValue());
+            writeInt((int) raw);
+        }
+        compression.onCompressed(raw, output.size());
+        compression.release(encoding, deflater);
+        deflater = null;
+    }
+
+    // returns true if the compression was started
+    synchronized boolean reset() {
+        final boolean started = deflater != null;
+        if (started) {
+            compression.release(encoding, deflater);
+            deflater = null;
+        }
+        crc = null;
+        raw = 0;
+        decided = false;
+        output.reset();
+        return started;
+    }
+
+    // aborted or streamed response: the deflater goes back to the pool and nothing can be written anymore
+    synchronized void release() {
+        finished = true;
+        if (deflater != null) {
+            compression.release(encoding, deflater);
+            deflater = null;
+        }
+    }
+
+    private void start() {
+        final byte[] buffered = output.toByteArray();
+        output.reset();
+        deflater = compression.acquire(encoding);
+        if (ResponseCompression.GZIP.equals(encoding)) {
+            crc = new CRC32();
+            output.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+        }
+        response.onCompressionStart(encoding);
+        deflate(buffered, 0, buffered.length);
+    }
+
+    private void deflate(final byte[] b, final int off, final int len) {
+        if (crc != null) {
+            crc.update(b, off, len);
+        }
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            drain();
+        }
+    }
+
+    private void drain() {
+        final int length = deflater.deflate(chunk, 0, chunk.length);
+        if (length > 0) {
+            output.write(chunk, 0, length);
+        }
+    }
+
+    private void writeInt(final int value) { // little endian as required by gzip trailer
+        output.write(value & 0xff);
+        output.write((value >> 8) & 0xff);
+        output.write((value >> 16) & 0xff);
+        output.write((value >> 24) & 0xff);
+    }
+}
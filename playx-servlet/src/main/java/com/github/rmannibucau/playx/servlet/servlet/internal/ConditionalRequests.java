@@ -0,0 +1,80 @@
+package com.github.rmannibucau.playx.servlet.servlet.internal;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import org.apache.pekko.util.ByteString;
+
+import play.http.HttpEntity;
+import play.mvc.Http;
+import play.mvc.Result;
+
+// turns a successful response in a 304 when the client already has it (If-None-Match/If-Modified-Since)
+public final class ConditionalRequests {
+
+    private ConditionalRequests() {
+        // no-op
+    }
+
+    public static Result apply(final Http.RequestHeader request, final Result result) {
+        if (result.status() != 200 || !("GET".equals(request.method()) || "HEAD".equals(request.method()))) {
+            return result;
+        }
+        final Optional<String> ifNoneMatch = request.header("If-None-Match");
+        if (ifNoneMatch.isPresent()) { // when present If-Modified-Since must be ignored
+            return findHeader(result, "ETag").filter(etag -> matches(ifNoneMatch.get(), etag))
+                    .map(etag -> notModified(result)).orElse(result);
+        }
+        return request.header("If-Modified-Since")
+                .flatMap(ConditionalRequests::parseDate)
+                .flatMap(since -> findHeader(result, "Last-Modified").flatMap(ConditionalRequests::parseDate)
+                        .filter(lastModified -> !lastModified.isAfter(since)))
+                .map(lastModified -> notModified(result))
+                .orElse(result);
+    }
+
+    public static String formatDate(final long epochMillis) {
+        return DateTimeFormatter.RFC_1123_DATE_TIME
+                .format(ZonedDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneOffset.UTC));
+    }
+
+    // weak comparison as required for If-None-Match
+    private static boolean matches(final String ifNoneMatch, final String etag) {
+        final String expected = opaque(etag);
+        return Stream.of(ifNoneMatch.split(",")).map(String::trim)
+                .anyMatch(candidate -> "*".equals(candidate) || opaque(candidate).equals(expected));
+    }
+
+    private static String opaque(final String etag) {
+        return etag.startsWith("W/") ? etag.substring(2) : etag;
+    }
+
+    private static Result notModified(final Result result) {
+        final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+        headers.putAll(result.headers());
+        headers.remove("Content-Length");
+        headers.remove("Content-Type");
+        headers.remove("Content-Encoding");
+        return new Result(304, headers, new HttpEntity.Strict(ByteString.emptyByteString(), Optional.empty()));
+    }
+
+    private static Optional<String> findHeader(final Result result, final String name) {
+        return result.headers().entrySet().stream().filter(e -> e.getKey().equalsIgnoreCase(name))
+                .map(Map.Entry::getValue).findFirst();
+    }
+
+    private static Optional<ZonedDateTime> parseDate(final String value) {
+        try {
+            return Optional.of(ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME));
+        } catch (final DateTimeParseException dtpe) {
+            return Optional.empty();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.github.rmannibucau.playx.servlet.servlet.internal;
+
+import static java.util.Collections.enumeration;
+
+import java.io.UnsupportedEncodingException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import javax.servlet.DispatcherType;
+import javax.servlet.RequestDispatcher;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletRequestWrapper;
+
+// request view used during a forward or an include, see servlet spec 9.3/9.4
+class DispatchedRequest extends HttpServletRequestWrapper {
+
+    private final DispatcherType type;
+
+    private final String requestUri;
+
+    private final String servletPath;
+
+    private final String pathInfo;
+
+    private final String queryString;
+
+    private final Map<String, String> queryParameters;
+
+    // dispatch attributes, kept out of the wrapped request to not leak once the include returns
+    private final Map<String, Object> attributes = new HashMap<>();
+
+    private DispatchedRequest(final HttpServletRequest request, final DispatcherType type, final String requestUri,
+                              final String servletPath, final String pathInfo, final String queryString) {
+        super(request);
+        this.type = type;
+        this.requestUri = requestUri;
+        this.servletPath = servletPath;
+        this.pathInfo = pathInfo;
+        this.queryString = queryString;
+        this.queryParameters = parseQuery(queryString);
+    }
+
+    static DispatchedRequest forward(final HttpServletRequest request, final String contextPath, final String path,
+                                     final String query, final String mapping) {
+        final DispatchedRequest dispatched = new DispatchedRequest(request, DispatcherType.FORWARD,
+                contextPath + path, toServletPath(mapping, path), toPathInfo(mapping, path), query);
+        if (request.getAttribute(RequestDispatcher.FORWARD_REQUEST_URI) == null) { // only the first forward is tracked
+            dispatched.attributes.put(RequestDispatcher.FORWARD_REQUEST_URI, request.getRequestURI());
+            dispatched.attributes.put(RequestDispatcher.FORWARD_CONTEXT_PATH, request.getContextPath());
+            dispatched.attributes.put(RequestDispatcher.FORWARD_SERVLET_PATH, request.getServletPath());
+            dispatched.attributes.put(RequestDispatcher.FORWARD_PATH_INFO, request.getPathInfo());
+            dispatched.attributes.put(RequestDispatcher.FORWARD_QUERY_STRING, request.getQueryString());
+        }
+        return dispatched;
+    }
+
+    static DispatchedRequest include(final HttpServletRequest request, final String contextPath, final String path,
+                                     final String query, final String mapping) {
+        final DispatchedRequest dispatched = new DispatchedRequest(request, DispatcherType.INCLUDE, null, null, null, query);
+        if (path != null) { // named dispatchers don't set the include attributes
+            dispatched.attributes.put(RequestDispatcher.INCLUDE_REQUEST_URI, contextPath + path);
+            dispatched.attributes.put(RequestDispatcher.INCLUDE_CONTEXT_PATH, contextPath);
+            dispatched.attributes.put(RequestDispatcher.INCLUDE_SERVLET_PATH, toServletPath(mapping, path));
+            dispatched.attributes.put(RequestDispatcher.INCLUDE_PATH_INFO, toPathInfo(mapping, path));
+            dispatched.attributes.put(RequestDispatcher.INCLUDE_QUERY_STRING, query);
+        }
+        return dispatched;
+    }
+
+    static DispatchedRequest named(final HttpServletRequest request, final DispatcherType type) {
+        return new DispatchedRequest(request, type, null, null, null, null);
+    }
+
+    @Override
+    public DispatcherType getDispatcherType() {
+        return type;
+    }
+
+    @Override
+    public String getRequestURI() {
+        return requestUri == null ? super.getRequestURI() : requestUri;
+    }
+
+    @Override
+    public StringBuffer getRequestURL() {
+        if (requestUri == null) {
+            return super.getRequestURL();
+        }
+        final StringBuffer base = new StringBuffer(getScheme()).append("://").append(getServerName());
+        final int serverPort = getServerPort();
+        if (serverPort != 80 && serverPort != 443) {
+            base.append(':').append(serverPort);
+        }
+        return base.append(requestUri);
+    }
+
+    @Override
+    public String getServletPath() {
+        return requestUri == null ? super.getServletPath() : servletPath;
+    }
+
+    @Override
+    public String getPathInfo() {
+        return requestUri == null ? super.getPathInfo() : pathInfo;
+    }
+
+    @Override
+    public String getQueryString() {
+        return type == DispatcherType.FORWARD && queryString != null ? queryString : super.getQueryString();
+    }
+
+    @Override // parameters of the dispatch path take precedence
+    public String getParameter(final String name) {
+        final String value = queryParameters.get(name);
+        return value != null ? value : super.getParameter(name);
+    }
+
+    @Override
+    public String[] getParameterValues(final String name) {
+        final String value = queryParameters.get(name);
+        return value != null ? new String[] { value } : super.getParameterValues(name);
+    }
+
+    @Override
+    public Map<String, String[]> getParameterMap() {
+        if (queryParameters.isEmpty()) {
+            return super.getParameterMap();
+        }
+        final Map<String, String[]> parameters = new HashMap<>(super.getParameterMap());
+        queryParameters.forEach((k, v) -> parameters.put(k, new String[] { v }));
+        return parameters;
+    }
+
+    @Override
+    public Enumeration<String> getParameterNames() {
+        return enumeration(getParameterMap().keySet());
+    }
+
+    @Override
+    public Object getAttribute(final String name) {
+        return attributes.containsKey(name) ? attributes.get(name) : super.getAttribute(name);
+    }
+
+    @Override
+    public Enumeration<String> getAttributeNames() {
+        final Set<String> names = new HashSet<>(attributes.keySet());
+        final Enumeration<String> parent = super.getAttributeNames();
+        while (parent.hasMoreElements()) {
+            names.add(parent.nextElement());
+        }
+        return enumeration(names);
+    }
+
+    @Override
+    public void setAttribute(final String name, final Object o) {
+        if (attributes.containsKey(name)) {
+            attributes.put(name, o);
+        } else {
+            super.setAttribute(name, o);
+        }
+    }
+
+    @Override
+    public void removeAttribute(final String name) {
+        if (attributes.remove(name) == null) {
+            super.removeAttribute(name);
+        }
+    }
+
+    // same logic as RequestAdapter for the servlet path exposed to the application
+    private static String toServletPath(final String mapping, final String path) {
+        if (mapping == null) {
+            return path;
+        }
+        return mapping.endsWith("/") && mapping.length() > 1 ? mapping.substring(0, mapping.length() - 1) : mapping;
+    }
+
+    private static String toPathInfo(final String mapping, final String path) {
+        if (mapping == null || "/".equals(mapping) || !path.startsWith(mapping)) {
+            return null;
+        }
+        final String info = path.substring(mapping.endsWith("/") ? mapping.length() - 1 : mapping.length());
+        return info.isEmpty() ? null : info;
+    }
+
+    private static Map<String, String> parseQuery(final String query) {
+        if (query == null || query.isEmpty()) {
+            return new HashMap<>();
+        }
+        final Map<String, String> parameters = new HashMap<>();
+        for (final String param : query.split("&")) {
+            final int sep = param.indexOf('=');
+            try {
+                final String name = URLDecoder.decode(sep < 0 ? param : param.substring(0, sep), StandardCharsets.UTF_8.name());
+                if (!parameters.containsKey(name)) {
+                    parameters.put(name, sep < 0 ? "" : URLDecoder.decode(param.substring(sep + 1), StandardCharsets.UTF_8.name()));
+                }
+            } catch (final UnsupportedEncodingException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+        return parameters;
+    }
+}
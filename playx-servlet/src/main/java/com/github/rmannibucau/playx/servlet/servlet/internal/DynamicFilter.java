@@ -29,6 +29,9 @@ public class DynamicFilter implements FilterRegistration.Dynamic {
 
     private final Map<String, String> initParameters = new HashMap<>();
 
+    // empty means REQUEST only which is the spec default
+    private final Set<DispatcherType> dispatcherTypes = EnumSet.noneOf(DispatcherType.class);
+
     private boolean asyncSupported;
 
     public DynamicFilter(final String name, final Filter filter) {
@@ -44,6 +47,10 @@ public class DynamicFilter implements FilterRegistration.Dynamic {
         return instance;
     }
 
+    public boolean accepts(final DispatcherType type) {
+        return dispatcherTypes.isEmpty() ? type == DispatcherType.REQUEST : dispatcherTypes.contains(type);
+    }
+
     @Override
     public void setAsyncSupported(final boolean isAsyncSupported) {
         asyncSupported = isAsyncSupported;
@@ -84,6 +91,7 @@ public class DynamicFilter implements FilterRegistration.Dynamic {
     @Override
     public void addMappingForServletNames(final EnumSet<DispatcherType> dispatcherTypes, final boolean isMatchAfter,
             final String... servletNames) {
+        addDispatcherTypes(dispatcherTypes);
         this.servletNames.addAll(asList(servletNames));
     }
 
@@ -95,6 +103,7 @@ public class DynamicFilter implements FilterRegistration.Dynamic {
     @Override
     public void addMappingForUrlPatterns(final EnumSet<DispatcherType> dispatcherTypes, final boolean isMatchAfter,
             final String... urlPatterns) {
+        addDispatcherTypes(dispatcherTypes);
         mappings.addAll(asList(urlPatterns));
     }
 
@@ -103,6 +112,14 @@ public class DynamicFilter implements FilterRegistration.Dynamic {
         return mappings;
     }
 
+    private void addDispatcherTypes(final EnumSet<DispatcherType> types) {
+        if (types == null || types.isEmpty()) {
+            this.dispatcherTypes.add(DispatcherType.REQUEST);
+        } else {
+            this.dispatcherTypes.addAll(types);
+        }
+    }
+
     public FilterConfig toFilterConfig(final ServletContext context) {
         return new FilterConfig() {
 
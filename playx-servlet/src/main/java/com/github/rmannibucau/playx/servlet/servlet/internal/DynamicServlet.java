@@ -11,12 +11,14 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Stream;
 
 import javax.servlet.MultipartConfigElement;
 import javax.servlet.Servlet;
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletContext;
+import javax.servlet.ServletException;
 import javax.servlet.ServletRegistration;
 import javax.servlet.ServletSecurityElement;
 
@@ -34,6 +36,10 @@ public class DynamicServlet implements ServletRegistration.Dynamic {
 
     private boolean asyncSupported;
 
+    private volatile boolean initialized;
+
+    private volatile long initDuration = -1;
+
     public DynamicServlet(final String name, final Servlet servlet) {
         this.name = name;
         this.instance = servlet;
@@ -47,6 +53,38 @@ public class DynamicServlet implements ServletRegistration.Dynamic {
         return instance;
     }
 
+    public boolean isInitialized() {
+        return initialized;
+    }
+
+    // in milliseconds, -1 if not yet initialized
+    public long getInitDuration() {
+        return initDuration;
+    }
+
+    // single flight, concurrent first requests on a lazy servlet wait for the same init
+    public void ensureInitialized(final ServletContext context) throws ServletException {
+        if (initialized) {
+            return;
+        }
+        synchronized (this) {
+            if (initialized) {
+                return;
+            }
+            final long start = System.nanoTime();
+            instance.init(toServletConfig(context));
+            initDuration = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+            initialized = true;
+        }
+    }
+
+    public synchronized void destroy() {
+        if (initialized) {
+            initialized = false;
+            instance.destroy();
+        }
+    }
+
     public int getLoadOnStartup() {
         return loadOnStartup;
     }
@@ -0,0 +1,115 @@
+package com.github.rmannibucau.playx.servlet.servlet.internal;
+
+import java.util.Locale;
+
+import javax.servlet.http.Cookie;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpServletResponseWrapper;
+
+// an included servlet writes in the including response but can't change its status nor its headers
+class IncludedResponse extends HttpServletResponseWrapper {
+
+    IncludedResponse(final HttpServletResponse response) {
+        super(response);
+    }
+
+    @Override
+    public void addCookie(final Cookie cookie) {
+        // no-op
+    }
+
+    @Override
+    public void sendError(final int sc, final String msg) {
+        // no-op
+    }
+
+    @Override
+    public void sendError(final int sc) {
+        // no-op
+    }
+
+    @Override
+    public void sendRedirect(final String location) {
+        // no-op
+    }
+
+    @Override
+    public void setDateHeader(final String name, final long date) {
+        // no-op
+    }
+
+    @Override
+    public void addDateHeader(final String name, final long date) {
+        // no-op
+    }
+
+    @Override
+    public void setHeader(final String name, final String value) {
+        // no-op
+    }
+
+    @Override
+    public void addHeader(final String name, final String value) {
+        // no-op
+    }
+
+    @Override
+    public void setIntHeader(final String name, final int value) {
+        // no-op
+    }
+
+    @Override
+    public void addIntHeader(final String name, final int value) {
+        // no-op
+    }
+
+    @Override
+    public void setStatus(final int sc) {
+        // no-op
+    }
+
+    @Override
+    public void setStatus(final int sc, final String sm) {
+        // no-op
+    }
+
+    @Override
+    public void setCharacterEncoding(final String charset) {
+        // no-op
+    }
+
+    @Override
+    public void setContentLength(final int len) {
+        // no-op
+    }
+
+    @Override
+    public void setContentLengthLong(final long len) {
+        // no-op
+    }
+
+    @Override
+    public void setContentType(final String type) {
+        // no-op
+    }
+
+    @Override
+    public void setBufferSize(final int size) {
+        // no-op
+    }
+
+    @Override
+    public void reset() {
+        // no-op
+    }
+
+    @Override
+    public void resetBuffer() {
+        // no-op
+    }
+
+    @Override
+    public void setLocale(final Locale loc) {
+        // no-op
+    }
+}
@@ -8,7 +8,7 @@ import javax.servlet.WriteListener;
 
 class OutputStreamAdapter extends ServletOutputStream {
 
-    private final OutputStream delegate;
+    private OutputStream delegate;
 
     private WriteListener listener;
 
@@ -16,6 +16,11 @@ class OutputStreamAdapter extends ServletOutputStream {
         this.delegate = output;
     }
 
+    // the response was closed by a forward, later writes are ignored
+    void discard() {
+        delegate = OutputStream.nullOutputStream();
+    }
+
     @Override
     public boolean isReady() {
         return true;
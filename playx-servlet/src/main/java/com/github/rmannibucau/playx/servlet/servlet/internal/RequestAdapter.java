@@ -1,5 +1,6 @@
 package com.github.rmannibucau.playx.servlet.servlet.internal;
 
+import static java.util.Collections.emptyEnumeration;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.enumeration;
 import static java.util.Optional.ofNullable;
@@ -89,6 +90,8 @@ public class RequestAdapter implements HttpServletRequest {
 
     private Map<String, String> params;
 
+    private WebSocketUpgrade webSocketUpgrade;
+
     public RequestAdapter(final Http.RequestHeader request, final InputStream entity, final ServletResponse response,
             final Injector injector, final ServletContext context, final DynamicServlet servlet, final String servletPath) {
         this.context = context;
@@ -134,20 +137,34 @@ public class RequestAdapter implements HttpServletRequest {
 
     @Override
     public String getHeader(final String name) {
+        if (isHiddenHeader(name)) {
+            return null;
+        }
         final List<String> option = playDelegate.getHeaders().getAll(name);
         return option != null && !option.isEmpty() ? option.iterator().next() : null;
     }
 
     @Override
     public Enumeration<String> getHeaders(final String name) {
+        if (isHiddenHeader(name)) {
+            return emptyEnumeration();
+        }
         return enumeration(playDelegate.getHeaders().getAll(name));
     }
 
     @Override
     public Enumeration<String> getHeaderNames() {
+        if (webSocketUpgrade != null) {
+            return enumeration(playDelegate.getHeaders().toMap().keySet().stream().filter(it -> !isHiddenHeader(it)).collect(toSet()));
+        }
         return enumeration(playDelegate.getHeaders().toMap().keySet());
     }
 
+    // play already negotiated the websocket framing, an extension (permessage-deflate) can't be added by the servlet
+    private boolean isHiddenHeader(final String name) {
+        return webSocketUpgrade != null && "Sec-WebSocket-Extensions".equalsIgnoreCase(name);
+    }
+
     @Override
     public int getIntHeader(final String name) {
         final String value = getHeader(name);
@@ -300,7 +317,14 @@ public class RequestAdapter implements HttpServletRequest {
 
     @Override
     public <T extends HttpUpgradeHandler> T upgrade(final Class<T> httpUpgradeHandlerClass) throws ServletException {
-        throw new ServletException("Unsupported");
+        if (webSocketUpgrade == null) { // only websocket requests routed by ServletRequestHandler can be upgraded
+            throw new ServletException("Unsupported");
+        }
+        return webSocketUpgrade.create(httpUpgradeHandlerClass);
+    }
+
+    public void setWebSocketUpgrade(final WebSocketUpgrade webSocketUpgrade) {
+        this.webSocketUpgrade = webSocketUpgrade;
     }
 
     @Override
@@ -446,7 +470,15 @@ public class RequestAdapter implements HttpServletRequest {
 
     @Override
     public RequestDispatcher getRequestDispatcher(final String path) {
-        throw new UnsupportedOperationException();
+        if (path == null) {
+            return null;
+        }
+        if (path.startsWith("/")) {
+            return context.getRequestDispatcher(path);
+        }
+        final String current = getServletPath() + ofNullable(getPathInfo()).orElse("");
+        final int lastSlash = current.lastIndexOf('/');
+        return context.getRequestDispatcher((lastSlash < 0 ? "/" : current.substring(0, lastSlash + 1)) + path);
     }
 
     @Override
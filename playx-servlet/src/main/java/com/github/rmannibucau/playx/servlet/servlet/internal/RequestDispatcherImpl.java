@@ -2,44 +2,94 @@ package com.github.rmannibucau.playx.servlet.servlet.internal;
 
 import java.io.IOException;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.RequestDispatcher;
 import javax.servlet.ServletException;
 import javax.servlet.ServletRequest;
 import javax.servlet.ServletResponse;
+import javax.servlet.ServletResponseWrapper;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
 import com.github.rmannibucau.playx.servlet.servlet.api.PlayServletContext;
 
+// dispatches in the caller thread, the target is resolved once when the dispatcher is created
 public class RequestDispatcherImpl implements RequestDispatcher {
 
     private final PlayServletContext context;
 
+    // null for named dispatchers
     private final String path;
 
-    public RequestDispatcherImpl(final PlayServletContext context, final String path) {
+    private final String queryString;
+
+    private final PlayServletContext.ServletMatching forward;
+
+    private final PlayServletContext.ServletMatching include;
+
+    public RequestDispatcherImpl(final PlayServletContext context, final String path, final String queryString,
+                                 final PlayServletContext.ServletMatching forward,
+                                 final PlayServletContext.ServletMatching include) {
         this.context = context;
         this.path = path;
+        this.queryString = queryString;
+        this.forward = forward;
+        this.include = include;
     }
 
-    private void doExecute(final ServletRequest request, final ServletResponse response) {
-        context.getDefaultExecutor().execute(() -> {
-            final DynamicServlet dynamicServlet = context.findFirstMatchingServlet(path)
-                    .orElseThrow(() -> new IllegalArgumentException("No matching servlet for path '" + path + "'"))
-                    .getDynamicServlet();
-            try {
-                dynamicServlet.getInstance().service(request, response);
-            } catch (final ServletException | IOException e) {
-                throw new IllegalStateException(e);
-            }
-        });
+    @Override
+    public void forward(final ServletRequest request, final ServletResponse response) throws ServletException, IOException {
+        if (response.isCommitted()) {
+            throw new IllegalStateException("Response already committed");
+        }
+        response.resetBuffer();
+
+        final HttpServletRequest http = toHttp(request);
+        doExecute(forward, path == null ? DispatchedRequest.named(http, DispatcherType.FORWARD)
+                : DispatchedRequest.forward(http, context.getContextPath(), path, queryString, forward.getServletPath()),
+                response);
+
+        ServletResponse root = response;
+        while (ServletResponseWrapper.class.isInstance(root)) {
+            root = ServletResponseWrapper.class.cast(root).getResponse();
+        }
+        if (ResponseAdapter.class.isInstance(root)) {
+            ResponseAdapter.class.cast(root).close();
+        }
     }
 
     @Override
-    public void forward(final ServletRequest request, final ServletResponse response) {
-        doExecute(request, response);
+    public void include(final ServletRequest request, final ServletResponse response) throws ServletException, IOException {
+        if (!HttpServletResponse.class.isInstance(response)) {
+            throw new ServletException("Not a http response: " + response);
+        }
+
+        // ensure what the caller already wrote is before the included content
+        response.flushBuffer();
+        doExecute(include, DispatchedRequest.include(toHttp(request), context.getContextPath(), path, queryString,
+                include.getServletPath()), new IncludedResponse(HttpServletResponse.class.cast(response)));
+        response.flushBuffer();
+    }
+
+    private HttpServletRequest toHttp(final ServletRequest request) throws ServletException {
+        if (!HttpServletRequest.class.isInstance(request)) {
+            throw new ServletException("Not a http request: " + request);
+        }
+        return HttpServletRequest.class.cast(request);
+    }
+
+    private void doExecute(final PlayServletContext.ServletMatching matching, final ServletRequest request,
+                           final ServletResponse response) throws ServletException, IOException {
+        matching.getDynamicServlet().ensureInitialized(context);
+        if (matching.getDynamicFilters().isEmpty()) {
+            matching.getDynamicServlet().getInstance().service(request, response);
+        } else {
+            new FilterChainImpl(matching.getDynamicFilters(), matching.getDynamicServlet()).doFilter(request, response);
+        }
     }
 
     @Override
-    public void include(final ServletRequest request, final ServletResponse response) {
-        doExecute(request, response);
+    public String toString() {
+        return "RequestDispatcherImpl(" + (path == null ? forward.getDynamicServlet().getName() : path) + ')';
     }
 }
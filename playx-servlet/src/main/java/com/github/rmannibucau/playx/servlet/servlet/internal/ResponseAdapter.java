@@ -4,22 +4,32 @@ import static java.util.Optional.ofNullable;
 
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintWriter;
 import java.net.URI;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Optional;
 import java.util.TreeMap;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Stream;
 
 import javax.servlet.ServletContext;
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.Cookie;
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.pekko.stream.javadsl.Source;
 import org.apache.pekko.util.ByteString;
 import play.http.HttpEntity;
 import play.mvc.Result;
@@ -38,6 +48,9 @@ public class ResponseAdapter implements HttpServletResponse {
 
     private boolean commited;
 
+    // a forward completed the response, the calling servlet can't change it anymore
+    private boolean closed;
+
     private String encoding;
 
     private int bufferSize = 8192;
@@ -53,17 +66,70 @@ public class ResponseAdapter implements HttpServletResponse {
 
     private final CompletableFuture<Result> completion = new CompletableFuture<>();
 
+    private volatile Runnable streamEnd;
+
+    private final AtomicReference<Runnable> requestEnd = new AtomicReference<>(); // request scope release, once
+
+    private final ResponseCompression compression;
+
+    private final String compressionEncoding;
+
+    private CompressingOutputStream compressingOutput;
+
+    // computed while the body is written when etags are enabled
+    private final MessageDigest digest;
+
     public ResponseAdapter(final String requestUri, final ServletContext context) {
+        this(requestUri, context, null, null, null);
+    }
+
+    public ResponseAdapter(final String requestUri, final ServletContext context,
+                           final ResponseCompression compression, final String compressionEncoding,
+                           final String etagAlgorithm) {
         this.requestUri = requestUri;
         this.context = context;
+        this.compression = compression;
+        this.compressionEncoding = compressionEncoding;
+        if (etagAlgorithm != null) {
+            try {
+                this.digest = MessageDigest.getInstance(etagAlgorithm);
+            } catch (final NoSuchAlgorithmException e) {
+                throw new IllegalArgumentException(e);
+            }
+        } else {
+            this.digest = null;
+        }
+        completion.whenComplete((result, error) -> { // cancelled or failed, don't leak a pooled deflater
+            if (error != null) {
+                releaseCompression();
+            }
+        });
     }
 
     public CompletionStage<Result> toResult() {
         return completion;
     }
 
+    // the body is a stream owned by the caller (server-sent events for instance), the response is committed
+    public void stream(final Source<ByteString, ?> source, final Runnable onEnd) {
+        if (completion.isDone()) {
+            throw new IllegalStateException("Response already committed");
+        }
+        commited = true;
+        streamEnd = onEnd;
+        releaseCompression();
+        final String contentType = headers.remove("Content-Type");
+        headers.remove("Content-Length");
+        completion.complete(new Result(status, headers, new HttpEntity.Streamed(source, Optional.empty(), ofNullable(contentType))));
+    }
+
     public void fail(final Throwable error) {
+        if (streamEnd != null) {
+            streamEnd.run();
+            return;
+        }
         if (completion.isDone()) {
+            releaseCompression();
             return;
         }
         try {
@@ -71,11 +137,44 @@ public class ResponseAdapter implements HttpServletResponse {
         } catch (final IOException e) {
             // no-op
         }
+        if (compressingOutput != null) {
+            compressingOutput.reset();
+        }
         completion.completeExceptionally(error);
     }
 
+    // servlet spec 9.4: the response is committed and closed before forward() returns
+    public void close() throws IOException {
+        flushBuffer();
+        commited = true;
+        closed = true;
+        if (outputStream != null) {
+            outputStream.discard();
+        }
+    }
+
+    public void setRequestEnd(final Runnable end) {
+        requestEnd.set(end);
+    }
+
     public void onComplete() {
+        try {
+            doComplete();
+        } finally {
+            final Runnable end = requestEnd.getAndSet(null);
+            if (end != null) {
+                end.run();
+            }
+        }
+    }
+
+    private void doComplete() {
+        if (streamEnd != null) {
+            streamEnd.run();
+            return;
+        }
         if (completion.isDone()) {
+            releaseCompression();
             return;
         }
         try {
@@ -83,12 +182,73 @@ public class ResponseAdapter implements HttpServletResponse {
         } catch (final IOException e) {
             // no-op
         }
+        if (compressingOutput != null) {
+            compressingOutput.finish();
+        }
+        if (compression != null && isCompressionCandidate()) { // identity variant (small body, no gzip client)
+            addVaryAcceptEncoding();
+        }
+        if (digest != null && status == SC_OK && !headers.containsKey("ETag")) {
+            final String encoding = headers.get("Content-Encoding");
+            headers.put("ETag", '"' + Base64.getUrlEncoder().withoutPadding().encodeToString(digest.digest())
+                    + (encoding == null ? "" : '-' + encoding) + '"');
+        }
         final String contentType = headers.remove("Content-Type");
         headers.remove("Content-Length");
         completion.complete(new Result(status, headers,
                 new HttpEntity.Strict(ByteString.fromArray(output.toByteArray()), ofNullable(contentType))));
     }
 
+    boolean isCompressionCandidate() {
+        return status >= SC_OK && status != SC_NO_CONTENT && status != SC_NOT_MODIFIED
+                && !headers.containsKey("Content-Encoding") && compression.isCompressible(getContentType());
+    }
+
+    void onCompressionStart(final String encoding) {
+        headers.put("Content-Encoding", encoding);
+        addVaryAcceptEncoding();
+    }
+
+    // shared caches must not serve the compressed variant to clients not accepting it and conversely
+    private void addVaryAcceptEncoding() {
+        headers.merge("Vary", "Accept-Encoding", (current, value) -> Stream.of(current.split(","))
+                .anyMatch(it -> it.trim().equalsIgnoreCase(value)) ? current : current + ", " + value);
+    }
+
+    // undo onCompressionStart, other Vary values set by the servlet are kept
+    private void onCompressionReset() {
+        headers.remove("Content-Encoding");
+        headers.computeIfPresent("Vary", (key, value) -> {
+            final List<String> values = new ArrayList<>();
+            for (final String it : value.split(",")) {
+                values.add(it.trim());
+            }
+            final int added = values.lastIndexOf("Accept-Encoding");
+            if (added >= 0) {
+                values.remove(added);
+            }
+            return values.isEmpty() ? null : String.join(", ", values);
+        });
+    }
+
+    private void releaseCompression() {
+        if (compressingOutput != null) {
+            compressingOutput.release();
+        }
+    }
+
+    private OutputStream body() {
+        final OutputStream body;
+        if (compression == null || compressionEncoding == null) {
+            body = output;
+        } else {
+            body = compressingOutput == null
+                    ? compressingOutput = new CompressingOutputStream(output, compression, compressionEncoding, this)
+                    : compressingOutput;
+        }
+        return digest == null ? body : new DigestOutputStream(body, digest);
+    }
+
     private String base() {
         final URI uri = URI.create(requestUri);
         return uri.getScheme() + "://" + uri.getAuthority();
@@ -161,7 +321,7 @@ public class ResponseAdapter implements HttpServletResponse {
 
     @Override
     public void addDateHeader(final String name, final long date) {
-        setHeader(name, Long.toString(date));
+        setHeader(name, ConditionalRequests.formatDate(date));
     }
 
     @Override
@@ -171,6 +331,9 @@ public class ResponseAdapter implements HttpServletResponse {
 
     @Override
     public void addHeader(final String name, final String value) {
+        if (closed) {
+            return;
+        }
         headers.put(name, value);
     }
 
@@ -181,11 +344,17 @@ public class ResponseAdapter implements HttpServletResponse {
 
     @Override
     public void addIntHeader(final String name, final int value) {
+        if (closed) {
+            return;
+        }
         headers.put(name, Integer.toString(value));
     }
 
     @Override
     public void setStatus(final int sc) {
+        if (closed) {
+            return;
+        }
         status = sc;
     }
 
@@ -226,7 +395,10 @@ public class ResponseAdapter implements HttpServletResponse {
 
     @Override
     public ServletOutputStream getOutputStream() {
-        return outputStream == null ? outputStream = new OutputStreamAdapter(output) : outputStream;
+        if (outputStream == null) {
+            outputStream = new OutputStreamAdapter(closed ? OutputStream.nullOutputStream() : body());
+        }
+        return outputStream;
     }
 
     @Override
@@ -277,7 +449,22 @@ public class ResponseAdapter implements HttpServletResponse {
 
     @Override
     public void resetBuffer() {
-        output.reset();
+        if (closed) {
+            throw new IllegalStateException("Response already committed");
+        }
+        if (writer != null) { // drain the writer buffer first, else its content would be written after the reset
+            writer.flush();
+        }
+        if (digest != null) {
+            digest.reset();
+        }
+        if (compressingOutput != null) {
+            if (compressingOutput.reset()) {
+                onCompressionReset();
+            }
+        } else {
+            output.reset();
+        }
     }
 
     @Override
@@ -287,7 +474,7 @@ public class ResponseAdapter implements HttpServletResponse {
 
     @Override
     public void reset() {
-        output.reset();
+        resetBuffer();
     }
 
     @Override
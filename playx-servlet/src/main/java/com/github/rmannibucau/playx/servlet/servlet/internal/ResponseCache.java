@@ -0,0 +1,308 @@
+package com.github.rmannibucau.playx.servlet.servlet.internal;
+
+import static java.util.Locale.ROOT;
+import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.toCollection;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.apache.pekko.util.ByteString;
+
+import play.http.HttpEntity;
+import play.mvc.Http;
+import play.mvc.Result;
+
+// in memory cache of the servlet responses for GET requests, entries are immutable and shared between hits
+public class ResponseCache {
+
+    private final int maxEntries;
+
+    private final long maxBytes;
+
+    // headers always part of the key (Accept-Encoding when compression is active for instance)
+    private final Collection<String> implicitVary;
+
+    // access ordered, eviction is LRU when maxEntries or maxBytes is reached
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, .75f, true);
+
+    // Vary header names (lowercased) of the last cached response per method + uri
+    private final ConcurrentMap<String, Collection<String>> varies = new ConcurrentHashMap<>();
+
+    // concurrent misses wait for the running invocation instead of calling the servlet again
+    private final ConcurrentMap<String, CompletableFuture<Void>> inflight = new ConcurrentHashMap<>();
+
+    // non cacheable responses are replayed for the collapsed requests there and not on the leader completion thread
+    private final Executor executor;
+
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+
+    private final AtomicLong misses = new AtomicLong();
+
+    private final AtomicLong collapsed = new AtomicLong();
+
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ResponseCache(final int maxEntries, final long maxBytes, final Collection<String> implicitVary,
+                         final Executor executor) {
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes;
+        this.implicitVary = implicitVary.stream().map(it -> it.toLowerCase(ROOT)).collect(toCollection(TreeSet::new));
+        this.executor = executor;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getCollapsed() {
+        return collapsed.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized int getSize() {
+        return entries.size();
+    }
+
+    public synchronized long getBytes() {
+        return bytes;
+    }
+
+    public boolean accepts(final Http.RequestHeader request) {
+        final Http.Headers headers = request.headers();
+        if (!"GET".equals(request.method()) || headers.contains("Authorization")) {
+            return false;
+        }
+        return Stream.concat(headers.getAll("Cache-Control").stream(), headers.getAll("Pragma").stream())
+                .map(it -> it.toLowerCase(ROOT))
+                .noneMatch(it -> it.contains("no-cache") || it.contains("no-store"));
+    }
+
+    public CompletionStage<Result> execute(final Http.RequestHeader request, final Supplier<CompletionStage<Result>> invocation) {
+        // virtual hosts and http/https can serve different content for the same uri
+        final String base = request.method() + ' ' + (request.secure() ? "https" : "http") + "://" + request.host() + request.uri();
+        final String key = toKey(base, request);
+        final Result cached = lookup(key);
+        if (cached != null) {
+            hits.incrementAndGet();
+            return CompletableFuture.completedFuture(cached);
+        }
+
+        final CompletableFuture<Void> leader = new CompletableFuture<>();
+        final CompletableFuture<Void> running = inflight.putIfAbsent(key, leader);
+        if (running != null) {
+            collapsed.incrementAndGet();
+            return running.thenCompose(done -> {
+                final Result result = lookup(toKey(base, request));
+                if (result != null) {
+                    hits.incrementAndGet();
+                    return CompletableFuture.completedFuture(result);
+                }
+                // not cacheable, each request must go through the servlet
+                misses.incrementAndGet();
+                return CompletableFuture.supplyAsync(invocation, executor).thenCompose(identity());
+            });
+        }
+
+        misses.incrementAndGet();
+        final CompletionStage<Result> result;
+        try {
+            result = invocation.get();
+        } catch (final RuntimeException re) {
+            release(key, leader);
+            throw re;
+        }
+        return result.whenComplete((response, error) -> {
+            try {
+                if (response != null) {
+                    store(base, request, response);
+                }
+            } finally {
+                release(key, leader);
+            }
+        });
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        varies.clear();
+        bytes = 0;
+    }
+
+    private void release(final String key, final CompletableFuture<Void> leader) {
+        inflight.remove(key, leader);
+        leader.complete(null);
+    }
+
+    private Result lookup(final String key) {
+        final Entry entry;
+        synchronized (this) {
+            entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt <= System.currentTimeMillis()) {
+                entries.remove(key);
+                bytes -= entry.body.length();
+                return null;
+            }
+        }
+        return entry.toResult();
+    }
+
+    private void store(final String base, final Http.RequestHeader request, final Result response) {
+        if (response.status() != 200 || !HttpEntity.Strict.class.isInstance(response.body())) {
+            return;
+        }
+        final Map<String, String> headers = response.headers();
+        if (headers.keySet().stream().anyMatch("Set-Cookie"::equalsIgnoreCase)) {
+            return;
+        }
+        final long ttl = findHeader(headers, "Cache-Control").map(this::maxAge).orElse(-1L);
+        if (ttl <= 0) {
+            return;
+        }
+        final Collection<String> vary = findHeader(headers, "Vary").map(this::parseVary).orElseGet(TreeSet::new);
+        if (vary.contains("*")) {
+            return;
+        }
+        vary.addAll(implicitVary);
+
+        final HttpEntity.Strict entity = HttpEntity.Strict.class.cast(response.body());
+        final long now = System.currentTimeMillis();
+        final Entry entry = new Entry(response.status(), new TreeMap<>(headers), entity.data(),
+                entity.contentType().orElse(null), now, now + TimeUnit.SECONDS.toMillis(ttl));
+        if (entry.body.length() > maxBytes) {
+            return;
+        }
+
+        varies.put(base, vary);
+        final String key = toKey(base, vary, request);
+        synchronized (this) {
+            final Entry previous = entries.put(key, entry);
+            if (previous != null) {
+                bytes -= previous.body.length();
+            }
+            bytes += entry.body.length();
+            final Iterator<Entry> lru = entries.values().iterator();
+            while ((entries.size() > maxEntries || bytes > maxBytes) && lru.hasNext()) {
+                final Entry evicted = lru.next();
+                lru.remove();
+                bytes -= evicted.body.length();
+                evictions.incrementAndGet();
+            }
+        }
+    }
+
+    private String toKey(final String base, final Http.RequestHeader request) {
+        return toKey(base, varies.getOrDefault(base, implicitVary), request);
+    }
+
+    private String toKey(final String base, final Collection<String> vary, final Http.RequestHeader request) {
+        if (vary.isEmpty()) {
+            return base;
+        }
+        final StringBuilder key = new StringBuilder(base);
+        for (final String header : vary) {
+            final List<String> values = request.headers().getAll(header);
+            key.append('\n').append(header).append('=').append(values == null ? "" : String.join(",", values));
+        }
+        return key.toString();
+    }
+
+    private long maxAge(final String cacheControl) {
+        long maxAge = -1;
+        for (final String directive : cacheControl.toLowerCase(ROOT).split(",")) {
+            final String value = directive.trim();
+            if (value.equals("no-store") || value.equals("no-cache") || value.equals("private")) {
+                return -1;
+            }
+            if (value.startsWith("s-maxage=")) { // shared cache, takes precedence
+                return parseSeconds(value.substring("s-maxage=".length()));
+            }
+            if (value.startsWith("max-age=")) {
+                maxAge = parseSeconds(value.substring("max-age=".length()));
+            }
+        }
+        return maxAge;
+    }
+
+    private long parseSeconds(final String value) {
+        try {
+            return Long.parseLong(value.trim());
+        } catch (final NumberFormatException nfe) {
+            return -1;
+        }
+    }
+
+    private Collection<String> parseVary(final String value) {
+        return Stream.of(value.split(",")).map(String::trim).filter(it -> !it.isEmpty())
+                .map(it -> it.toLowerCase(ROOT)).collect(toCollection(TreeSet::new));
+    }
+
+    private static Optional<String> findHeader(final Map<String, String> headers, final String name) {
+        return headers.entrySet().stream().filter(e -> e.getKey().equalsIgnoreCase(name)).map(Map.Entry::getValue).findFirst();
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCache(hits=" + hits.get() + ", misses=" + misses.get() + ", collapsed=" + collapsed.get()
+                + ", evictions=" + evictions.get() + ')';
+    }
+
+    private static class Entry {
+
+        private final int status;
+
+        private final Map<String, String> headers;
+
+        private final ByteString body;
+
+        private final String contentType;
+
+        private final long createdAt;
+
+        private final long expiresAt;
+
+        private Entry(final int status, final Map<String, String> headers, final ByteString body, final String contentType,
+                      final long createdAt, final long expiresAt) {
+            this.status = status;
+            this.headers = headers;
+            this.body = body;
+            this.contentType = contentType;
+            this.createdAt = createdAt;
+            this.expiresAt = expiresAt;
+        }
+
+        private Result toResult() {
+            final Map<String, String> headers = new TreeMap<>(String.CASE_INSENSITIVE_ORDER);
+            headers.putAll(this.headers);
+            headers.put("Age", Long.toString(TimeUnit.MILLISECONDS.toSeconds(System.currentTimeMillis() - createdAt)));
+            return new Result(status, headers, new HttpEntity.Strict(body, Optional.ofNullable(contentType)));
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.github.rmannibucau.playx.servlet.servlet.internal;
+
+import static java.util.Locale.ROOT;
+
+import java.util.Collection;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+
+// shared by all responses of a context, holds the configuration, the deflater pools and the statistics
+public class ResponseCompression {
+
+    public static final String GZIP = "gzip";
+
+    public static final String DEFLATE = "deflate";
+
+    private final int level;
+
+    private final int minSize;
+
+    private final Collection<String> excludedContentTypes;
+
+    // deflaters are pooled and not bound to a thread since async servlets can write from any thread
+    private final BlockingQueue<Deflater> gzipDeflaters;
+
+    private final BlockingQueue<Deflater> zlibDeflaters;
+
+    private final AtomicLong compressedResponses = new AtomicLong();
+
+    private final AtomicLong rawBytes = new AtomicLong();
+
+    private final AtomicLong compressedBytes = new AtomicLong();
+
+    public ResponseCompression(final int level, final int minSize, final int poolSize,
+                               final Collection<String> excludedContentTypes) {
+        this.level = level;
+        this.minSize = minSize;
+        this.excludedContentTypes = excludedContentTypes;
+        this.gzipDeflaters = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+        this.zlibDeflaters = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+    }
+
+    public int getMinSize() {
+        return minSize;
+    }
+
+    public long getCompressedResponses() {
+        return compressedResponses.get();
+    }
+
+    public long getRawBytes() {
+        return rawBytes.get();
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.get();
+    }
+
+    // returns the encoding to use for the response or null if the client does not accept any supported one
+    public String negotiate(final String acceptEncoding) {
+        if (acceptEncoding == null || acceptEncoding.isEmpty()) {
+            return null;
+        }
+        float gzip = -1;
+        float deflate = -1;
+        float any = -1;
+        for (final String part : acceptEncoding.split(",")) {
+            final String[] segments = part.split(";");
+            final String coding = segments[0].trim().toLowerCase(ROOT);
+            float quality = 1;
+            for (int i = 1; i < segments.length; i++) {
+                final String param = segments[i].trim();
+                if (param.startsWith("q=")) {
+                    try {
+                        quality = Float.parseFloat(param.substring(2).trim());
+                    } catch (final NumberFormatException nfe) {
+                        quality = 0;
+                    }
+                }
+            }
+            switch (coding) {
+                case GZIP:
+                case "x-gzip":
+                    gzip = Math.max(gzip, quality);
+                    break;
+                case DEFLATE:
+                    deflate = Math.max(deflate, quality);
+                    break;
+                case "*":
+                    any = quality;
+                    break;
+                default:
+            }
+        }
+        if (gzip < 0) {
+            gzip = any;
+        }
+        if (deflate < 0) {
+            deflate = any;
+        }
+        if (gzip <= 0 && deflate <= 0) {
+            return null;
+        }
+        return gzip >= deflate ? GZIP : DEFLATE;
+    }
+
+    public boolean isCompressible(final String contentType) {
+        if (contentType == null) {
+            return true;
+        }
+        final String normalized = contentType.trim().toLowerCase(ROOT);
+        return excludedContentTypes.stream().noneMatch(normalized::startsWith);
+    }
+
+    Deflater acquire(final String encoding) {
+        final Deflater deflater = queue(encoding).poll();
+        if (deflater != null) {
+            return deflater;
+        }
+        // gzip header and trailer are written by the stream so only the raw deflate format is needed
+        return new Deflater(level, GZIP.equals(encoding));
+    }
+
+    void release(final String encoding, final Deflater deflater) {
+        deflater.reset();
+        if (!queue(encoding).offer(deflater)) {
+            deflater.end();
+        }
+    }
+
+    void onCompressed(final long raw, final long compressed) {
+        compressedResponses.incrementAndGet();
+        rawBytes.addAndGet(raw);
+        compressedBytes.addAndGet(compressed);
+    }
+
+    public void close() {
+        Deflater deflater;
+        while ((deflater = gzipDeflaters.poll()) != null) {
+            deflater.end();
+        }
+        while ((deflater = zlibDeflaters.poll()) != null) {
+            deflater.end();
+        }
+    }
+
+    private BlockingQueue<Deflater> queue(final String encoding) {
+        return GZIP.equals(encoding) ? gzipDeflaters : zlibDeflaters;
+    }
+
+    @Override
+    public String toString() {
+        return "ResponseCompression(responses=" + compressedResponses.get() + ", raw=" + rawBytes.get()
+                + ", compressed=" + compressedBytes.get() + ')';
+    }
+}
@@ -0,0 +1,90 @@
+package com.github.rmannibucau.playx.servlet.servlet.internal;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+// mappings compiled once, lookup follows the servlet spec precedence (12.1):
+// exact > longest path prefix > extension > default, for a same mapping the first registered servlet wins
+public class ServletMappingIndex {
+
+    private final Map<String, DynamicServlet> exact = new HashMap<>();
+
+    // key is the mapping without the trailing "*", i.e. ends with "/"
+    private final Map<String, DynamicServlet> prefixes = new HashMap<>();
+
+    // key is the extension with the dot
+    private final Map<String, DynamicServlet> extensions = new HashMap<>();
+
+    private DynamicServlet defaultServlet;
+
+    public ServletMappingIndex(final Collection<DynamicServlet> servlets) {
+        servlets.forEach(servlet -> servlet.getMappings().forEach(mapping -> {
+            if (mapping.endsWith("/*")) {
+                prefixes.putIfAbsent(mapping.substring(0, mapping.length() - 1), servlet);
+            } else if (mapping.startsWith("*.")) {
+                extensions.putIfAbsent(mapping.substring(1), servlet);
+            } else if ("/".equals(mapping)) {
+                if (defaultServlet == null) {
+                    defaultServlet = servlet;
+                }
+            } else {
+                exact.putIfAbsent(mapping, servlet);
+            }
+        }));
+    }
+
+    // path is relative to the context, returns null if no servlet matches
+    public Match find(final String path) {
+        final DynamicServlet exactServlet = exact.get(path);
+        if (exactServlet != null) {
+            return new Match(exactServlet, path);
+        }
+        if (!prefixes.isEmpty()) {
+            for (int slash = path.lastIndexOf('/'); slash >= 0; slash = path.lastIndexOf('/', slash - 1)) {
+                final String prefix = path.substring(0, slash + 1);
+                final DynamicServlet prefixServlet = prefixes.get(prefix);
+                if (prefixServlet != null) {
+                    return new Match(prefixServlet, prefix);
+                }
+                if (slash == 0) {
+                    break;
+                }
+            }
+        }
+        if (!extensions.isEmpty()) {
+            final int dot = path.lastIndexOf('.');
+            if (dot > path.lastIndexOf('/')) {
+                final DynamicServlet extensionServlet = extensions.get(path.substring(dot));
+                if (extensionServlet != null) {
+                    return new Match(extensionServlet, path);
+                }
+            }
+        }
+        return defaultServlet == null ? null : new Match(defaultServlet, "/");
+    }
+
+    public boolean isEmpty() {
+        return exact.isEmpty() && prefixes.isEmpty() && extensions.isEmpty() && defaultServlet == null;
+    }
+
+    public static class Match {
+
+        private final DynamicServlet servlet;
+
+        private final String servletPath;
+
+        private Match(final DynamicServlet servlet, final String servletPath) {
+            this.servlet = servlet;
+            this.servletPath = servletPath;
+        }
+
+        public DynamicServlet getServlet() {
+            return servlet;
+        }
+
+        public String getServletPath() {
+            return servletPath;
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.github.rmannibucau.playx.servlet.servlet.internal;
+
+import org.apache.pekko.stream.Materializer;
+import org.apache.pekko.stream.scaladsl.Flow;
+
+import com.github.rmannibucau.playx.servlet.servlet.api.PlayServletContext;
+
+import play.api.http.websocket.Message;
+import play.api.mvc.RequestHeader;
+import play.api.mvc.Result;
+import play.api.mvc.WebSocket;
+import scala.concurrent.Future;
+import scala.jdk.javaapi.FutureConverters;
+import scala.util.Either;
+import scala.util.Left;
+import scala.util.Right;
+
+// the servlet handles the handshake, if it upgrades the request its handler is bound to the play websocket
+public class ServletWebSocket implements WebSocket {
+
+    private final PlayServletContext context;
+
+    private final PlayServletContext.ServletMatching servlet;
+
+    private final Materializer materializer;
+
+    public ServletWebSocket(final PlayServletContext context, final PlayServletContext.ServletMatching servlet,
+            final Materializer materializer) {
+        this.context = context;
+        this.servlet = servlet;
+        this.materializer = materializer;
+    }
+
+    @Override
+    public Future<Either<Result, Flow<Message, Message, ?>>> apply(final RequestHeader request) {
+        final WebSocketUpgrade upgrade = context.newWebSocketUpgrade();
+        return FutureConverters.asScala(context.executeUpgrade(servlet, request.asJava(), upgrade).thenApply(result -> {
+            if (upgrade.getHandler() == null) { // the servlet rejected the handshake
+                return new Left<>(result.asScala());
+            }
+            return new Right<>(upgrade.toFlow(materializer).asScala());
+        }));
+    }
+
+    @Override
+    public String toString() {
+        return "ServletWebSocket(" + servlet.getDynamicServlet().getName() + ')';
+    }
+}
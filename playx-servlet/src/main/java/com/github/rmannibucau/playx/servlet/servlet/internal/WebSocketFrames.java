@@ -0,0 +1,196 @@
+package com.github.rmannibucau.playx.servlet.servlet.internal;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.pekko.util.ByteString;
+import org.apache.pekko.util.ByteStringBuilder;
+
+import play.api.http.websocket.BinaryMessage;
+import play.api.http.websocket.CloseMessage;
+import play.api.http.websocket.Message;
+import play.api.http.websocket.PingMessage;
+import play.api.http.websocket.PongMessage;
+import play.api.http.websocket.TextMessage;
+import scala.Option;
+
+// play already decoded the client frames and encodes the server ones but servlet websocket stacks work on raw bytes,
+// so messages are re-encoded as RFC 6455 frames for the upgrade handler and its frames are decoded back to messages
+final class WebSocketFrames {
+
+    private static final int CONTINUATION = 0x0;
+    private static final int TEXT = 0x1;
+    private static final int BINARY = 0x2;
+    private static final int CLOSE = 0x8;
+    private static final int PING = 0x9;
+    private static final int PONG = 0xA;
+
+    private WebSocketFrames() {
+        // no-op
+    }
+
+    // client frames must be masked, a zero key keeps the payload as it is
+    static ByteString encodeClientFrame(final Message message) {
+        if (TextMessage.class.isInstance(message)) {
+            return frame(TEXT, ByteString.fromString(TextMessage.class.cast(message).data(), StandardCharsets.UTF_8));
+        }
+        if (BinaryMessage.class.isInstance(message)) {
+            return frame(BINARY, BinaryMessage.class.cast(message).data());
+        }
+        if (PingMessage.class.isInstance(message)) {
+            return frame(PING, PingMessage.class.cast(message).data());
+        }
+        if (PongMessage.class.isInstance(message)) {
+            return frame(PONG, PongMessage.class.cast(message).data());
+        }
+        if (CloseMessage.class.isInstance(message)) {
+            final CloseMessage close = CloseMessage.class.cast(message);
+            if (close.statusCode().isEmpty()) {
+                return frame(CLOSE, ByteString.emptyByteString());
+            }
+            final int code = Integer.class.cast(close.statusCode().get());
+            return frame(CLOSE, new ByteStringBuilder()
+                    .putByte((byte) (code >> 8)).putByte((byte) code)
+                    .append(ByteString.fromString(close.reason(), StandardCharsets.UTF_8))
+                    .result());
+        }
+        throw new IllegalArgumentException("Unsupported message: " + message);
+    }
+
+    private static ByteString frame(final int opcode, final ByteString payload) {
+        final ByteStringBuilder builder = new ByteStringBuilder();
+        builder.putByte((byte) (0x80 | opcode));
+        final int length = payload.size();
+        if (length < 126) {
+            builder.putByte((byte) (0x80 | length));
+        } else if (length <= 0xFFFF) {
+            builder.putByte((byte) (0x80 | 126)).putByte((byte) (length >> 8)).putByte((byte) length);
+        } else {
+            builder.putByte((byte) (0x80 | 127));
+            for (int shift = 56; shift >= 0; shift -= 8) {
+                builder.putByte((byte) ((long) length >> shift));
+            }
+        }
+        builder.putBytes(new byte[4]); // mask key
+        return builder.append(payload).result();
+    }
+
+    // accumulates the bytes written by the upgrade handler and emits the complete messages, not thread safe
+    static class Decoder {
+
+        private ByteString pending = ByteString.emptyByteString();
+
+        private int fragmentedOpcode = -1;
+
+        private ByteStringBuilder fragments;
+
+        List<Message> feed(final ByteString bytes) {
+            pending = pending.concat(bytes);
+            List<Message> messages = null;
+            Message message;
+            while ((message = next()) != null) {
+                if (messages == null) {
+                    messages = new ArrayList<>(1);
+                }
+                messages.add(message);
+            }
+            return messages == null ? List.of() : messages;
+        }
+
+        private Message next() {
+            while (true) {
+                if (pending.size() < 2) {
+                    return null;
+                }
+                final int first = pending.apply(0) & 0xFF;
+                final int second = pending.apply(1) & 0xFF;
+                if ((first & 0x70) != 0) {
+                    throw new IllegalStateException("WebSocket extensions are not supported");
+                }
+                final boolean fin = (first & 0x80) != 0;
+                final int opcode = first & 0x0F;
+                final boolean masked = (second & 0x80) != 0;
+                int headerLength = 2;
+                long length = second & 0x7F;
+                if (length == 126) {
+                    if (pending.size() < 4) {
+                        return null;
+                    }
+                    length = ((pending.apply(2) & 0xFF) << 8) | (pending.apply(3) & 0xFF);
+                    headerLength = 4;
+                } else if (length == 127) {
+                    if (pending.size() < 10) {
+                        return null;
+                    }
+                    length = 0;
+                    for (int i = 2; i < 10; i++) {
+                        length = (length << 8) | (pending.apply(i) & 0xFF);
+                    }
+                    headerLength = 10;
+                }
+                final int maskOffset = headerLength;
+                if (masked) {
+                    headerLength += 4;
+                }
+                if (length > Integer.MAX_VALUE - headerLength) {
+                    throw new IllegalStateException("Frame too big: " + length);
+                }
+                final int frameLength = headerLength + (int) length;
+                if (pending.size() < frameLength) {
+                    return null;
+                }
+
+                ByteString payload = pending.slice(headerLength, frameLength);
+                if (masked) {
+                    final byte[] unmasked = payload.toArray();
+                    for (int i = 0; i < unmasked.length; i++) {
+                        unmasked[i] ^= pending.apply(maskOffset + (i % 4));
+                    }
+                    payload = ByteString.fromArrayUnsafe(unmasked);
+                }
+                pending = pending.drop(frameLength);
+
+                switch (opcode) {
+                    case PING:
+                        return new PingMessage(payload);
+                    case PONG:
+                        return new PongMessage(payload);
+                    case CLOSE:
+                        if (payload.size() < 2) {
+                            return new CloseMessage(Option.empty(), "");
+                        }
+                        return new CloseMessage(Option.apply(((payload.apply(0) & 0xFF) << 8) | (payload.apply(1) & 0xFF)),
+                                payload.drop(2).utf8String());
+                    case CONTINUATION:
+                        if (fragments == null) {
+                            throw new IllegalStateException("Continuation frame without a started message");
+                        }
+                        fragments.append(payload);
+                        if (fin) {
+                            final ByteString data = fragments.result();
+                            final int type = fragmentedOpcode;
+                            fragments = null;
+                            fragmentedOpcode = -1;
+                            return toMessage(type, data);
+                        }
+                        continue;
+                    case TEXT:
+                    case BINARY:
+                        if (fin) {
+                            return toMessage(opcode, payload);
+                        }
+                        fragmentedOpcode = opcode;
+                        fragments = new ByteStringBuilder().append(payload);
+                        continue;
+                    default:
+                        throw new IllegalStateException("Unknown opcode: " + opcode);
+                }
+            }
+        }
+
+        private Message toMessage(final int opcode, final ByteString data) {
+            return opcode == TEXT ? new TextMessage(data.utf8String()) : new BinaryMessage(data);
+        }
+    }
+}
@@ -0,0 +1,424 @@
+package com.github.rmannibucau.playx.servlet.servlet.internal;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpUpgradeHandler;
+import javax.servlet.http.WebConnection;
+
+import org.apache.pekko.Done;
+import org.apache.pekko.NotUsed;
+import org.apache.pekko.japi.Pair;
+import org.apache.pekko.stream.Materializer;
+import org.apache.pekko.stream.OverflowStrategy;
+import org.apache.pekko.stream.QueueOfferResult;
+import org.apache.pekko.stream.javadsl.Flow;
+import org.apache.pekko.stream.javadsl.Sink;
+import org.apache.pekko.stream.javadsl.Source;
+import org.apache.pekko.stream.javadsl.SourceQueueWithComplete;
+import org.apache.pekko.util.ByteString;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import play.api.http.websocket.CloseMessage;
+import play.api.http.websocket.Message;
+
+// HttpServletRequest#upgrade support: the servlet picks the handler then it is bound to the play websocket flow,
+// the connection streams are non blocking so an idle connection doesn't hold any thread
+public class WebSocketUpgrade implements AutoCloseable {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(WebSocketUpgrade.class);
+
+    private final Executor executor;
+
+    private final int bufferSize;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private volatile HttpUpgradeHandler handler;
+
+    private volatile Connection connection;
+
+    // listener callbacks are chained to never run concurrently
+    private CompletableFuture<Void> callbacks = CompletableFuture.completedFuture(null);
+
+    public WebSocketUpgrade(final Executor executor, final int bufferSize) {
+        this.executor = executor;
+        this.bufferSize = bufferSize;
+    }
+
+    public HttpUpgradeHandler getHandler() {
+        return handler;
+    }
+
+    <T extends HttpUpgradeHandler> T create(final Class<T> type) throws ServletException {
+        if (handler != null) {
+            throw new IllegalStateException("Request already upgraded");
+        }
+        try {
+            final T instance = type.getConstructor().newInstance();
+            handler = instance;
+            return instance;
+        } catch (final Exception e) {
+            throw new ServletException("Can't create " + type, e);
+        }
+    }
+
+    // to call once the servlet returned, the handler is initialized on the servlet executor when play materializes the flow,
+    // before any listener callback since they are chained
+    public Flow<Message, Message, ?> toFlow(final Materializer materializer) {
+        final Pair<SourceQueueWithComplete<Message>, Source<Message, NotUsed>> outbound = Source
+                .<Message>queue(bufferSize, OverflowStrategy.backpressure()).preMaterialize(materializer);
+        connection = new Connection(new Input(), new Output(outbound.first()));
+
+        final Sink<Message, NotUsed> inbound = Flow.<Message>create()
+                .mapAsync(1, message -> connection.input.offer(WebSocketFrames.encodeClientFrame(message)))
+                .to(Sink.onComplete(done -> connection.input.complete(done.isFailure() ? done.failed().get() : null)));
+        return Flow.fromSinkAndSourceCoupled(inbound, outbound.second()
+                .watchTermination((mat, termination) -> {
+                    termination.whenComplete((done, error) -> close());
+                    return mat;
+                })
+                .mapMaterializedValue(mat -> { // init is user code, it must not hold the pekko stream thread
+                    callback(() -> {
+                        try {
+                            handler.init(connection);
+                        } catch (final RuntimeException re) {
+                            LOGGER.error("Can't initialize " + handler, re);
+                            close();
+                        }
+                    });
+                    return mat;
+                }));
+    }
+
+    @Override
+    public void close() {
+        if (!closed.compareAndSet(false, true)) {
+            return;
+        }
+        final Connection current = connection;
+        if (current != null) {
+            current.input.complete(null);
+            current.output.queue.complete();
+        }
+        try {
+            handler.destroy();
+        } catch (final RuntimeException re) {
+            LOGGER.warn("Error destroying " + handler, re);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "WebSocketUpgrade(" + handler + ')';
+    }
+
+    private final class Connection implements WebConnection {
+
+        private final Input input;
+
+        private final Output output;
+
+        private Connection(final Input input, final Output output) {
+            this.input = input;
+            this.output = output;
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            return input;
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return output;
+        }
+
+        @Override
+        public void close() {
+            output.close();
+        }
+    }
+
+    private synchronized void callback(final Runnable task) {
+        callbacks = callbacks.thenRunAsync(task, executor).exceptionally(error -> {
+            LOGGER.error(error.getMessage(), error);
+            return null;
+        });
+    }
+
+    // client frames, play pushes the next message only once the handler consumed the current one
+    private final class Input extends ServletInputStream {
+
+        private ByteString chunk;
+
+        private CompletableFuture<Done> consumed;
+
+        private boolean finished;
+
+        private ReadListener listener;
+
+        private synchronized CompletionStage<Done> offer(final ByteString frame) {
+            if (finished) {
+                return CompletableFuture.completedFuture(Done.getInstance());
+            }
+            chunk = frame;
+            consumed = new CompletableFuture<>();
+            if (listener != null) {
+                final ReadListener current = listener;
+                callback(() -> {
+                    try {
+                        current.onDataAvailable();
+                    } catch (final IOException e) {
+                        current.onError(e);
+                    }
+                });
+            } else {
+                notifyAll();
+            }
+            return consumed;
+        }
+
+        private void complete(final Throwable error) {
+            final CompletableFuture<Done> pending;
+            synchronized (this) {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+                pending = consumed;
+                consumed = null;
+                chunk = null;
+                if (listener != null) {
+                    final ReadListener current = listener;
+                    callback(() -> {
+                        try {
+                            if (error == null) {
+                                current.onAllDataRead();
+                            } else {
+                                current.onError(error);
+                            }
+                        } catch (final IOException e) {
+                            current.onError(e);
+                        }
+                    });
+                } else {
+                    notifyAll();
+                }
+            }
+            if (pending != null) {
+                pending.complete(Done.getInstance());
+            }
+        }
+
+        @Override
+        public synchronized boolean isFinished() {
+            return finished;
+        }
+
+        @Override
+        public synchronized boolean isReady() {
+            return chunk != null || finished;
+        }
+
+        @Override
+        public void setReadListener(final ReadListener readListener) {
+            synchronized (this) {
+                if (listener != null) {
+                    throw new IllegalStateException("Read listener already set");
+                }
+                listener = readListener;
+            }
+            callback(() -> {
+                try {
+                    if (isFinished()) {
+                        readListener.onAllDataRead();
+                    } else if (isReady()) {
+                        readListener.onDataAvailable();
+                    }
+                } catch (final IOException e) {
+                    readListener.onError(e);
+                }
+            });
+        }
+
+        @Override
+        public int read() throws IOException {
+            final byte[] single = new byte[1];
+            return read(single, 0, 1) < 0 ? -1 : (single[0] & 0xFF);
+        }
+
+        @Override
+        public int read(final byte[] b, final int off, final int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            final CompletableFuture<Done> done;
+            final int read;
+            synchronized (this) {
+                while (chunk == null && !finished) {
+                    if (listener != null) {
+                        throw new IllegalStateException("No data available, check isReady()");
+                    }
+                    try { // blocking mode, the handler chose to hold its thread
+                        wait();
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException(e);
+                    }
+                }
+                if (chunk == null) {
+                    return -1;
+                }
+                read = Math.min(len, chunk.size());
+                chunk.copyToArray(b, off, read);
+                chunk = chunk.drop(read);
+                if (!chunk.isEmpty()) {
+                    return read;
+                }
+                chunk = null;
+                done = consumed;
+                consumed = null;
+            }
+            done.complete(Done.getInstance());
+            return read;
+        }
+    }
+
+    // server frames written by the handler, decoded to messages and pushed to play with backpressure
+    private final class Output extends ServletOutputStream {
+
+        private final SourceQueueWithComplete<Message> queue;
+
+        private final WebSocketFrames.Decoder decoder = new WebSocketFrames.Decoder();
+
+        private CompletableFuture<?> pending = CompletableFuture.completedFuture(null);
+
+        private WriteListener listener;
+
+        private boolean notifyWhenReady;
+
+        private boolean closed;
+
+        private Output(final SourceQueueWithComplete<Message> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public synchronized boolean isReady() {
+            if (pending.isDone()) {
+                return true;
+            }
+            notifyWhenReady = true;
+            return false;
+        }
+
+        @Override
+        public void setWriteListener(final WriteListener writeListener) {
+            synchronized (this) {
+                if (listener != null) {
+                    throw new IllegalStateException("Write listener already set");
+                }
+                listener = writeListener;
+                notifyWhenReady = false;
+            }
+            callback(() -> {
+                try {
+                    writeListener.onWritePossible();
+                } catch (final IOException e) {
+                    writeListener.onError(e);
+                }
+            });
+        }
+
+        @Override
+        public void write(final int b) throws IOException {
+            write(new byte[] { (byte) b }, 0, 1);
+        }
+
+        @Override
+        public void write(final byte[] b, final int off, final int len) throws IOException {
+            final CompletableFuture<?> waitFor;
+            synchronized (this) {
+                if (closed) {
+                    throw new IOException("Connection closed");
+                }
+                if (pending.isCompletedExceptionally()) {
+                    throw new IOException("Can't send message", pending.handle((ok, error) -> error).join());
+                }
+                final List<Message> messages;
+                try {
+                    messages = decoder.feed(ByteString.fromArray(b, off, len));
+                } catch (final IllegalStateException ise) {
+                    throw new IOException(ise);
+                }
+                for (final Message message : messages) {
+                    pending = pending.thenCompose(ok -> queue.offer(message)).thenApply(result -> {
+                        if (result != QueueOfferResult.enqueued()) {
+                            throw new IllegalStateException("Message not sent: " + result);
+                        }
+                        return result;
+                    });
+                    if (CloseMessage.class.isInstance(message)) {
+                        closed = true;
+                        pending = pending.whenComplete((result, error) -> queue.complete());
+                    }
+                }
+                if (listener != null) {
+                    final CompletableFuture<?> current = pending;
+                    current.whenComplete((result, error) -> onOfferDone(current, error));
+                    return;
+                }
+                waitFor = pending;
+            }
+            try { // blocking mode, wait for the backpressure
+                waitFor.join();
+            } catch (final RuntimeException re) {
+                throw new IOException("Can't send message", re);
+            }
+        }
+
+        private void onOfferDone(final CompletableFuture<?> done, final Throwable error) {
+            final WriteListener current;
+            synchronized (this) {
+                if (done != pending || !notifyWhenReady) {
+                    return;
+                }
+                notifyWhenReady = false;
+                current = listener;
+            }
+            callback(() -> {
+                if (error != null) {
+                    current.onError(error);
+                    return;
+                }
+                try {
+                    current.onWritePossible();
+                } catch (final IOException e) {
+                    current.onError(e);
+                }
+            });
+        }
+
+        @Override
+        public void close() {
+            synchronized (this) {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                pending = pending.whenComplete((result, error) -> queue.complete());
+            }
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.github.rmannibucau.playx.servlet.servlet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+public class BlockingInitServlet extends HttpServlet {
+
+    // released by the test once requests are sent during the initialization
+    public static final CountDownLatch RELEASE = new CountDownLatch(1);
+
+    private volatile boolean initialized;
+
+    @Override
+    public void init() throws ServletException {
+        try {
+            if (!RELEASE.await(1, TimeUnit.MINUTES)) {
+                throw new ServletException("Initialization not released");
+            }
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ServletException(e);
+        }
+        initialized = true;
+    }
+
+    @Override
+    protected void service(final HttpServletRequest req, final HttpServletResponse resp) throws IOException {
+        resp.getOutputStream().write(("{\"initialized\":" + initialized + "}").getBytes(StandardCharsets.UTF_8));
+    }
+}
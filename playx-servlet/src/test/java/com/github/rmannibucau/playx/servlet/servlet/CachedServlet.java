@@ -0,0 +1,29 @@
+package com.github.rmannibucau.playx.servlet.servlet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+public class CachedServlet extends HttpServlet {
+
+    private final AtomicInteger invocations = new AtomicInteger();
+
+    @Override
+    protected void service(final HttpServletRequest req, final HttpServletResponse resp) throws IOException {
+        final String delay = req.getParameter("delay");
+        if (delay != null) { // let concurrent requests pile up
+            try {
+                Thread.sleep(Long.parseLong(delay));
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        final String maxAge = req.getParameter("maxAge");
+        resp.setHeader("Cache-Control", "public, max-age=" + (maxAge == null ? "60" : maxAge));
+        resp.getOutputStream().write(("{\"invocation\":" + invocations.incrementAndGet() + "}").getBytes(StandardCharsets.UTF_8));
+    }
+}
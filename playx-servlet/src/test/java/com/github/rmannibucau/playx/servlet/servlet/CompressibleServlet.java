@@ -0,0 +1,25 @@
+package com.github.rmannibucau.playx.servlet.servlet;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+public class CompressibleServlet extends HttpServlet {
+
+    @Override
+    protected void service(final HttpServletRequest req, final HttpServletResponse resp) throws IOException {
+        resp.setContentType("text/plain");
+        final PrintWriter writer = resp.getWriter();
+        final String lines = req.getParameter("lines");
+        for (int i = 0; i < (lines == null ? 512 : Integer.parseInt(lines)); i++) {
+            writer.println("line " + i);
+        }
+        if (req.getParameter("reset") != null) {
+            resp.resetBuffer();
+            writer.print("reset");
+        }
+    }
+}
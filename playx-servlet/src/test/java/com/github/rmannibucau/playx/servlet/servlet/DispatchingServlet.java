@@ -0,0 +1,31 @@
+package com.github.rmannibucau.playx.servlet.servlet;
+
+import java.io.IOException;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+public class DispatchingServlet extends HttpServlet {
+
+    @Override
+    protected void service(final HttpServletRequest req, final HttpServletResponse resp) throws ServletException, IOException {
+        if (req.getServletPath().endsWith("forward")) {
+            resp.getWriter().write("ignored");
+            req.getRequestDispatcher("/sync").forward(req, resp);
+            if (!resp.isCommitted()) {
+                throw new IllegalStateException("forward must commit the response");
+            }
+            // ignored, the forward closed the response
+            resp.setStatus(HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+            resp.setHeader("Content-Type", "text/plain");
+            resp.getWriter().write("after forward");
+            return;
+        }
+        resp.getWriter().write("[");
+        resp.getWriter().flush();
+        req.getServletContext().getNamedDispatcher("sync").include(req, resp);
+        resp.getWriter().write("]");
+    }
+}
@@ -0,0 +1,95 @@
+package com.github.rmannibucau.playx.servlet.servlet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import javax.servlet.ReadListener;
+import javax.servlet.ServletException;
+import javax.servlet.ServletInputStream;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import javax.servlet.http.HttpUpgradeHandler;
+import javax.servlet.http.WebConnection;
+
+public class EchoWebSocketServlet extends HttpServlet {
+
+    @Override
+    protected void service(final HttpServletRequest req, final HttpServletResponse resp) throws ServletException, IOException {
+        if (!"websocket".equalsIgnoreCase(req.getHeader("Upgrade"))) {
+            resp.sendError(HttpServletResponse.SC_BAD_REQUEST);
+            return;
+        }
+        req.upgrade(EchoHandler.class);
+        resp.setStatus(HttpServletResponse.SC_SWITCHING_PROTOCOLS);
+    }
+
+    // echoes short text frames, enough for tests
+    public static class EchoHandler implements HttpUpgradeHandler {
+
+        @Override
+        public void init(final WebConnection connection) {
+            try {
+                final ServletInputStream in = connection.getInputStream();
+                final ServletOutputStream out = connection.getOutputStream();
+                final ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+                in.setReadListener(new ReadListener() {
+
+                    @Override
+                    public void onDataAvailable() throws IOException {
+                        final byte[] chunk = new byte[256];
+                        while (in.isReady() && !in.isFinished()) {
+                            final int read = in.read(chunk);
+                            if (read < 0) {
+                                return;
+                            }
+                            buffer.write(chunk, 0, read);
+                            onFrames();
+                        }
+                    }
+
+                    private void onFrames() throws IOException {
+                        byte[] bytes = buffer.toByteArray();
+                        while (bytes.length >= 6 && bytes.length >= 6 + (bytes[1] & 0x7F)) {
+                            final int opcode = bytes[0] & 0x0F;
+                            final int length = bytes[1] & 0x7F;
+                            final byte[] payload = new byte[length];
+                            for (int i = 0; i < length; i++) {
+                                payload[i] = (byte) (bytes[6 + i] ^ bytes[2 + (i % 4)]);
+                            }
+                            if (opcode == 0x1) {
+                                final byte[] echo = ("echo: " + new String(payload, "UTF-8")).getBytes("UTF-8");
+                                out.write(new byte[] { (byte) 0x81, (byte) echo.length });
+                                out.write(echo);
+                            } else if (opcode == 0x8) {
+                                out.write(new byte[] { (byte) 0x88, (byte) length });
+                                out.write(payload);
+                            }
+                            buffer.reset();
+                            buffer.write(bytes, 6 + length, bytes.length - 6 - length);
+                            bytes = buffer.toByteArray();
+                        }
+                    }
+
+                    @Override
+                    public void onAllDataRead() throws IOException {
+                        out.close();
+                    }
+
+                    @Override
+                    public void onError(final Throwable throwable) {
+                        // no-op
+                    }
+                });
+            } catch (final IOException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+
+        @Override
+        public void destroy() {
+            // no-op
+        }
+    }
+}
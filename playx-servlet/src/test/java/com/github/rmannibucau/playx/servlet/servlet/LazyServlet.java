@@ -0,0 +1,30 @@
+package com.github.rmannibucau.playx.servlet.servlet;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+public class LazyServlet extends HttpServlet {
+
+    private final AtomicInteger inits = new AtomicInteger();
+
+    @Override
+    public void init() throws ServletException {
+        try { // slow init to ensure concurrent first requests wait for the same one
+            Thread.sleep(200);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        inits.incrementAndGet();
+    }
+
+    @Override
+    protected void service(final HttpServletRequest req, final HttpServletResponse resp) throws IOException {
+        resp.getOutputStream().write(("{\"inits\":" + inits.get() + "}").getBytes(StandardCharsets.UTF_8));
+    }
+}
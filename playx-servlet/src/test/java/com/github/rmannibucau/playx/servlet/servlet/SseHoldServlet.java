@@ -0,0 +1,17 @@
+package com.github.rmannibucau.playx.servlet.servlet;
+
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.github.rmannibucau.playx.servlet.servlet.api.PlayServletContext;
+
+// subscribes to the broadcaster named by the request and keeps the stream open
+public class SseHoldServlet extends HttpServlet {
+
+    @Override
+    protected void service(final HttpServletRequest req, final HttpServletResponse resp) {
+        PlayServletContext.class.cast(req.getServletContext()).getSseBroadcaster(req.getParameter("name"))
+                .register(req.startAsync());
+    }
+}
@@ -0,0 +1,23 @@
+package com.github.rmannibucau.playx.servlet.servlet;
+
+import javax.servlet.AsyncContext;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import com.github.rmannibucau.playx.servlet.servlet.api.PlayServletContext;
+import com.github.rmannibucau.playx.servlet.servlet.api.SseBroadcaster;
+import com.github.rmannibucau.playx.servlet.servlet.api.SseEvent;
+
+public class SseServlet extends HttpServlet {
+
+    @Override
+    protected void service(final HttpServletRequest req, final HttpServletResponse resp) {
+        final AsyncContext asyncContext = req.startAsync();
+        final SseBroadcaster broadcaster = PlayServletContext.class.cast(req.getServletContext()).getSseBroadcaster("test");
+        final SseBroadcaster.Subscriber subscriber = broadcaster.register(asyncContext);
+        broadcaster.broadcast(SseEvent.of("hello\nworld"));
+        subscriber.send(new SseEvent("1", "done", "bye", -1));
+        asyncContext.complete();
+    }
+}
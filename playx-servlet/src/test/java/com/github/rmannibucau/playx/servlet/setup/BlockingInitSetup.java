@@ -0,0 +1,19 @@
+package com.github.rmannibucau.playx.servlet.setup;
+
+import java.util.Set;
+
+import javax.servlet.ServletContainerInitializer;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRegistration;
+
+import com.github.rmannibucau.playx.servlet.servlet.BlockingInitServlet;
+
+public class BlockingInitSetup implements ServletContainerInitializer {
+
+    @Override
+    public void onStartup(final Set<Class<?>> c, final ServletContext servletContext) {
+        final ServletRegistration.Dynamic servlet = servletContext.addServlet("blocking", new BlockingInitServlet());
+        servlet.addMapping("/blocking");
+        servlet.setLoadOnStartup(1);
+    }
+}
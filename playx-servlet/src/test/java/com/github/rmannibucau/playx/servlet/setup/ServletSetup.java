@@ -8,7 +8,13 @@ import javax.servlet.ServletRegistration;
 
 import com.github.rmannibucau.playx.servlet.servlet.AsyncDispatchServlet;
 import com.github.rmannibucau.playx.servlet.servlet.AsyncServlet;
+import com.github.rmannibucau.playx.servlet.servlet.CachedServlet;
+import com.github.rmannibucau.playx.servlet.servlet.CompressibleServlet;
+import com.github.rmannibucau.playx.servlet.servlet.DispatchingServlet;
+import com.github.rmannibucau.playx.servlet.servlet.EchoWebSocketServlet;
+import com.github.rmannibucau.playx.servlet.servlet.LazyServlet;
 import com.github.rmannibucau.playx.servlet.servlet.RequestDataServlet;
+import com.github.rmannibucau.playx.servlet.servlet.SseServlet;
 import com.github.rmannibucau.playx.servlet.servlet.SyncServlet;
 
 
@@ -40,5 +46,27 @@ public class ServletSetup implements ServletContainerInitializer {
         {
             servletContext.addServlet("sync", new SyncServlet()).addMapping("/sync");
         }
+        {
+            servletContext.addServlet("compressible", new CompressibleServlet()).addMapping("/compressible");
+        }
+        {
+            servletContext.addServlet("cached", new CachedServlet()).addMapping("/cached");
+        }
+        {
+            servletContext.addServlet("dispatching", new DispatchingServlet()).addMapping("/forward", "/include");
+        }
+        {
+            final ServletRegistration.Dynamic servlet = servletContext.addServlet("lazy", new LazyServlet());
+            servlet.addMapping("/lazy");
+            servlet.setLoadOnStartup(-1);
+        }
+        {
+            final ServletRegistration.Dynamic servlet = servletContext.addServlet("sse", new SseServlet());
+            servlet.addMapping("/sse");
+            servlet.setAsyncSupported(true);
+        }
+        {
+            servletContext.addServlet("echo", new EchoWebSocketServlet()).addMapping("/echo");
+        }
     }
 }
@@ -0,0 +1,19 @@
+package com.github.rmannibucau.playx.servlet.setup;
+
+import java.util.Set;
+
+import javax.servlet.ServletContainerInitializer;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletRegistration;
+
+import com.github.rmannibucau.playx.servlet.servlet.SseHoldServlet;
+
+public class SseSetup implements ServletContainerInitializer {
+
+    @Override
+    public void onStartup(final Set<Class<?>> c, final ServletContext servletContext) {
+        final ServletRegistration.Dynamic servlet = servletContext.addServlet("sse-hold", new SseHoldServlet());
+        servlet.addMapping("/sse-hold");
+        servlet.setAsyncSupported(true);
+    }
+}
@@ -0,0 +1,77 @@
+package com.github.rmannibucau.playx.servlet.test;
+
+import static java.util.Collections.singletonList;
+import static play.test.Helpers.running;
+import static play.test.Helpers.testServer;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.rules.TestRule;
+import org.junit.runner.Description;
+import org.junit.runners.model.Statement;
+
+import com.github.rmannibucau.playx.servlet.servlet.api.ServletFilter;
+import com.github.rmannibucau.playx.servlet.setup.ServletSetup;
+
+import play.inject.guice.GuiceApplicationBuilder;
+import play.test.TestServer;
+
+// a play server running the ServletSetup servlets through the ServletFilter for the tests of a class,
+// each test class only sets the configuration it is about
+public class PlayServer implements TestRule {
+
+    private final Map<String, Object> configuration = new LinkedHashMap<>();
+
+    private volatile TestServer server;
+
+    public PlayServer() {
+        configuration.put("playx.servlet.initializers", singletonList(ServletSetup.class.getName()));
+        configuration.put("play.filters.enabled.100", ServletFilter.class.getName());
+    }
+
+    public PlayServer configure(final String key, final Object value) {
+        configuration.put(key, value);
+        return this;
+    }
+
+    public PlayServer without(final String key) {
+        configuration.remove(key);
+        return this;
+    }
+
+    public int port() {
+        return server.getRunningHttpPort().orElseThrow();
+    }
+
+    public <T> T instance(final Class<T> type) {
+        return server.application().injector().instanceOf(type);
+    }
+
+    @Override
+    public Statement apply(final Statement base, final Description description) {
+        return new Statement() {
+
+            @Override
+            public void evaluate() throws Throwable {
+                server = testServer(new GuiceApplicationBuilder().configure(configuration).build());
+                final AtomicReference<Throwable> error = new AtomicReference<>();
+                try {
+                    running(server, () -> {
+                        try {
+                            base.evaluate();
+                        } catch (final Throwable throwable) {
+                            error.set(throwable);
+                        }
+                    });
+                } finally {
+                    server = null;
+                }
+                if (error.get() != null) {
+                    throw error.get();
+                }
+            }
+        };
+    }
+}
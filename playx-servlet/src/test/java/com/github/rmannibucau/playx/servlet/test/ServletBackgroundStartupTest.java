@@ -0,0 +1,64 @@
+package com.github.rmannibucau.playx.servlet.test;
+
+import static java.util.Arrays.asList;
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import com.github.rmannibucau.playx.servlet.servlet.BlockingInitServlet;
+import com.github.rmannibucau.playx.servlet.setup.BlockingInitSetup;
+import com.github.rmannibucau.playx.servlet.setup.ServletSetup;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+public class ServletBackgroundStartupTest {
+
+    @ClassRule
+    public static final PlayServer play = new PlayServer()
+            .configure("playx.servlet.initializers", asList(ServletSetup.class.getName(), BlockingInitSetup.class.getName()))
+            .configure("playx.servlet.startup.background", true);
+
+    @Test
+    public void requestsDuringInitialization() throws InterruptedException {
+        final ExecutorService clients = Executors.newFixedThreadPool(8);
+        try {
+            final List<CompletableFuture<String>> responses = IntStream.range(0, 8)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> get(i % 2 == 0 ? "/sync" : "/blocking"), clients))
+                    .collect(toList());
+            Thread.sleep(500);
+            assertTrue(responses.stream().noneMatch(CompletableFuture::isDone)); // waiting for the eager servlets
+
+            BlockingInitServlet.RELEASE.countDown();
+            for (int i = 0; i < responses.size(); i++) {
+                assertEquals(i % 2 == 0 ? "{\"source\":\"sync\"}" : "{\"initialized\":true}", responses.get(i).join());
+            }
+        } finally {
+            BlockingInitServlet.RELEASE.countDown(); // else the server can't stop
+            clients.shutdownNow();
+        }
+    }
+
+    private String get(final String endpoint) {
+        try {
+            final URL url = new URL(String.format("http://localhost:%d%s", play.port(), endpoint));
+            try (final BufferedReader stream = new BufferedReader(new InputStreamReader(url.openStream()))) {
+                return stream.lines().collect(joining("\n"));
+            }
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.github.rmannibucau.playx.servlet.test;
+
+import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.URL;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+public class ServletCacheTest {
+
+    @ClassRule
+    public static final PlayServer play = new PlayServer().configure("playx.servlet.cache.enabled", true);
+
+    @Test
+    public void cache() {
+        final String first = get("/cached");
+        assertEquals(first, get("/cached"));
+        assertNotEquals(first, get("/cached?other"));
+    }
+
+    @Test
+    public void host() {
+        final String first = get("/cached?host");
+        assertEquals(first, get("/cached?host"));
+        assertNotEquals(first, get("http://127.0.0.1:%d%s", "/cached?host"));
+    }
+
+    @Test
+    public void collapsing() {
+        final ExecutorService clients = Executors.newFixedThreadPool(8);
+        try {
+            final List<String> responses = IntStream.range(0, 8)
+                    .mapToObj(i -> CompletableFuture.supplyAsync(() -> get("/cached?collapsing&delay=500"), clients))
+                    .collect(toList())
+                    .stream()
+                    .map(CompletableFuture::join)
+                    .distinct()
+                    .collect(toList());
+            assertEquals(responses.toString(), 1, responses.size()); // each invocation has its own counter value
+        } finally {
+            clients.shutdownNow();
+        }
+    }
+
+    @Test
+    public void expiry() throws InterruptedException {
+        final String first = get("/cached?expiry&maxAge=1");
+        assertEquals(first, get("/cached?expiry&maxAge=1"));
+        Thread.sleep(1500);
+        assertNotEquals(first, get("/cached?expiry&maxAge=1"));
+    }
+
+    private String get(final String endpoint) {
+        return get("http://localhost:%d%s", endpoint);
+    }
+
+    private String get(final String base, final String endpoint) {
+        try {
+            final URL url = new URL(String.format(base, play.port(), endpoint));
+            try (final BufferedReader stream = new BufferedReader(new InputStreamReader(url.openStream()))) {
+                return stream.lines().collect(joining("\n"));
+            }
+        } catch (final IOException e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+            return null;
+        }
+    }
+}
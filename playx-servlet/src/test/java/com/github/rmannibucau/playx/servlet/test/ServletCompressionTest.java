@@ -0,0 +1,72 @@
+package com.github.rmannibucau.playx.servlet.test;
+
+import static java.util.stream.Collectors.joining;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.stream.IntStream;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+public class ServletCompressionTest {
+
+    @ClassRule
+    public static final PlayServer play = new PlayServer().configure("playx.servlet.compression.enabled", true);
+
+    @Test
+    public void compression() throws IOException {
+        final String expected = IntStream.range(0, 512).mapToObj(i -> "line " + i).collect(joining("\n"));
+        final URL url = new URL(String.format("http://localhost:%d/compressible", play.port()));
+
+        final HttpURLConnection gzip = HttpURLConnection.class.cast(url.openConnection());
+        gzip.setRequestProperty("Accept-Encoding", "deflate;q=0.5, gzip");
+        assertEquals("gzip", gzip.getHeaderField("Content-Encoding"));
+        assertEquals("Accept-Encoding", gzip.getHeaderField("Vary"));
+        try (final BufferedReader stream = new BufferedReader(new InputStreamReader(new GZIPInputStream(gzip.getInputStream())))) {
+            assertEquals(expected, stream.lines().collect(joining("\n")));
+        }
+        assertTrue(gzip.getContentLengthLong() < expected.length() / 2);
+
+        final HttpURLConnection identity = HttpURLConnection.class.cast(url.openConnection());
+        identity.setRequestProperty("Accept-Encoding", "identity");
+        assertNull(identity.getHeaderField("Content-Encoding"));
+        assertEquals("Accept-Encoding", identity.getHeaderField("Vary")); // a cache must not serve it to gzip clients
+        try (final BufferedReader stream = new BufferedReader(new InputStreamReader(identity.getInputStream()))) {
+            assertEquals(expected, stream.lines().collect(joining("\n")));
+        }
+    }
+
+    @Test
+    public void resetBufferUndoesCompression() throws IOException {
+        final URL url = new URL(String.format("http://localhost:%d/compressible?reset=true", play.port()));
+        final HttpURLConnection connection = HttpURLConnection.class.cast(url.openConnection());
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        assertEquals(200, connection.getResponseCode());
+        assertNull(connection.getHeaderField("Content-Encoding"));
+        assertEquals("Accept-Encoding", connection.getHeaderField("Vary")); // not twice
+        try (final BufferedReader stream = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+            assertEquals("reset", stream.lines().collect(joining("\n")));
+        }
+    }
+
+    @Test
+    public void smallBodyVaries() throws IOException {
+        final URL url = new URL(String.format("http://localhost:%d/compressible?lines=1", play.port()));
+        final HttpURLConnection connection = HttpURLConnection.class.cast(url.openConnection());
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        assertEquals(200, connection.getResponseCode());
+        assertNull(connection.getHeaderField("Content-Encoding")); // under minSize
+        assertEquals("Accept-Encoding", connection.getHeaderField("Vary"));
+        try (final BufferedReader stream = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+            assertEquals("line 0", stream.lines().collect(joining("\n")));
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package com.github.rmannibucau.playx.servlet.test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+import java.io.IOException;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+public class ServletEtagTest {
+
+    @ClassRule
+    public static final PlayServer play = new PlayServer().configure("playx.servlet.etag.enabled", true);
+
+    @Test
+    public void etag() throws IOException {
+        final URL url = new URL(String.format("http://localhost:%d/sync", play.port()));
+
+        final HttpURLConnection first = HttpURLConnection.class.cast(url.openConnection());
+        assertEquals(200, first.getResponseCode());
+        final String etag = first.getHeaderField("ETag");
+        assertNotNull(etag);
+        first.getInputStream().close();
+
+        final HttpURLConnection second = HttpURLConnection.class.cast(url.openConnection());
+        second.setRequestProperty("If-None-Match", etag);
+        assertEquals(304, second.getResponseCode());
+        assertEquals(etag, second.getHeaderField("ETag"));
+
+        final HttpURLConnection changed = HttpURLConnection.class.cast(url.openConnection());
+        changed.setRequestProperty("If-None-Match", "\"other\"");
+        assertEquals(200, changed.getResponseCode());
+        changed.getInputStream().close();
+    }
+}
@@ -0,0 +1,88 @@
+package com.github.rmannibucau.playx.servlet.test;
+
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.stream.Collectors.joining;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.LinkedBlockingQueue;
+
+import com.github.rmannibucau.playx.servlet.servlet.api.ServletRequestHandler;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+public class ServletRequestHandlerTest {
+
+    @ClassRule
+    public static final PlayServer play = new PlayServer()
+            .without("play.filters.enabled.100") // the request handler replaces the filter
+            .configure("play.http.requestHandler", ServletRequestHandler.class.getName());
+
+    @Test
+    public void sync() {
+        doTest("/sync", "{\"source\":\"sync\"}");
+    }
+
+    @Test
+    public void star() {
+        doTest("/star/async/test", "{\"text\":\"/star/async/test\"}");
+    }
+
+    @Test
+    public void webSocket() throws Exception {
+        final BlockingQueue<String> messages = new LinkedBlockingQueue<>();
+        final WebSocket webSocket = HttpClient.newHttpClient().newWebSocketBuilder()
+                .buildAsync(URI.create(String.format("ws://localhost:%d/echo", play.port())),
+                        new WebSocket.Listener() {
+
+                            @Override
+                            public CompletionStage<?> onText(final WebSocket webSocket, final CharSequence data,
+                                    final boolean last) {
+                                messages.add(data.toString());
+                                return WebSocket.Listener.super.onText(webSocket, data, last);
+                            }
+                        })
+                .get(1, MINUTES);
+        webSocket.sendText("first", true).get(1, MINUTES);
+        assertEquals("echo: first", messages.poll(1, MINUTES));
+        webSocket.sendText("second", true).get(1, MINUTES);
+        assertEquals("echo: second", messages.poll(1, MINUTES));
+        webSocket.sendClose(WebSocket.NORMAL_CLOSURE, "done").get(1, MINUTES);
+    }
+
+    @Test
+    public void webSocketHandshakeRejected() throws IOException {
+        final URL url = new URL(String.format("http://localhost:%d/echo", play.port()));
+        assertEquals(400, HttpURLConnection.class.cast(url.openConnection()).getResponseCode());
+    }
+
+    @Test
+    public void notAServlet() throws IOException {
+        final URL url = new URL(String.format("http://localhost:%d/missing", play.port()));
+        assertEquals(404, HttpURLConnection.class.cast(url.openConnection()).getResponseCode());
+    }
+
+    private void doTest(final String endpoint, final String expected) {
+        try {
+            final URL url = new URL(String.format("http://localhost:%d%s", play.port(), endpoint));
+            try (final BufferedReader stream = new BufferedReader(new InputStreamReader(url.openStream()))) {
+                final String output = stream.lines().collect(joining("\n"));
+                assertEquals(expected, output);
+            }
+        } catch (final IOException e) {
+            e.printStackTrace();
+            fail(e.getMessage());
+        }
+    }
+}
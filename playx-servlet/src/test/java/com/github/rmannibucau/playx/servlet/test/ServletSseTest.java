@@ -0,0 +1,108 @@
+package com.github.rmannibucau.playx.servlet.test;
+
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import com.github.rmannibucau.playx.servlet.servlet.api.PlayServletContext;
+import com.github.rmannibucau.playx.servlet.servlet.api.SseBroadcaster;
+import com.github.rmannibucau.playx.servlet.servlet.api.SseEvent;
+import com.github.rmannibucau.playx.servlet.setup.SseSetup;
+
+import org.junit.ClassRule;
+import org.junit.Test;
+
+public class ServletSseTest {
+
+    @ClassRule
+    public static final PlayServer play = new PlayServer()
+            .configure("playx.servlet.initializers", singletonList(SseSetup.class.getName()))
+            .configure("playx.servlet.sse.bufferSize", 4)
+            .configure("playx.servlet.sse.heartbeat", "100ms");
+
+    @Test(expected = IllegalArgumentException.class)
+    public void lineBreakInId() {
+        new SseEvent("1\ndata: injected", null, "ok", -1);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void lineBreakInName() {
+        new SseEvent(null, "done\r\n\r\ndata: injected", "ok", -1);
+    }
+
+    @Test
+    public void heartbeat() throws IOException {
+        final HttpURLConnection connection = subscribe("heartbeat");
+        try (final BufferedReader stream = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+            assertEquals(":", stream.readLine());
+            assertEquals("", stream.readLine());
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    @Test
+    public void disconnect() throws IOException {
+        final SseBroadcaster broadcaster = broadcaster("disconnect");
+        final HttpURLConnection connection = subscribe("disconnect");
+        await(() -> broadcaster.getSubscriberCount() == 1);
+        connection.getInputStream().close();
+        connection.disconnect();
+        await(() -> broadcaster.getSubscriberCount() == 0); // the next heartbeat fails and ends the stream
+        assertEquals(0, broadcaster.getEvictions());
+    }
+
+    @Test
+    public void slowConsumerIsEvicted() throws IOException {
+        final SseBroadcaster broadcaster = broadcaster("slow");
+        final HttpURLConnection connection = subscribe("slow");
+        try {
+            await(() -> broadcaster.getSubscriberCount() == 1);
+            // the client doesn't read, once the socket buffers are full the subscriber buffer fills up
+            final SseEvent event = SseEvent.of(IntStream.range(0, 1024).mapToObj(i -> "payload").collect(Collectors.joining()));
+            for (int i = 0; i < 100_000 && broadcaster.getEvictions() == 0; i++) {
+                broadcaster.broadcast(event);
+            }
+            assertEquals(1, broadcaster.getEvictions());
+            assertEquals(0, broadcaster.getSubscriberCount());
+        } finally {
+            connection.disconnect();
+        }
+    }
+
+    private SseBroadcaster broadcaster(final String name) {
+        return play.instance(PlayServletContext.class).getSseBroadcaster(name);
+    }
+
+    private HttpURLConnection subscribe(final String name) throws IOException {
+        final URL url = new URL(String.format("http://localhost:%d/sse-hold?name=%s", play.port(), name));
+        final HttpURLConnection connection = HttpURLConnection.class.cast(url.openConnection());
+        connection.setReadTimeout(10000);
+        assertEquals(200, connection.getResponseCode());
+        return connection;
+    }
+
+    private void await(final BooleanSupplier condition) {
+        final long end = System.currentTimeMillis() + 10000;
+        while (!condition.getAsBoolean()) {
+            if (System.currentTimeMillis() > end) {
+                fail("condition not met in 10s");
+            }
+            try {
+                Thread.sleep(50);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                fail(e.getMessage());
+            }
+        }
+    }
+}
@@ -1,68 +1,37 @@
 package com.github.rmannibucau.playx.servlet.test;
 
-import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.joining;
+import static java.util.stream.Collectors.toList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
-import static play.test.Helpers.running;
-import static play.test.Helpers.testServer;
-
-import play.inject.guice.GuiceApplicationBuilder;
-import play.test.TestServer;
 
 import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
+import java.net.HttpURLConnection;
 import java.net.URL;
-import java.util.concurrent.atomic.AtomicReference;
-
-import com.github.rmannibucau.playx.servlet.servlet.api.ServletFilter;
-import com.github.rmannibucau.playx.servlet.setup.ServletSetup;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.IntStream;
 
 import org.junit.ClassRule;
 import org.junit.Test;
-import org.junit.rules.TestRule;
-import org.junit.runners.model.Statement;
 
 public class ServletTest {
 
-    private static TestServer server;
-
     @ClassRule
-    public static final TestRule play = (base, description) -> new Statement() {
-
-        @Override
-        public void evaluate() throws Throwable {
-            server = testServer(new GuiceApplicationBuilder()
-                    .configure("playx.servlet.initializers", singletonList(ServletSetup.class.getName()))
-                    .configure("play.filters.enabled.100", ServletFilter.class.getName()).build());
-            final AtomicReference<Throwable> error = new AtomicReference<>();
-            try {
-                running(server, () -> {
-                    try {
-                        base.evaluate();
-                    } catch (final Throwable throwable) {
-                        error.set(throwable);
-                    }
-                });
-            } finally {
-                server = null;
-            }
-            if (error.get() != null) {
-                throw error.get();
-            }
-        }
-    };
+    public static final PlayServer play = new PlayServer();
 
     @Test
     public void requestWithQuery() {
-        doTest("/request?foo=bar", "uri=/request\nurl=http://localhost:" + server.getRunningHttpPort().orElseThrow() + "/request\ncontext=\n"
+        doTest("/request?foo=bar", "uri=/request\nurl=http://localhost:" + play.port() + "/request\ncontext=\n"
                 + "servlet=/request\npathinfo=\nquery=foo=bar");
     }
 
     @Test
     public void request() {
-        doTest("/request", "uri=/request\nurl=http://localhost:" + server.getRunningHttpPort().orElseThrow() + "/request\ncontext=\n"
+        doTest("/request", "uri=/request\nurl=http://localhost:" + play.port() + "/request\ncontext=\n"
                 + "servlet=/request\npathinfo=\nquery=");
     }
 
@@ -86,9 +55,51 @@ public class ServletTest {
         doTest("/sync", "{\"source\":\"sync\"}");
     }
 
+    @Test
+    public void forward() {
+        doTest("/forward", "{\"source\":\"sync\"}");
+    }
+
+    @Test
+    public void include() {
+        doTest("/include", "[{\"source\":\"sync\"}]");
+    }
+
+    @Test
+    public void lazyInit() {
+        IntStream.range(0, 4).mapToObj(i -> CompletableFuture.runAsync(() -> doTest("/lazy", "{\"inits\":1}")))
+                .collect(toList())
+                .forEach(CompletableFuture::join);
+    }
+
+    @Test
+    public void sse() throws IOException {
+        final URL url = new URL(String.format("http://localhost:%d/sse", play.port()));
+        final HttpURLConnection connection = HttpURLConnection.class.cast(url.openConnection());
+        assertTrue(connection.getContentType().startsWith("text/event-stream"));
+        try (final BufferedReader stream = new BufferedReader(new InputStreamReader(connection.getInputStream()))) {
+            assertEquals("data: hello\ndata: world\n\nid: 1\nevent: done\ndata: bye\n", stream.lines().collect(joining("\n")));
+        }
+    }
+
+    @Test
+    public void noCompressionCacheNorEtagByDefault() throws IOException {
+        final URL url = new URL(String.format("http://localhost:%d/compressible", play.port()));
+        final HttpURLConnection connection = HttpURLConnection.class.cast(url.openConnection());
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        assertEquals(200, connection.getResponseCode());
+        assertNull(connection.getHeaderField("Content-Encoding"));
+        assertNull(connection.getHeaderField("Vary"));
+        assertNull(connection.getHeaderField("ETag"));
+        connection.getInputStream().close();
+
+        doTest("/cached", "{\"invocation\":1}");
+        doTest("/cached", "{\"invocation\":2}");
+    }
+
     private void doTest(final String endpoint, final String expected) {
         try {
-            final URL url = new URL(String.format("http://localhost:%d%s", server.getRunningHttpPort().orElseThrow(), endpoint));
+            final URL url = new URL(String.format("http://localhost:%d%s", play.port(), endpoint));
             try (final BufferedReader stream = new BufferedReader(new InputStreamReader(url.openStream()))) {
                 final String output = stream.lines().collect(joining("\n"));
                 assertEquals(expected, output);